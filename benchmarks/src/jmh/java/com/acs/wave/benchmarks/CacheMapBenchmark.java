@@ -0,0 +1,75 @@
+package com.acs.wave.benchmarks;
+
+import com.acs.wave.utils.cache.CacheMap;
+import com.acs.wave.utils.cache.CacheMapBuilder;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link CacheMap#get(Object)} shared by several threads, as the static file filters use it.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class CacheMapBenchmark {
+
+    private static final int KEYS = 1024;
+
+    private CacheMap<String, String> cache;
+    private CacheMap<String, String> missCache;
+    private String[] keys;
+    private String[] missingKeys;
+
+    @Setup
+    public void setup() {
+        cache = new CacheMapBuilder<String, String>()
+                .withTimeout(1L, TimeUnit.HOURS)
+                .withProvider(key -> key.startsWith("/missing") ? null : key.toUpperCase())
+                .build();
+        missCache = new CacheMapBuilder<String, String>()
+                .withTimeout(1L, TimeUnit.HOURS)
+                .withMissTimeout(1L, TimeUnit.HOURS)
+                .withProvider(key -> null)
+                .build();
+
+        keys = new String[KEYS];
+        missingKeys = new String[KEYS];
+        for (int i = 0; i < KEYS; i++) {
+            keys[i] = "/static/file" + i + ".js";
+            missingKeys[i] = "/missing/file" + i + ".js";
+            cache.get(keys[i]);
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public String hitSingleThread() {
+        return cache.get(keys[ThreadLocalRandom.current().nextInt(KEYS)]);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public String hitContended() {
+        return cache.get(keys[ThreadLocalRandom.current().nextInt(KEYS)]);
+    }
+
+    @Benchmark
+    @Threads(32)
+    public String hitContended32() {
+        return cache.get(keys[ThreadLocalRandom.current().nextInt(KEYS)]);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public String missContended() {
+        return cache.get(missingKeys[ThreadLocalRandom.current().nextInt(KEYS)]);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public String missCachedContended() {
+        return missCache.get(missingKeys[ThreadLocalRandom.current().nextInt(KEYS)]);
+    }
+}
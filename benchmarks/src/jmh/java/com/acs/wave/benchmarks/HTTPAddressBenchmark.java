@@ -0,0 +1,57 @@
+package com.acs.wave.benchmarks;
+
+import com.acs.wave.router.HTTPHeaders;
+import com.acs.wave.router.HTTPParams;
+import com.acs.wave.router.HTTPRequest;
+import com.acs.wave.router.constants.ProtocolVersion;
+import com.acs.wave.router.constants.RequestMethod;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing of request addresses. <code>HTTPAddress</code> is package private, it is measured through
+ * {@link HTTPRequest#queryParams()}, whose params are decoded on first access.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class HTTPAddressBenchmark {
+
+    @Param({
+            "/api/persons",
+            "/api/persons?page=2&size=20",
+            "/api/search?q=wave+server&sort=name%2Casc&filter=a%3D1&empty&lang=en",
+            "/api/persons?id=1&id=2&id=3&filter=age=42"
+    })
+    public String uri;
+
+    private HTTPHeaders headers;
+    private byte[] body;
+
+    @Setup
+    public void setup() {
+        headers = new HTTPHeaders();
+        body = new byte[0];
+    }
+
+    @Benchmark
+    public String path() {
+        return request().uri();
+    }
+
+    @Benchmark
+    public HTTPParams queryParamsUnread() {
+        return request().queryParams();
+    }
+
+    @Benchmark
+    public Set<String> queryParams() {
+        return request().queryParams().keySet();
+    }
+
+    private HTTPRequest request() {
+        return new HTTPRequest(RequestMethod.GET, uri, ProtocolVersion.HTTP_1_1, headers, "localhost", body);
+    }
+}
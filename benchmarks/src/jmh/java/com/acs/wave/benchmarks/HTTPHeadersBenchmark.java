@@ -0,0 +1,73 @@
+package com.acs.wave.benchmarks;
+
+import com.acs.wave.router.HTTPHeaders;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lookups over the headers a browser usually sends.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class HTTPHeadersBenchmark {
+
+    private HTTPHeaders headers;
+
+    @Setup
+    public void setup() {
+        headers = new HTTPHeaders();
+        headers.add("Host", "localhost:10080");
+        headers.add("Connection", "keep-alive");
+        headers.add("Cache-Control", "max-age=0");
+        headers.add("User-Agent", "Mozilla/5.0 (X11; Linux x86_64) AppleWebKit/537.36 (KHTML, like Gecko)");
+        headers.add("Accept", "text/html,application/xhtml+xml,application/xml;q=0.9,*/*;q=0.8");
+        headers.add("Accept-Encoding", "gzip, deflate, br");
+        headers.add("Accept-Language", "en-US,en;q=0.9");
+        headers.add("Cookie", "session=0123456789abcdef");
+        headers.add("If-None-Match", "0123456789ABCDEF0123456789ABCDEF");
+        headers.add("If-Modified-Since", "Mon, 01 Jan 2018 00:00:00 GMT");
+        headers.add("Content-Type", "application/json");
+        headers.add("Content-Length", "42");
+    }
+
+    @Benchmark
+    public Optional<String> getSingleFirst() {
+        return headers.getSingle("host", String.class);
+    }
+
+    @Benchmark
+    public Optional<String> getSingleLast() {
+        return headers.getSingle("content-length", String.class);
+    }
+
+    @Benchmark
+    public Optional<String> getSingleMissing() {
+        return headers.getSingle("Range", String.class);
+    }
+
+    @Benchmark
+    public boolean containsKey() {
+        return headers.containsKey("Content-Type");
+    }
+
+    @Benchmark
+    public List<String> get() {
+        return headers.get("Accept-Encoding", String.class);
+    }
+
+    @Benchmark
+    public HTTPHeaders copy() {
+        return headers.clone();
+    }
+
+    @Benchmark
+    public HTTPHeaders copyAndAdd() {
+        HTTPHeaders copy = headers.clone();
+        copy.add("Vary", "Accept-Encoding");
+        return copy;
+    }
+}
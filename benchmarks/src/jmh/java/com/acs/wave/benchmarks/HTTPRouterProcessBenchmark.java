@@ -0,0 +1,59 @@
+package com.acs.wave.benchmarks;
+
+import com.acs.wave.router.HTTPHeaders;
+import com.acs.wave.router.HTTPRequest;
+import com.acs.wave.router.HTTPResponse;
+import com.acs.wave.router.HTTPRouter;
+import com.acs.wave.router.HTTPRouterBuilder;
+import com.acs.wave.router.constants.ProtocolVersion;
+import com.acs.wave.router.constants.RequestMethod;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time and allocation of one simple GET through {@link HTTPRouter#process(HTTPRequest)} for routers of different
+ * sizes. Run with the gc profiler (enabled by default in the build) and read <code>gc.alloc.rate.norm</code> for the
+ * bytes allocated per request.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class HTTPRouterProcessBenchmark {
+
+    private static final int FILTERS = 6;
+
+    @Param({"10", "100", "1000"})
+    public int routes;
+
+    private HTTPRouter httpRouter;
+    private HTTPHeaders headers;
+    private String uri;
+    private byte[] body;
+
+    @Setup
+    public void setup() {
+        HTTPRouterBuilder builder = new HTTPRouterBuilder();
+
+        for (int i = 0; i < FILTERS; i++) {
+            builder.filter("/*", (request, responseBuilder, nextJump) -> nextJump.get());
+        }
+
+        for (int i = 0; i < routes; i++) {
+            builder.get("/api/resource" + i + "/{id}", (request, responseBuilder) -> responseBuilder.body("OK").buildOption());
+        }
+
+        httpRouter = builder.build();
+        headers = new HTTPHeaders();
+        headers.add("Host", "localhost");
+        headers.add("Accept", "*/*");
+        uri = "/api/resource" + (routes / 2) + "/7";
+        body = new byte[0];
+    }
+
+    @Benchmark
+    public HTTPResponse process() {
+        HTTPRequest request = new HTTPRequest(RequestMethod.GET, uri, ProtocolVersion.HTTP_1_1, headers, "localhost", body);
+        return httpRouter.process(request);
+    }
+}
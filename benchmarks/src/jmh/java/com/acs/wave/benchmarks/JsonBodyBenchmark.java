@@ -0,0 +1,64 @@
+package com.acs.wave.benchmarks;
+
+import com.acs.wave.converter.json.JsonBodyReader;
+import com.acs.wave.converter.json.JsonBodyWriter;
+import com.acs.wave.converter.json.json.ObjectMapperProvider;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Round-trips through {@link JsonBodyWriter} and {@link JsonBodyReader}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class JsonBodyBenchmark {
+
+    public static class Person {
+        public long id;
+        public String name;
+        public int age;
+        public List<String> tags;
+    }
+
+    private JsonBodyWriter<Person> writer;
+    private JsonBodyReader<Person> reader;
+    private Person person;
+    private byte[] json;
+
+    @Setup
+    public void setup() {
+        ObjectMapper objectMapper = new ObjectMapperProvider(false).getObjectMapper();
+        writer = new JsonBodyWriter<>(objectMapper);
+        reader = new JsonBodyReader<>(objectMapper, Person.class);
+
+        person = new Person();
+        person.id = 42;
+        person.name = "John Doe";
+        person.age = 33;
+        person.tags = new ArrayList<>();
+        person.tags.add("admin");
+        person.tags.add("user");
+
+        json = writer.write(person);
+    }
+
+    @Benchmark
+    public byte[] write() {
+        return writer.write(person);
+    }
+
+    @Benchmark
+    public Person read() {
+        return reader.read(json);
+    }
+
+    @Benchmark
+    public Person roundTrip() {
+        return reader.read(writer.write(person));
+    }
+}
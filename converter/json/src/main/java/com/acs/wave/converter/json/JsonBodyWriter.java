@@ -2,9 +2,12 @@ package com.acs.wave.converter.json;
 
 import com.acs.wave.router.functional.BodyWriter;
 import com.acs.wave.utils.ExceptionUtils;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 
 public class JsonBodyWriter<T> implements BodyWriter<T> {
 
@@ -35,4 +38,12 @@ public class JsonBodyWriter<T> implements BodyWriter<T> {
 
         return result;
     }
+
+    @Override
+    public void write(T body, OutputStream output) throws IOException {
+        if (body != null) {
+            // the output belongs to the server provider
+            objectMapper.writer().without(JsonGenerator.Feature.AUTO_CLOSE_TARGET).writeValue(output, body);
+        }
+    }
 }
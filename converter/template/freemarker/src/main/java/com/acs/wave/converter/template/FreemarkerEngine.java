@@ -3,9 +3,15 @@ package com.acs.wave.converter.template;
 import com.acs.wave.router.functional.BodyWriter;
 import freemarker.template.Configuration;
 import freemarker.template.Template;
+import freemarker.template.TemplateException;
 
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 
 
 public class FreemarkerEngine implements BodyWriter<TemplateModel> {
@@ -28,4 +34,16 @@ public class FreemarkerEngine implements BodyWriter<TemplateModel> {
             throw new RuntimeException(e);
         }
     }
+
+    @Override
+    public void write(TemplateModel body, OutputStream output) throws IOException {
+        Writer writer = new OutputStreamWriter(output, StandardCharsets.UTF_8);
+        try {
+            Template template = configuration.getTemplate(body.templateName, "UTF-8");
+            template.process(body, writer);
+        } catch (TemplateException e) {
+            throw new RuntimeException(e);
+        }
+        writer.flush();
+    }
 }
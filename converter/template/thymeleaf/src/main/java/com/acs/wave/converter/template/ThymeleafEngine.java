@@ -5,7 +5,12 @@ import org.thymeleaf.TemplateEngine;
 import org.thymeleaf.context.Context;
 
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 
 
 public class ThymeleafEngine implements BodyWriter<TemplateModel> {
@@ -27,6 +32,13 @@ public class ThymeleafEngine implements BodyWriter<TemplateModel> {
         }
     }
 
+    @Override
+    public void write(TemplateModel body, OutputStream output) throws IOException {
+        Writer writer = new OutputStreamWriter(output, StandardCharsets.UTF_8);
+        templateEngine.process(body.templateName, toContext(body), writer);
+        writer.flush();
+    }
+
     private Context toContext(TemplateModel body) {
         Context context = new Context();
         body.forEach(context::setVariable);
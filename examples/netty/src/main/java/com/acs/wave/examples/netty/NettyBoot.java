@@ -10,6 +10,7 @@ import com.acs.wave.router.HTTPRouterBuilder;
 import com.acs.wave.router.WebSocketRouter;
 import com.acs.wave.router.WebSocketRouterBuilder;
 import com.acs.wave.router.constants.ResponseStatus;
+import com.acs.wave.router.files.EtagStrategy;
 import com.acs.wave.router.files.StaticClasspathFolderFilter;
 import com.acs.wave.router.websocket.request.WebSocketRequestText;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -131,8 +132,10 @@ public final class NettyBoot {
             }
         });
 
-        builder.filter("/*", new StaticClasspathFolderFilter("public", true));
-        builder.filter("/webjars/{path+}", new StaticClasspathFolderFilter("META-INF/resources/webjars", true));
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        EtagStrategy etagStrategy = EtagStrategy.manifest(classLoader, EtagStrategy.md5());
+        builder.filter("/*", new StaticClasspathFolderFilter("public", true, classLoader, null, etagStrategy, true));
+        builder.filter("/webjars/{path+}", new StaticClasspathFolderFilter("META-INF/resources/webjars", true, classLoader, null, etagStrategy, true));
         builder.handler("/", (request, responseBuilder) -> responseBuilder.serveOption("/index.html"));
         return builder.build();
     }
@@ -0,0 +1,174 @@
+package com.acs.wave.loadtest;
+
+import org.HdrHistogram.Histogram;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One keep-alive HTTP/1.1 client connection. It writes <code>pipeline</code> requests back to back, then reads their
+ * responses, recording for each one the time since the batch was sent.
+ */
+final class LoadConnection implements Runnable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final String host;
+    private final int port;
+    private final byte[] batch;
+    private final int pipeline;
+    private final long recordFrom;
+    private final long recordUntil;
+    private final byte[] skipBuffer = new byte[BUFFER_SIZE];
+    private final StringBuilder line = new StringBuilder();
+
+    final Histogram histogram = new Histogram(TimeUnit.SECONDS.toMicros(60), 3);
+    long completed;
+    long errors;
+
+    /**
+     * @param recordFrom  Nano time when the warmup ends and recording starts.
+     * @param recordUntil Nano time when the test ends.
+     */
+    LoadConnection(String host, int port, String uri, int pipeline, long recordFrom, long recordUntil) {
+        this.host = host;
+        this.port = port;
+        this.pipeline = pipeline;
+        this.recordFrom = recordFrom;
+        this.recordUntil = recordUntil;
+
+        String request = "GET " + uri + " HTTP/1.1\r\n" +
+                "Host: " + host + ":" + port + "\r\n" +
+                "Accept: */*\r\n" +
+                "Connection: keep-alive\r\n" +
+                "\r\n";
+        byte[] single = request.getBytes(StandardCharsets.US_ASCII);
+
+        batch = new byte[single.length * pipeline];
+        for (int i = 0; i < pipeline; i++) {
+            System.arraycopy(single, 0, batch, i * single.length, single.length);
+        }
+    }
+
+    @Override
+    public void run() {
+        while (System.nanoTime() < recordUntil) {
+            try (Socket socket = new Socket()) {
+                socket.setTcpNoDelay(true);
+                socket.connect(new InetSocketAddress(host, port));
+                drive(socket.getOutputStream(), new BufferedInputStream(socket.getInputStream(), BUFFER_SIZE));
+            } catch (IOException e) {
+                if (System.nanoTime() >= recordFrom) {
+                    errors++;
+                }
+            }
+        }
+    }
+
+    private void drive(OutputStream out, InputStream in) throws IOException {
+        long now = System.nanoTime();
+
+        while (now < recordUntil) {
+            long start = now;
+            out.write(batch);
+            out.flush();
+
+            for (int i = 0; i < pipeline; i++) {
+                int status = readResponse(in);
+                now = System.nanoTime();
+
+                if ((start >= recordFrom) && (now < recordUntil)) {
+                    if (status < 400) {
+                        histogram.recordValue(Math.max(1, TimeUnit.NANOSECONDS.toMicros(now - start)));
+                        completed++;
+                    } else {
+                        errors++;
+                    }
+                }
+            }
+        }
+    }
+
+    private int readResponse(InputStream in) throws IOException {
+        while (true) {
+            String statusLine = readLine(in);
+            int status = Integer.parseInt(statusLine.substring(9, 12));
+
+            long contentLength = -1;
+            boolean chunked = false;
+
+            String header;
+            while (!(header = readLine(in)).isEmpty()) {
+                int colon = header.indexOf(':');
+                String name = header.substring(0, colon).trim();
+                String value = header.substring(colon + 1).trim();
+
+                if (name.equalsIgnoreCase("Content-Length")) {
+                    contentLength = Long.parseLong(value);
+                } else if (name.equalsIgnoreCase("Transfer-Encoding") && value.equalsIgnoreCase("chunked")) {
+                    chunked = true;
+                }
+            }
+
+            // Interim responses (100 Continue) are followed by the real one
+            if ((status >= 100) && (status < 200)) {
+                continue;
+            }
+
+            if (chunked) {
+                skipChunks(in);
+            } else if (contentLength >= 0) {
+                skip(in, contentLength);
+            } else {
+                throw new IOException("Response without length, status " + status);
+            }
+
+            return status;
+        }
+    }
+
+    private void skipChunks(InputStream in) throws IOException {
+        long size;
+        do {
+            String sizeLine = readLine(in);
+            int extension = sizeLine.indexOf(';');
+            size = Long.parseLong((extension < 0) ? sizeLine.trim() : sizeLine.substring(0, extension).trim(), 16);
+            skip(in, size);
+            readLine(in);
+        } while (size > 0);
+    }
+
+    private void skip(InputStream in, long length) throws IOException {
+        long remaining = length;
+        while (remaining > 0) {
+            int read = in.read(skipBuffer, 0, (int) Math.min(skipBuffer.length, remaining));
+            if (read < 0) {
+                throw new EOFException();
+            }
+            remaining -= read;
+        }
+    }
+
+    private String readLine(InputStream in) throws IOException {
+        line.setLength(0);
+
+        int value;
+        while ((value = in.read()) != '\n') {
+            if (value < 0) {
+                throw new EOFException();
+            }
+            if (value != '\r') {
+                line.append((char) value);
+            }
+        }
+
+        return line.toString();
+    }
+}
@@ -0,0 +1,102 @@
+package com.acs.wave.loadtest;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Command line options of the load test.
+ */
+final class LoadOptions {
+
+    String host = "127.0.0.1";
+    int port = 18080;
+    List<LoadServer> servers = Arrays.asList(LoadServer.values());
+    List<LoadRoute> routes = Arrays.asList(LoadRoute.values());
+    int connections = 32;
+    int pipeline = 1;
+    int warmupSeconds = 5;
+    int durationSeconds = 15;
+    File histogramFolder;
+
+    static LoadOptions parse(String... args) {
+        LoadOptions options = new LoadOptions();
+
+        for (int i = 0; i < args.length; i++) {
+            String name = args[i];
+
+            if ("--help".equals(name)) {
+                throw new IllegalArgumentException(usage());
+            }
+
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value of " + name + "\n" + usage());
+            }
+            String value = args[++i];
+
+            switch (name) {
+                case "--host":
+                    options.host = value;
+                    break;
+                case "--port":
+                    options.port = Integer.parseInt(value);
+                    break;
+                case "--server":
+                    options.servers = parseList(value, LoadServer.class);
+                    break;
+                case "--route":
+                    options.routes = parseList(value, LoadRoute.class);
+                    break;
+                case "--connections":
+                    options.connections = Integer.parseInt(value);
+                    break;
+                case "--pipeline":
+                    options.pipeline = Integer.parseInt(value);
+                    break;
+                case "--warmup":
+                    options.warmupSeconds = Integer.parseInt(value);
+                    break;
+                case "--duration":
+                    options.durationSeconds = Integer.parseInt(value);
+                    break;
+                case "--histograms":
+                    options.histogramFolder = new File(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + name + "\n" + usage());
+            }
+        }
+
+        if ((options.connections < 1) || (options.pipeline < 1) || (options.durationSeconds < 1) || (options.warmupSeconds < 0)) {
+            throw new IllegalArgumentException("Connections, pipeline and duration must be positive\n" + usage());
+        }
+
+        return options;
+    }
+
+    private static <T extends Enum<T>> List<T> parseList(String value, Class<T> enumClass) {
+        if ("all".equalsIgnoreCase(value)) {
+            return Arrays.asList(enumClass.getEnumConstants());
+        }
+
+        List<T> result = new ArrayList<>();
+        for (String item : value.split(",")) {
+            result.add(Enum.valueOf(enumClass, item.trim().toUpperCase()));
+        }
+        return result;
+    }
+
+    static String usage() {
+        return "Usage: LoadTest [options]\n" +
+                "  --server      netty,jetty or all            (default all)\n" +
+                "  --route       plaintext,json,static,param    (default all)\n" +
+                "  --connections keep-alive connections         (default 32)\n" +
+                "  --pipeline    requests in flight per connection (default 1)\n" +
+                "  --warmup      warmup seconds, not recorded   (default 5)\n" +
+                "  --duration    measured seconds               (default 15)\n" +
+                "  --host        loopback address to bind       (default 127.0.0.1)\n" +
+                "  --port        port to bind                   (default 18080)\n" +
+                "  --histograms  folder for .hgrm percentile distributions";
+    }
+}
@@ -0,0 +1,17 @@
+package com.acs.wave.loadtest;
+
+/**
+ * Routes of the {@link ReferenceRouter} that can be driven by the load test.
+ */
+enum LoadRoute {
+    PLAINTEXT("/plaintext"),
+    JSON("/json"),
+    STATIC("/static/index.html"),
+    PARAM("/persons/42");
+
+    final String uri;
+
+    LoadRoute(String uri) {
+        this.uri = uri;
+    }
+}
@@ -0,0 +1,36 @@
+package com.acs.wave.loadtest;
+
+import com.acs.wave.provider.common.WaveServer;
+import com.acs.wave.provider.jetty.JettyServerBuilder;
+import com.acs.wave.provider.netty.NettyServerBuilder;
+import com.acs.wave.router.HTTPRouter;
+
+/**
+ * Providers that can be started by the load test.
+ */
+enum LoadServer {
+    NETTY {
+        @Override
+        WaveServer<?> build(String host, int port, HTTPRouter httpRouter) {
+            return new NettyServerBuilder()
+                    .host(host)
+                    .enableHttp(port)
+                    .disableHttps()
+                    .httpRouter(httpRouter)
+                    .build();
+        }
+    },
+    JETTY {
+        @Override
+        WaveServer<?> build(String host, int port, HTTPRouter httpRouter) {
+            return new JettyServerBuilder()
+                    .host(host)
+                    .enableHttp(port)
+                    .disableHttps()
+                    .httpRouter(httpRouter)
+                    .build();
+        }
+    };
+
+    abstract WaveServer<?> build(String host, int port, HTTPRouter httpRouter);
+}
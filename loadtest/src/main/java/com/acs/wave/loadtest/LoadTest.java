@@ -0,0 +1,131 @@
+package com.acs.wave.loadtest;
+
+import com.acs.wave.provider.common.WaveServer;
+import org.HdrHistogram.Histogram;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.PrintStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Self contained load test. It starts every provider on a loopback address with the {@link ReferenceRouter} and
+ * drives every route with keep-alive (and optionally pipelined) HTTP/1.1 connections, reporting throughput and
+ * latency percentiles.
+ * <p>
+ * The clients are closed loop: a connection only sends its next batch once the previous one has been answered, so
+ * latencies do not include the time requests would have waited at a fixed arrival rate.
+ */
+public final class LoadTest {
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadOptions options;
+        try {
+            options = LoadOptions.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+            return;
+        }
+
+        System.out.printf(Locale.ROOT, "JVM %s %s, %d cores%n", System.getProperty("java.vm.name"), System.getProperty("java.version"), Runtime.getRuntime().availableProcessors());
+        System.out.printf(Locale.ROOT, "%d connections, pipeline %d, warmup %d s, duration %d s%n%n", options.connections, options.pipeline, options.warmupSeconds, options.durationSeconds);
+
+        for (LoadServer server : options.servers) {
+            WaveServer<?> waveServer = server.build(options.host, options.port, ReferenceRouter.build());
+            waveServer.start();
+            try {
+                System.out.println(server.name().toLowerCase());
+                waitForPort(options.host, options.port);
+
+                for (LoadRoute route : options.routes) {
+                    Histogram histogram = run(options, route);
+                    writeHistogram(options, server, route, histogram);
+                }
+                System.out.println();
+            } finally {
+                waveServer.stop();
+            }
+        }
+
+        System.exit(0);
+    }
+
+    private static Histogram run(LoadOptions options, LoadRoute route) throws InterruptedException {
+        long recordFrom = System.nanoTime() + TimeUnit.SECONDS.toNanos(options.warmupSeconds);
+        long recordUntil = recordFrom + TimeUnit.SECONDS.toNanos(options.durationSeconds);
+
+        List<LoadConnection> connections = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+
+        for (int i = 0; i < options.connections; i++) {
+            LoadConnection connection = new LoadConnection(options.host, options.port, route.uri, options.pipeline, recordFrom, recordUntil);
+            Thread thread = new Thread(connection, "load-" + route.name().toLowerCase() + "-" + i);
+            connections.add(connection);
+            threads.add(thread);
+            thread.start();
+        }
+
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        Histogram histogram = new Histogram(TimeUnit.SECONDS.toMicros(60), 3);
+        long completed = 0;
+        long errors = 0;
+
+        for (LoadConnection connection : connections) {
+            histogram.add(connection.histogram);
+            completed += connection.completed;
+            errors += connection.errors;
+        }
+
+        report(route, histogram, completed, errors, options.durationSeconds);
+        return histogram;
+    }
+
+    private static void report(LoadRoute route, Histogram histogram, long completed, long errors, int seconds) {
+        System.out.printf(Locale.ROOT, "  %-10s %10.1f req/s  %8d errors  latency us: p50 %7d  p99 %7d  p99.9 %7d  max %7d%n",
+                route.name().toLowerCase(),
+                (double) completed / seconds,
+                errors,
+                histogram.getValueAtPercentile(50.0),
+                histogram.getValueAtPercentile(99.0),
+                histogram.getValueAtPercentile(99.9),
+                histogram.getMaxValue());
+    }
+
+    private static void writeHistogram(LoadOptions options, LoadServer server, LoadRoute route, Histogram histogram) throws FileNotFoundException {
+        if (options.histogramFolder != null) {
+            options.histogramFolder.mkdirs();
+            File file = new File(options.histogramFolder, server.name().toLowerCase() + "-" + route.name().toLowerCase() + ".hgrm");
+
+            try (PrintStream out = new PrintStream(file)) {
+                // Values are recorded in microseconds, the distribution is written in milliseconds
+                histogram.outputPercentileDistribution(out, 1000.0);
+            }
+        }
+    }
+
+    private static void waitForPort(String host, int port) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+
+        while (System.nanoTime() < deadline) {
+            try (Socket socket = new Socket()) {
+                socket.connect(new InetSocketAddress(host, port), 1000);
+                return;
+            } catch (Exception e) {
+                Thread.sleep(100);
+            }
+        }
+        throw new IllegalStateException("Server not listening on " + host + ":" + port);
+    }
+}
@@ -0,0 +1,76 @@
+package com.acs.wave.loadtest;
+
+import com.acs.wave.converter.json.JsonBodyWriter;
+import com.acs.wave.converter.json.json.ObjectMapperProvider;
+import com.acs.wave.router.HTTPRouter;
+import com.acs.wave.router.HTTPRouterBuilder;
+import com.acs.wave.router.constants.ResponseStatus;
+import com.acs.wave.router.files.StaticClasspathFolderFilter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Router served by every provider under test, so results are comparable between them.
+ */
+final class ReferenceRouter {
+
+    static final String PLAIN_TEXT = "Hello, World!";
+
+    private ReferenceRouter() {
+    }
+
+    static HTTPRouter build() {
+        ObjectMapper objectMapper = new ObjectMapperProvider(false).getObjectMapper();
+        JsonBodyWriter<Object> jsonBodyWriter = new JsonBodyWriter<>(objectMapper);
+
+        Map<Long, Person> persons = new HashMap<>();
+        for (long id = 1; id <= 100; id++) {
+            persons.put(id, new Person(id, "John Doe " + id, (int) (20 + id % 50)));
+        }
+
+        Map<String, String> message = new HashMap<>();
+        message.put("message", PLAIN_TEXT);
+
+        HTTPRouterBuilder builder = new HTTPRouterBuilder();
+
+        builder.get("/plaintext", (request, responseBuilder) -> {
+            responseBuilder.header("Content-Type", "text/plain");
+            responseBuilder.body(PLAIN_TEXT);
+            return responseBuilder.buildOption();
+        });
+
+        builder.get("/json", (request, responseBuilder) -> {
+            responseBuilder.body(message, jsonBodyWriter);
+            return responseBuilder.buildOption();
+        });
+
+        builder.get("/persons/{id}", (request, responseBuilder) -> {
+            Person person = persons.get(request.pathParams().getMandatory("id", Long.class));
+
+            if (person != null) {
+                responseBuilder.body(person, jsonBodyWriter);
+                return responseBuilder.buildOption();
+            } else {
+                return responseBuilder.errorOption(ResponseStatus.NOT_FOUND);
+            }
+        });
+
+        builder.filter("/static/{path+}", new StaticClasspathFolderFilter("loadtest/static", true));
+
+        return builder.build();
+    }
+
+    public static final class Person {
+        public final long id;
+        public final String name;
+        public final int age;
+
+        Person(long id, String name, int age) {
+            this.id = id;
+            this.name = name;
+            this.age = age;
+        }
+    }
+}
@@ -29,7 +29,7 @@ public final class JettyServer extends WaveServer<JettyServerDefinition> {
     @Override
     protected void startServer() throws Exception {
         server = createServer();
-        WaveServerServlet servlet = new WaveServerServlet(definition.httpRouter);
+        WaveServerServlet servlet = new WaveServerServlet(definition.httpRouter, definition.nonBlockingBodies, definition.nonBlockingWrites);
         server.setHandler(new JettyHandler(servlet));
         if (definition.hasHTTP()) {
             server.addConnector(getServerConnector());
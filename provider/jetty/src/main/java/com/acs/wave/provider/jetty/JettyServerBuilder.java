@@ -8,19 +8,23 @@ import spark.ssl.SslStores;
 public final class JettyServerBuilder extends WaveServerBuilder<JettyServer> {
 
     private static final int DEFAULT_VALUE = -1;
+    private static final boolean DEFAULT_NON_BLOCKING_BODIES = false;
+    private static final boolean DEFAULT_NON_BLOCKING_WRITES = false;
 
     private SslStores sslStores = getDefaultSSLStores();
     private int maxThreads = DEFAULT_VALUE;
     private int minThreads = DEFAULT_VALUE;
     private int threadTimeoutMillis = DEFAULT_VALUE;
     private int soLingerTime = DEFAULT_VALUE;
+    private boolean nonBlockingBodies = DEFAULT_NON_BLOCKING_BODIES;
+    private boolean nonBlockingWrites = DEFAULT_NON_BLOCKING_WRITES;
 
     protected WebSocketRouter webSocketRouter;
 
 
     @Override
     public JettyServer buildInstance() {
-        JettyServerDefinition definition = new JettyServerDefinition(host, httpPort, httpsPort, sslStores, httpRouter, maxThreads, minThreads, threadTimeoutMillis, soLingerTime, webSocketRouter);
+        JettyServerDefinition definition = new JettyServerDefinition(host, httpPort, httpsPort, sslStores, httpRouter, maxThreads, minThreads, threadTimeoutMillis, soLingerTime, nonBlockingBodies, nonBlockingWrites, webSocketRouter);
         return new JettyServer(definition);
     }
 
@@ -65,6 +69,32 @@ public final class JettyServerBuilder extends WaveServerBuilder<JettyServer> {
         return soLingerTime(DEFAULT_VALUE);
     }
 
+    /**
+     * Read the streamed request bodies with a servlet read listener, without holding a pool thread while slow clients
+     * upload them. Handlers should then read them through their body publisher.
+     */
+    public JettyServerBuilder nonBlockingBodies(boolean nonBlockingBodies) {
+        this.nonBlockingBodies = nonBlockingBodies;
+        return this;
+    }
+
+    public JettyServerBuilder defaultNonBlockingBodies() {
+        return nonBlockingBodies(DEFAULT_NON_BLOCKING_BODIES);
+    }
+
+    /**
+     * Write the large in memory and file response bodies with a servlet write listener, without holding a pool thread
+     * while slow clients download them.
+     */
+    public JettyServerBuilder nonBlockingWrites(boolean nonBlockingWrites) {
+        this.nonBlockingWrites = nonBlockingWrites;
+        return this;
+    }
+
+    public JettyServerBuilder defaultNonBlockingWrites() {
+        return nonBlockingWrites(DEFAULT_NON_BLOCKING_WRITES);
+    }
+
     public JettyServerBuilder sslContext(SslStores sslStores) {
         this.sslStores = sslStores;
         return this;
@@ -11,14 +11,18 @@ class JettyServerDefinition extends WaveServerDefinition<SslStores> {
     public final int minThreads;
     public final int threadTimeoutMillis;
     public final int soLingerTime;
+    public final boolean nonBlockingBodies;
+    public final boolean nonBlockingWrites;
     public final WebSocketRouter webSocketRouter;
 
-    public JettyServerDefinition(String host, Integer httpPort, Integer httpsPort, SslStores sslStores, HTTPRouter httpRouter, int maxThreads, int minThreads, int threadTimeoutMillis, int soLingerTime, WebSocketRouter webSocketRouter) {
+    public JettyServerDefinition(String host, Integer httpPort, Integer httpsPort, SslStores sslStores, HTTPRouter httpRouter, int maxThreads, int minThreads, int threadTimeoutMillis, int soLingerTime, boolean nonBlockingBodies, boolean nonBlockingWrites, WebSocketRouter webSocketRouter) {
         super(host, httpPort, httpsPort, sslStores, httpRouter);
         this.maxThreads = maxThreads;
         this.minThreads = minThreads;
         this.threadTimeoutMillis = threadTimeoutMillis;
         this.soLingerTime = soLingerTime;
+        this.nonBlockingBodies = nonBlockingBodies;
+        this.nonBlockingWrites = nonBlockingWrites;
         this.webSocketRouter = webSocketRouter;
     }
 }
@@ -0,0 +1,63 @@
+package com.acs.wave.provider.netty;
+
+import io.netty.buffer.ByteBuf;
+
+import java.util.Arrays;
+
+/**
+ * Aggregated request body, copied once from the chunks into the array handed to the router. The array grows with the
+ * received data rather than with the announced <code>Content-Length</code>, which it never exceeds.
+ */
+final class NettyBodyAggregator {
+
+    private static final int INITIAL_CAPACITY = 1024 * 1024;
+
+    private final long maxSize;
+    private final long contentLength;
+    private byte[] data;
+    private int size;
+
+    /**
+     * @param maxSize       The maximum size of the body.
+     * @param contentLength The announced size of the body, -1 if unknown.
+     */
+    NettyBodyAggregator(long maxSize, long contentLength) {
+        this.maxSize = Math.min(maxSize, Integer.MAX_VALUE - 8);
+        this.contentLength = contentLength;
+        this.data = new byte[(int) Math.min(initialCapacity(), this.maxSize)];
+    }
+
+    /**
+     * Add a chunk of the body.
+     *
+     * @param content The chunk.
+     * @return False if the body exceeds its maximum size.
+     */
+    boolean append(ByteBuf content) {
+        int length = content.readableBytes();
+
+        if (size + (long) length > maxSize) {
+            return false;
+        }
+
+        if (size + length > data.length) {
+            long capacity = Math.max(2L * data.length, size + (long) length);
+            if (contentLength >= size + (long) length) {
+                capacity = Math.min(capacity, contentLength);
+            }
+            data = Arrays.copyOf(data, (int) Math.min(capacity, maxSize));
+        }
+
+        content.getBytes(content.readerIndex(), data, size, length);
+        size += length;
+        return true;
+    }
+
+    byte[] toArray() {
+        return (size == data.length) ? data : Arrays.copyOf(data, size);
+    }
+
+    private long initialCapacity() {
+        return (contentLength >= 0) ? Math.min(contentLength, INITIAL_CAPACITY) : 0;
+    }
+}
@@ -0,0 +1,104 @@
+package com.acs.wave.provider.netty;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.DefaultHttpContent;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.ClosedChannelException;
+
+/**
+ * Output of a streamed response body, sending it as http chunks. Used from a single handler thread, which waits for
+ * the channel to be writable again when the peer reads slower than the body is written, so that at most the write
+ * buffer of the channel is held in memory.
+ */
+final class NettyBodyOutputStream extends OutputStream {
+
+    static final int CHUNK_SIZE = 8192;
+
+    private final ChannelHandlerContext ctx;
+    private ByteBuf chunk;
+
+    NettyBodyOutputStream(ChannelHandlerContext ctx) {
+        this.ctx = ctx;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        chunk().writeByte(b);
+
+        if (!chunk.isWritable()) {
+            writeChunk();
+        }
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        while (len > 0) {
+            int length = Math.min(len, chunk().writableBytes());
+            chunk.writeBytes(b, off, length);
+            off += length;
+            len -= length;
+
+            if (!chunk.isWritable()) {
+                writeChunk();
+            }
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        writeChunk();
+    }
+
+    /**
+     * Only flushes, the response is ended by the channel handler once the body writer returns.
+     */
+    @Override
+    public void close() throws IOException {
+        flush();
+    }
+
+    /**
+     * Drop the unsent part of the body, after a failure.
+     */
+    void release() {
+        if (chunk != null) {
+            chunk.release();
+            chunk = null;
+        }
+    }
+
+    private ByteBuf chunk() throws IOException {
+        if (!ctx.channel().isActive()) {
+            release();
+            throw new ClosedChannelException();
+        }
+
+        if (chunk == null) {
+            chunk = ctx.alloc().buffer(CHUNK_SIZE, CHUNK_SIZE);
+        }
+
+        return chunk;
+    }
+
+    private void writeChunk() throws IOException {
+        if ((chunk == null) || !chunk.isReadable()) {
+            return;
+        }
+
+        ChannelFuture future = ctx.writeAndFlush(new DefaultHttpContent(chunk));
+        chunk = null;
+
+        // waiting on the event loop would never end, the writer is not expected to run there
+        if (!ctx.executor().inEventLoop() && !ctx.channel().isWritable()) {
+            future.awaitUninterruptibly();
+
+            if (!future.isSuccess()) {
+                throw new IOException("Could not write the response body", future.cause());
+            }
+        }
+    }
+}
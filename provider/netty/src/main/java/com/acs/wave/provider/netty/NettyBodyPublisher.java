@@ -0,0 +1,202 @@
+package com.acs.wave.provider.netty;
+
+import com.acs.wave.router.exception.BodyTooLargeException;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.LastHttpContent;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.Flow;
+
+/**
+ * Streamed request body fed with the <code>HttpContent</code> chunks of the connection.
+ * <p>
+ * All the state is only accessed from the event loop of the connection, subscription calls made from other threads
+ * are handed over to it. Chunks are buffered while the subscriber has no demand, and the channel handler stops reading
+ * from the socket once {@link #BUFFER_LIMIT} bytes are waiting, which is what pushes back on the client.
+ */
+final class NettyBodyPublisher implements Flow.Publisher<ByteBuffer> {
+
+    private static final int BUFFER_LIMIT = 64 * 1024;
+
+    private static final Flow.Subscription REFUSED = new Flow.Subscription() {
+        @Override
+        public void request(long n) {
+        }
+
+        @Override
+        public void cancel() {
+        }
+    };
+
+    private final ChannelHandlerContext ctx;
+    private final long maxSize;
+    private final Runnable onDemand;
+
+    private final Queue<ByteBuf> chunks = new ArrayDeque<>();
+    private Flow.Subscriber<? super ByteBuffer> subscriber;
+    private long demand;
+    private long received;
+    private int buffered;
+    private boolean complete;
+    private boolean signalled;
+    private boolean discarding;
+    private Throwable error;
+
+    /**
+     * @param ctx      The context of the channel handler.
+     * @param maxSize  The maximum size of the body.
+     * @param onDemand Called when the publisher may accept more chunks, to resume reading.
+     */
+    NettyBodyPublisher(ChannelHandlerContext ctx, long maxSize, Runnable onDemand) {
+        this.ctx = ctx;
+        this.maxSize = maxSize;
+        this.onDemand = onDemand;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super ByteBuffer> subscriber) {
+        inEventLoop(() -> {
+            if (this.subscriber != null) {
+                subscriber.onSubscribe(REFUSED);
+                subscriber.onError(new IllegalStateException("A streamed request body can be subscribed only once"));
+                return;
+            }
+
+            this.subscriber = subscriber;
+            subscriber.onSubscribe(new Subscription());
+            drain();
+        });
+    }
+
+    /**
+     * Add a chunk of the body.
+     *
+     * @param content The chunk, not retained by the caller.
+     * @return False if the body exceeds its maximum size.
+     */
+    boolean offer(HttpContent content) {
+        ByteBuf data = content.content();
+        received += data.readableBytes();
+
+        if (received > maxSize) {
+            fail(new BodyTooLargeException(maxSize));
+            return false;
+        }
+
+        if (!discarding && data.isReadable()) {
+            chunks.add(data.retain());
+            buffered += data.readableBytes();
+        }
+
+        if (content instanceof LastHttpContent) {
+            complete = true;
+        }
+
+        drain();
+        return true;
+    }
+
+    /**
+     * Stop the body, failing its subscriber if it has not completed yet.
+     */
+    void fail(Throwable cause) {
+        if (!complete) {
+            error = cause;
+            complete = true;
+        }
+        release();
+        drain();
+    }
+
+    /**
+     * Drop the rest of the body, once the response has been written without reading all of it.
+     */
+    void discard() {
+        discarding = true;
+        release();
+    }
+
+    boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * @return True if reading more of the body from the socket is useful.
+     */
+    boolean wantsMore() {
+        return !complete && (discarding || (demand > 0) || (buffered < BUFFER_LIMIT));
+    }
+
+    private void drain() {
+        if ((subscriber == null) || signalled) {
+            return;
+        }
+
+        if (error != null) {
+            signalled = true;
+            subscriber.onError(error);
+            return;
+        }
+
+        while ((demand > 0) && !chunks.isEmpty()) {
+            ByteBuf chunk = chunks.poll();
+            buffered -= chunk.readableBytes();
+            demand--;
+
+            // the subscriber may keep the buffer after returning, so it gets its own copy
+            ByteBuffer item = ByteBuffer.wrap(ByteBufUtil.getBytes(chunk));
+            chunk.release();
+            subscriber.onNext(item);
+        }
+
+        if (complete && chunks.isEmpty() && !signalled) {
+            signalled = true;
+            subscriber.onComplete();
+        }
+    }
+
+    private void release() {
+        ByteBuf chunk;
+        while ((chunk = chunks.poll()) != null) {
+            chunk.release();
+        }
+        buffered = 0;
+    }
+
+    private void inEventLoop(Runnable task) {
+        if (ctx.executor().inEventLoop()) {
+            task.run();
+        } else {
+            ctx.executor().execute(task);
+        }
+    }
+
+    private final class Subscription implements Flow.Subscription {
+        @Override
+        public void request(long n) {
+            inEventLoop(() -> {
+                if (n <= 0) {
+                    fail(new IllegalArgumentException("Requested " + n + " items"));
+                    return;
+                }
+                demand = (Long.MAX_VALUE - demand < n) ? Long.MAX_VALUE : demand + n;
+                drain();
+                onDemand.run();
+            });
+        }
+
+        @Override
+        public void cancel() {
+            inEventLoop(() -> {
+                signalled = true;
+                discard();
+                onDemand.run();
+            });
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.acs.wave.provider.netty;
+
+import com.acs.wave.router.HTTPCompressionFilter;
+import io.netty.handler.codec.http.HttpContentCompressor;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpUtil;
+
+/**
+ * Compression of the responses built by handlers, limited to the content types and sizes handled by
+ * {@link HTTPCompressionFilter}. Responses already encoded, by the filter for example, and partial ones are sent as
+ * they are.
+ */
+final class NettyContentCompressor extends HttpContentCompressor {
+
+    @Override
+    protected Result beginEncode(HttpResponse response, String acceptEncoding) throws Exception {
+        if (passesThrough(response)) {
+            return null;
+        }
+
+        HttpHeaders headers = response.headers();
+        if (!headers.contains(HttpHeaderNames.VARY, HttpHeaderNames.ACCEPT_ENCODING, true)) {
+            headers.add(HttpHeaderNames.VARY, HttpHeaderNames.ACCEPT_ENCODING);
+        }
+
+        return super.beginEncode(response, acceptEncoding);
+    }
+
+    /**
+     * @return True if the response is sent as it is whatever the client accepts, its body then does not have to go
+     * through the compressor.
+     */
+    static boolean passesThrough(HttpResponse response) {
+        HttpHeaders headers = response.headers();
+
+        if (headers.contains(HttpHeaderNames.CONTENT_ENCODING) || headers.contains(HttpHeaderNames.CONTENT_RANGE)
+                || !HTTPCompressionFilter.isCompressibleType(headers.get(HttpHeaderNames.CONTENT_TYPE))) {
+            return true;
+        }
+
+        long contentLength = HttpUtil.getContentLength(response, -1L);
+        return (contentLength >= 0) && (contentLength < HTTPCompressionFilter.DEFAULT_MIN_SIZE);
+    }
+}
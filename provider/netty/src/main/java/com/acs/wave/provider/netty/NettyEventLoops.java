@@ -0,0 +1,42 @@
+package com.acs.wave.provider.netty;
+
+import io.netty.channel.EventLoopGroup;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Boss and worker event loop groups created once per server and shared by all its channels.
+ */
+final class NettyEventLoops {
+
+    private static final Logger log = LoggerFactory.getLogger(NettyEventLoops.class);
+
+    final NettyTransport transport;
+    final int acceptors;
+    final EventLoopGroup bossGroup;
+    final EventLoopGroup workerGroup;
+
+    private NettyEventLoops(NettyTransport transport, int acceptors, EventLoopGroup bossGroup, EventLoopGroup workerGroup) {
+        this.transport = transport;
+        this.acceptors = acceptors;
+        this.bossGroup = bossGroup;
+        this.workerGroup = workerGroup;
+    }
+
+    static NettyEventLoops create(NettyServerOptions options) {
+        NettyTransport transport = options.transport.resolve();
+        int acceptors = options.acceptors;
+
+        if ((acceptors > 1) && !transport.supportsReusePort()) {
+            log.warn("{} transport does not support SO_REUSEPORT, using a single acceptor instead of {}", transport, acceptors);
+            acceptors = 1;
+        }
+
+        return new NettyEventLoops(transport, acceptors, transport.newEventLoopGroup(acceptors), transport.newEventLoopGroup(options.workerThreads));
+    }
+
+    void shutdown() {
+        bossGroup.shutdownGracefully();
+        workerGroup.shutdownGracefully();
+    }
+}
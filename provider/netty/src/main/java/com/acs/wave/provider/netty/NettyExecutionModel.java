@@ -0,0 +1,22 @@
+package com.acs.wave.provider.netty;
+
+/**
+ * Where the router runs the filters and handlers of a request.
+ */
+public enum NettyExecutionModel {
+    /**
+     * On the I/O event loop of the connection. Fastest for CPU-light handlers, but a blocking handler stalls every
+     * connection of the event loop. Requests whose body is streamed and streamed response bodies still run on a pool
+     * of handler threads, sized as the {@link #POOL} one, since they wait for the peer.
+     */
+    INLINE,
+    /**
+     * On a bounded pool of platform threads with a bounded queue.
+     */
+    POOL,
+    /**
+     * On one virtual thread per request with a bounded number of requests in flight. Requires JDK 21 or later,
+     * otherwise the server falls back to {@link #POOL}.
+     */
+    VIRTUAL_THREADS
+}
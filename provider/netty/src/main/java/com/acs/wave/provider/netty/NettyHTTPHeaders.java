@@ -0,0 +1,97 @@
+package com.acs.wave.provider.netty;
+
+import com.acs.wave.router.HTTPHeader;
+import com.acs.wave.router.HTTPHeaders;
+import io.netty.handler.codec.http.HttpHeaders;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Request headers read straight from the Netty headers instead of being copied. They are copied on the first header
+ * added or removed, the Netty headers are never modified.
+ */
+final class NettyHTTPHeaders extends HTTPHeaders {
+
+    private final HttpHeaders nettyHeaders;
+    private boolean copied;
+
+    NettyHTTPHeaders(HttpHeaders nettyHeaders) {
+        this.nettyHeaders = nettyHeaders;
+    }
+
+    @Override
+    public void add(String key, Object value) {
+        copy();
+        super.add(key, value);
+    }
+
+    @Override
+    public void remove(String key) {
+        copy();
+        super.remove(key);
+    }
+
+    @Override
+    public Set<String> keys() {
+        return copied ? super.keys() : nettyHeaders.names();
+    }
+
+    @Override
+    public boolean containsKey(String key) {
+        return copied ? super.containsKey(key) : nettyHeaders.contains(key);
+    }
+
+    @Override
+    public <T> Optional<T> getSingle(String key, Function<String, T> converter) {
+        if (copied) {
+            return super.getSingle(key, converter);
+        }
+
+        String value = nettyHeaders.get(key);
+        return (value == null) ? Optional.empty() : Optional.ofNullable(converter.apply(value));
+    }
+
+    @Override
+    public <T> List<T> get(String key, Function<String, T> converter) {
+        if (copied) {
+            return super.get(key, converter);
+        }
+
+        return nettyHeaders.getAll(key).stream()
+                .map(converter)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public Stream<HTTPHeader> stream() {
+        if (copied) {
+            return super.stream();
+        }
+
+        return StreamSupport.stream(nettyHeaders.spliterator(), false)
+                .map(header -> new HTTPHeader(header.getKey(), header.getValue()));
+    }
+
+    @Override
+    public HTTPHeaders clone() {
+        return copied ? super.clone() : new NettyHTTPHeaders(nettyHeaders);
+    }
+
+    private void copy() {
+        if (!copied) {
+            copied = true;
+            nettyHeaders.forEach(header -> super.add(header.getKey(), header.getValue()));
+        }
+    }
+
+    @Override
+    public String toString() {
+        return copied ? super.toString() : "HTTPHeaders{headers='" + nettyHeaders + "'}";
+    }
+}
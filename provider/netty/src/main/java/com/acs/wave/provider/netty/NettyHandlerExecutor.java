@@ -0,0 +1,115 @@
+package com.acs.wave.provider.netty;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executor running the router off the I/O event loops, refusing requests instead of queueing them without limit.
+ * With the {@link NettyExecutionModel#INLINE} execution model it only runs the work that waits for the peer, which
+ * would stall the event loop delivering the data it waits for.
+ */
+final class NettyHandlerExecutor {
+
+    private static final Logger log = LoggerFactory.getLogger(NettyHandlerExecutor.class);
+
+    private final ExecutorService executor;
+    private final Semaphore permits;
+    private final boolean inline;
+
+    private NettyHandlerExecutor(ExecutorService executor, Semaphore permits, boolean inline) {
+        this.executor = executor;
+        this.permits = permits;
+        this.inline = inline;
+    }
+
+    /**
+     * Create the executor of an execution model.
+     *
+     * @param options The server options.
+     * @return The executor.
+     */
+    static NettyHandlerExecutor create(NettyServerOptions options) {
+        switch (options.executionModel) {
+            case INLINE:
+                // the threads of the pool are only started once a streamed body needs one
+                return new NettyHandlerExecutor(newPool(options.handlerThreads, options.handlerQueueSize), null, true);
+            case VIRTUAL_THREADS:
+                ExecutorService virtualThreads = newVirtualThreadExecutor();
+                if (virtualThreads != null) {
+                    return new NettyHandlerExecutor(virtualThreads, new Semaphore(options.handlerQueueSize), false);
+                }
+                log.warn("Virtual threads not available, falling back to a pool of {} handler threads", options.handlerThreads);
+                // falls through
+            default:
+                return new NettyHandlerExecutor(newPool(options.handlerThreads, options.handlerQueueSize), null, false);
+        }
+    }
+
+    /**
+     * @return True if requests are processed on the event loop, unless their body is streamed. Streamed response
+     * bodies are always written from the executor.
+     */
+    boolean isInline() {
+        return inline;
+    }
+
+    /**
+     * Run a task unless the executor is saturated.
+     *
+     * @param task The task.
+     * @return False if the task has been refused.
+     */
+    boolean execute(Runnable task) {
+        if (permits == null) {
+            try {
+                executor.execute(task);
+                return true;
+            } catch (RejectedExecutionException e) {
+                return false;
+            }
+        }
+
+        if (!permits.tryAcquire()) {
+            return false;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    task.run();
+                } finally {
+                    permits.release();
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            permits.release();
+            return false;
+        }
+    }
+
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    private static ExecutorService newPool(int threads, int queueSize) {
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "wave-handler-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueSize), threadFactory);
+    }
+
+    // the sources target JDK 11, so virtual threads are looked up at runtime
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+}
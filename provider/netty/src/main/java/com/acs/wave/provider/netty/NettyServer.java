@@ -5,6 +5,8 @@ import com.acs.wave.provider.common.WaveServer;
 public final class NettyServer extends WaveServer<NettyServerDefinition> {
 
 
+    private NettyEventLoops eventLoops;
+    private NettyHandlerExecutor handlerExecutor;
     private NettyServerChannel httpServer;
     private NettyServerChannel httpsServer;
 
@@ -14,13 +16,18 @@ public final class NettyServer extends WaveServer<NettyServerDefinition> {
 
     @Override
     protected void startServer() throws Exception {
+        eventLoops = NettyEventLoops.create(definition.options);
+        handlerExecutor = NettyHandlerExecutor.create(definition.options);
+
         if (definition.hasHTTP()) {
-            httpServer = new NettyServerChannel(definition.host, definition.httpPort, null, definition.httpRouter, definition.webSocketRouter);
+            httpServer = new NettyServerChannel(definition.host, definition.httpPort, null, definition.httpRouter, definition.webSocketRouter,
+                    definition.options, eventLoops, handlerExecutor);
             httpServer.start();
         }
 
         if (definition.hasHTTPS()) {
-            httpsServer = new NettyServerChannel(definition.host, definition.httpsPort, definition.sslContext, definition.httpRouter, definition.webSocketRouter);
+            httpsServer = new NettyServerChannel(definition.host, definition.httpsPort, definition.sslContext, definition.httpRouter, definition.webSocketRouter,
+                    definition.options, eventLoops, handlerExecutor);
             httpsServer.start();
         }
     }
@@ -33,5 +40,13 @@ public final class NettyServer extends WaveServer<NettyServerDefinition> {
         if (httpsServer != null) {
             httpsServer.stop();
         }
+        if (eventLoops != null) {
+            eventLoops.shutdown();
+            eventLoops = null;
+        }
+        if (handlerExecutor != null) {
+            handlerExecutor.shutdown();
+            handlerExecutor = null;
+        }
     }
 }
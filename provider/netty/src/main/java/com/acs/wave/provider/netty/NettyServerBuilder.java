@@ -2,19 +2,53 @@ package com.acs.wave.provider.netty;
 
 import com.acs.wave.provider.common.WaveServerBuilder;
 import com.acs.wave.router.WebSocketRouter;
+import com.acs.wave.utils.CheckUtils;
 import io.netty.handler.ssl.SslContext;
 import io.netty.handler.ssl.SslContextBuilder;
 import io.netty.handler.ssl.util.SelfSignedCertificate;
 
 public final class NettyServerBuilder extends WaveServerBuilder<NettyServer> {
 
+    private static final NettyTransport DEFAULT_TRANSPORT = NettyTransport.NIO;
+    private static final int DEFAULT_ACCEPTORS = 1;
+    private static final int DEFAULT_WORKER_THREADS = 0;
+    private static final int DEFAULT_BACKLOG = 1024;
+    private static final boolean DEFAULT_TCP_NO_DELAY = true;
+    private static final boolean DEFAULT_KEEP_ALIVE = false;
+    private static final int DEFAULT_WRITE_BUFFER_LOW_WATER_MARK = 32 * 1024;
+    private static final int DEFAULT_WRITE_BUFFER_HIGH_WATER_MARK = 64 * 1024;
+    private static final boolean DEFAULT_POOLED_ALLOCATOR = true;
+    private static final NettyExecutionModel DEFAULT_EXECUTION_MODEL = NettyExecutionModel.INLINE;
+    private static final int DEFAULT_HANDLER_THREADS = 2 * Runtime.getRuntime().availableProcessors();
+    private static final int DEFAULT_HANDLER_QUEUE_SIZE = 1024;
+    private static final boolean DEFAULT_COMPRESSION = false;
+
     private SslContext sslContext = getDefaultSSLContext();
 
     private WebSocketRouter webSocketRouter;
 
+    private NettyTransport transport = DEFAULT_TRANSPORT;
+    private int acceptors = DEFAULT_ACCEPTORS;
+    private int workerThreads = DEFAULT_WORKER_THREADS;
+    private int backlog = DEFAULT_BACKLOG;
+    private boolean tcpNoDelay = DEFAULT_TCP_NO_DELAY;
+    private boolean keepAlive = DEFAULT_KEEP_ALIVE;
+    private Integer receiveBufferSize;
+    private Integer sendBufferSize;
+    private int writeBufferLowWaterMark = DEFAULT_WRITE_BUFFER_LOW_WATER_MARK;
+    private int writeBufferHighWaterMark = DEFAULT_WRITE_BUFFER_HIGH_WATER_MARK;
+    private boolean pooledAllocator = DEFAULT_POOLED_ALLOCATOR;
+    private NettyExecutionModel executionModel = DEFAULT_EXECUTION_MODEL;
+    private int handlerThreads = DEFAULT_HANDLER_THREADS;
+    private int handlerQueueSize = DEFAULT_HANDLER_QUEUE_SIZE;
+    private boolean compression = DEFAULT_COMPRESSION;
+
     @Override
     public NettyServer buildInstance() {
-        NettyServerDefinition definition = new NettyServerDefinition(host, httpPort, httpsPort, sslContext, httpRouter, webSocketRouter);
+        NettyServerOptions options = new NettyServerOptions(transport, acceptors, workerThreads, backlog, tcpNoDelay, keepAlive,
+                receiveBufferSize, sendBufferSize, writeBufferLowWaterMark, writeBufferHighWaterMark, pooledAllocator,
+                executionModel, handlerThreads, handlerQueueSize, compression);
+        NettyServerDefinition definition = new NettyServerDefinition(host, httpPort, httpsPort, sslContext, httpRouter, webSocketRouter, options);
         return new NettyServer(definition);
     }
 
@@ -33,6 +67,221 @@ public final class NettyServerBuilder extends WaveServerBuilder<NettyServer> {
         return this;
     }
 
+    /**
+     * Select the transport. When it is not available on this platform the server falls back to NIO.
+     *
+     * @param transport The transport.
+     * @return The builder.
+     */
+    public NettyServerBuilder transport(NettyTransport transport) {
+        CheckUtils.checkNull("transport", transport);
+        this.transport = transport;
+        return this;
+    }
+
+    public NettyServerBuilder defaultTransport() {
+        this.transport = DEFAULT_TRANSPORT;
+        return this;
+    }
+
+    /**
+     * Set the number of listening sockets bound to each port with <code>SO_REUSEPORT</code>, each one accepting on
+     * its own thread. Only the epoll transport supports it, other transports use a single acceptor.
+     *
+     * @param acceptors The number of acceptors, 1 or more.
+     * @return The builder.
+     */
+    public NettyServerBuilder acceptors(int acceptors) {
+        checkPositive("acceptors", acceptors);
+        this.acceptors = acceptors;
+        return this;
+    }
+
+    public NettyServerBuilder defaultAcceptors() {
+        this.acceptors = DEFAULT_ACCEPTORS;
+        return this;
+    }
+
+    /**
+     * Set the number of I/O threads, shared by the HTTP and HTTPS ports.
+     *
+     * @param workerThreads The number of threads, 0 for twice the number of cores.
+     * @return The builder.
+     */
+    public NettyServerBuilder workerThreads(int workerThreads) {
+        checkNotNegative("workerThreads", workerThreads);
+        this.workerThreads = workerThreads;
+        return this;
+    }
+
+    public NettyServerBuilder defaultWorkerThreads() {
+        this.workerThreads = DEFAULT_WORKER_THREADS;
+        return this;
+    }
+
+    public NettyServerBuilder backlog(int backlog) {
+        checkPositive("backlog", backlog);
+        this.backlog = backlog;
+        return this;
+    }
+
+    public NettyServerBuilder defaultBacklog() {
+        this.backlog = DEFAULT_BACKLOG;
+        return this;
+    }
+
+    public NettyServerBuilder tcpNoDelay(boolean tcpNoDelay) {
+        this.tcpNoDelay = tcpNoDelay;
+        return this;
+    }
+
+    public NettyServerBuilder keepAlive(boolean keepAlive) {
+        this.keepAlive = keepAlive;
+        return this;
+    }
+
+    /**
+     * Set <code>SO_RCVBUF</code> of the accepted connections, null to keep the OS default.
+     *
+     * @param receiveBufferSize The buffer size in bytes.
+     * @return The builder.
+     */
+    public NettyServerBuilder receiveBufferSize(Integer receiveBufferSize) {
+        if (receiveBufferSize != null) {
+            checkPositive("receiveBufferSize", receiveBufferSize);
+        }
+        this.receiveBufferSize = receiveBufferSize;
+        return this;
+    }
+
+    /**
+     * Set <code>SO_SNDBUF</code> of the accepted connections, null to keep the OS default.
+     *
+     * @param sendBufferSize The buffer size in bytes.
+     * @return The builder.
+     */
+    public NettyServerBuilder sendBufferSize(Integer sendBufferSize) {
+        if (sendBufferSize != null) {
+            checkPositive("sendBufferSize", sendBufferSize);
+        }
+        this.sendBufferSize = sendBufferSize;
+        return this;
+    }
+
+    /**
+     * Set the outbound buffer limits of a connection: it stops being writable above the high mark and is writable
+     * again below the low mark.
+     *
+     * @param low  The low water mark in bytes.
+     * @param high The high water mark in bytes.
+     * @return The builder.
+     */
+    public NettyServerBuilder writeBufferWaterMark(int low, int high) {
+        checkNotNegative("low", low);
+        if (high < low) {
+            throw new IllegalArgumentException("high should be greater than or equal to low");
+        }
+        this.writeBufferLowWaterMark = low;
+        this.writeBufferHighWaterMark = high;
+        return this;
+    }
+
+    public NettyServerBuilder defaultWriteBufferWaterMark() {
+        this.writeBufferLowWaterMark = DEFAULT_WRITE_BUFFER_LOW_WATER_MARK;
+        this.writeBufferHighWaterMark = DEFAULT_WRITE_BUFFER_HIGH_WATER_MARK;
+        return this;
+    }
+
+    /**
+     * Select between the pooled buffer allocator (default) and the unpooled one.
+     *
+     * @param pooledAllocator True to use pooled buffers.
+     * @return The builder.
+     */
+    public NettyServerBuilder pooledAllocator(boolean pooledAllocator) {
+        this.pooledAllocator = pooledAllocator;
+        return this;
+    }
+
+    /**
+     * Select where filters and handlers run. Responses are always written from the event loop of the connection,
+     * in request order.
+     *
+     * @param executionModel The execution model.
+     * @return The builder.
+     */
+    public NettyServerBuilder executionModel(NettyExecutionModel executionModel) {
+        CheckUtils.checkNull("executionModel", executionModel);
+        this.executionModel = executionModel;
+        return this;
+    }
+
+    public NettyServerBuilder defaultExecutionModel() {
+        this.executionModel = DEFAULT_EXECUTION_MODEL;
+        return this;
+    }
+
+    /**
+     * Set the number of threads of the {@link NettyExecutionModel#POOL} execution model, or of the pool running the
+     * streamed request and response bodies of the {@link NettyExecutionModel#INLINE} one.
+     *
+     * @param handlerThreads The number of threads, 1 or more.
+     * @return The builder.
+     */
+    public NettyServerBuilder handlerThreads(int handlerThreads) {
+        checkPositive("handlerThreads", handlerThreads);
+        this.handlerThreads = handlerThreads;
+        return this;
+    }
+
+    public NettyServerBuilder defaultHandlerThreads() {
+        this.handlerThreads = DEFAULT_HANDLER_THREADS;
+        return this;
+    }
+
+    /**
+     * Set the number of requests waiting for a thread of the {@link NettyExecutionModel#POOL} and
+     * {@link NettyExecutionModel#INLINE} execution models, or the number of requests in flight of the
+     * {@link NettyExecutionModel#VIRTUAL_THREADS} one. Beyond it requests are answered with 503 Service Unavailable.
+     *
+     * @param handlerQueueSize The limit, 1 or more.
+     * @return The builder.
+     */
+    public NettyServerBuilder handlerQueueSize(int handlerQueueSize) {
+        checkPositive("handlerQueueSize", handlerQueueSize);
+        this.handlerQueueSize = handlerQueueSize;
+        return this;
+    }
+
+    public NettyServerBuilder defaultHandlerQueueSize() {
+        this.handlerQueueSize = DEFAULT_HANDLER_QUEUE_SIZE;
+        return this;
+    }
+
+    /**
+     * Compress the textual responses of handlers with gzip or deflate, according to the Accept-Encoding of the
+     * request. Static files are better compressed by an {@link com.acs.wave.router.HTTPCompressionFilter}, which
+     * caches their compressed variants; responses it encoded are not compressed again.
+     *
+     * @param compression True to compress responses.
+     * @return The builder.
+     */
+    public NettyServerBuilder compression(boolean compression) {
+        this.compression = compression;
+        return this;
+    }
+
+    private static void checkPositive(String name, int value) {
+        if (value < 1) {
+            throw new IllegalArgumentException(name + " should be 1 or more");
+        }
+    }
+
+    private static void checkNotNegative(String name, int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException(name + " should be 0 or more");
+        }
+    }
 
     private SslContext getDefaultSSLContext() {
         try {
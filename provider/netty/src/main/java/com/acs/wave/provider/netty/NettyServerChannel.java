@@ -3,65 +3,94 @@ package com.acs.wave.provider.netty;
 import com.acs.wave.router.HTTPRouter;
 import com.acs.wave.router.WebSocketRouter;
 import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.UnpooledByteBufAllocator;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelOption;
-import io.netty.channel.EventLoopGroup;
-import io.netty.channel.nio.NioEventLoopGroup;
-import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.WriteBufferWaterMark;
+import io.netty.channel.epoll.EpollChannelOption;
 import io.netty.handler.logging.LogLevel;
 import io.netty.handler.logging.LoggingHandler;
 import io.netty.handler.ssl.SslContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 final class NettyServerChannel {
 
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
     private final String host;
     private final int port;
     private final SslContext sslContext;
     private final HTTPRouter httpRouter;
     private final WebSocketRouter webSocketRouter;
+    private final NettyServerOptions options;
+    private final NettyEventLoops eventLoops;
+    private final NettyHandlerExecutor handlerExecutor;
 
     private final AtomicBoolean started = new AtomicBoolean(false);
 
-    private EventLoopGroup bossGroup;
-    private EventLoopGroup workerGroup;
-    private Channel channel;
+    private final List<Channel> channels = new ArrayList<>();
 
-    NettyServerChannel(String host, int port, SslContext sslContext, HTTPRouter httpRouter, WebSocketRouter webSocketRouter) {
+    NettyServerChannel(String host, int port, SslContext sslContext, HTTPRouter httpRouter, WebSocketRouter webSocketRouter,
+                       NettyServerOptions options, NettyEventLoops eventLoops, NettyHandlerExecutor handlerExecutor) {
         this.host = host;
         this.port = port;
         this.sslContext = sslContext;
         this.httpRouter = httpRouter;
         this.webSocketRouter = webSocketRouter;
+        this.options = options;
+        this.eventLoops = eventLoops;
+        this.handlerExecutor = handlerExecutor;
     }
 
     void start() throws Exception {
         if (started.compareAndSet(false, true)) {
-            bossGroup = new NioEventLoopGroup(1);
-            workerGroup = new NioEventLoopGroup();
+            ByteBufAllocator allocator = options.pooledAllocator ? PooledByteBufAllocator.DEFAULT : UnpooledByteBufAllocator.DEFAULT;
+
             ServerBootstrap b = new ServerBootstrap();
-            b.option(ChannelOption.SO_BACKLOG, 1024);
-            b.group(bossGroup, workerGroup)
-                    .channel(NioServerSocketChannel.class)
+            b.option(ChannelOption.SO_BACKLOG, options.backlog);
+            b.option(ChannelOption.ALLOCATOR, allocator);
+            if (eventLoops.acceptors > 1) {
+                b.option(EpollChannelOption.SO_REUSEPORT, true);
+            }
+
+            b.childOption(ChannelOption.ALLOCATOR, allocator);
+            b.childOption(ChannelOption.TCP_NODELAY, options.tcpNoDelay);
+            b.childOption(ChannelOption.SO_KEEPALIVE, options.keepAlive);
+            b.childOption(ChannelOption.WRITE_BUFFER_WATER_MARK, new WriteBufferWaterMark(options.writeBufferLowWaterMark, options.writeBufferHighWaterMark));
+            if (options.receiveBufferSize != null) {
+                b.childOption(ChannelOption.SO_RCVBUF, options.receiveBufferSize);
+            }
+            if (options.sendBufferSize != null) {
+                b.childOption(ChannelOption.SO_SNDBUF, options.sendBufferSize);
+            }
+
+            b.group(eventLoops.bossGroup, eventLoops.workerGroup)
+                    .channel(eventLoops.transport.serverChannelClass())
                     .handler(new LoggingHandler(LogLevel.INFO))
-                    .childHandler(new NettyServerChannelInitializer(httpRouter, webSocketRouter, sslContext));
+                    .childHandler(new NettyServerChannelInitializer(httpRouter, webSocketRouter, sslContext, handlerExecutor, options.compression));
 
-            channel = b.bind(host, port).sync().channel();
+            // every bind registers a new listening socket on the next boss event loop, and with SO_REUSEPORT the
+            // kernel spreads incoming connections between them
+            for (int i = 0; i < eventLoops.acceptors; i++) {
+                channels.add(b.bind(host, port).sync().channel());
+            }
+            log.info("Listening on {}:{} with {} transport and {} acceptor(s)", host, port, eventLoops.transport, eventLoops.acceptors);
         }
     }
 
     void stop() throws Exception {
-        if (started.compareAndSet(false, true)) {
-            channel.close().sync();
-            close(bossGroup);
-            close(workerGroup);
-        }
-    }
-
-    private void close(EventLoopGroup eventLoopGroup) {
-        if (eventLoopGroup != null) {
-            eventLoopGroup.shutdownGracefully();
+        if (started.compareAndSet(true, false)) {
+            for (Channel channel : channels) {
+                channel.close().sync();
+            }
+            channels.clear();
         }
     }
 }
@@ -3,18 +3,30 @@ package com.acs.wave.provider.netty;
 import com.acs.wave.router.*;
 import com.acs.wave.router.constants.ProtocolVersion;
 import com.acs.wave.router.constants.RequestMethod;
-import io.netty.buffer.ByteBuf;
-import io.netty.buffer.ByteBufUtil;
+import com.acs.wave.router.constants.ResponseStatus;
 import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.DefaultFileRegion;
 import io.netty.handler.codec.http.*;
+import io.netty.handler.ssl.SslHandler;
+import io.netty.handler.stream.ChunkedNioFile;
+import io.netty.util.ReferenceCountUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.net.SocketAddress;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 import static io.netty.handler.codec.http.HttpHeaderNames.CONNECTION;
 import static io.netty.handler.codec.http.HttpHeaderNames.CONTENT_LENGTH;
@@ -26,9 +38,26 @@ class NettyServerChannelHandler extends ChannelInboundHandlerAdapter {
     private final Logger log = LoggerFactory.getLogger(getClass());
 
     private final HTTPRouter httpRouter;
+    private final NettyHandlerExecutor handlerExecutor;
+    private final Set<String> webSocketPaths;
 
-    NettyServerChannelHandler(HTTPRouter httpRouter) {
+    // requests of this connection waiting to be processed, only accessed from its event loop
+    private final Queue<PendingRequest> pendingRequests = new ArrayDeque<>();
+    private boolean processing;
+
+    // request whose body is being received
+    private HttpRequest inboundHead;
+    private boolean inboundKeepAlive;
+    private NettyBodyAggregator inboundBody;
+    private NettyBodyPublisher inboundPublisher;
+    private PendingRequest inboundStreamed;
+    private boolean inboundWebSocket;
+    private boolean discarding;
+
+    NettyServerChannelHandler(HTTPRouter httpRouter, NettyHandlerExecutor handlerExecutor, Set<String> webSocketPaths) {
         this.httpRouter = httpRouter;
+        this.handlerExecutor = handlerExecutor;
+        this.webSocketPaths = webSocketPaths;
     }
 
     @Override
@@ -38,32 +67,371 @@ class NettyServerChannelHandler extends ChannelInboundHandlerAdapter {
 
     @Override
     public void channelRead(ChannelHandlerContext ctx, Object msg) {
-        if (msg instanceof HttpRequest) {
-            HttpRequest req = (HttpRequest) msg;
+        if (!(msg instanceof HttpObject)) {
+            // websocket frames, once a connection has been upgraded
+            ctx.fireChannelRead(msg);
+            return;
+        }
+
+        try {
+            if (msg instanceof HttpRequest) {
+                readHead(ctx, (HttpRequest) msg);
+            }
+            if (msg instanceof HttpContent) {
+                readContent(ctx, (HttpContent) msg);
+            }
+            processPendingRequests(ctx);
+        } finally {
+            ReferenceCountUtil.release(msg);
+        }
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        if (inboundPublisher != null) {
+            inboundPublisher.fail(new ClosedChannelException());
+            inboundPublisher = null;
+        }
+        inboundBody = null;
+        super.channelInactive(ctx);
+    }
+
+    private void readHead(ChannelHandlerContext ctx, HttpRequest req) {
+        inboundHead = req;
+        inboundKeepAlive = HttpUtil.isKeepAlive(req);
+
+        if (req.decoderResult().isFailure()) {
+            reject(ctx, req, ResponseStatus.BAD_REQUEST);
+            return;
+        }
+
+        if (isWebSocketUpgrade(req)) {
+            inboundWebSocket = true;
+            return;
+        }
+
+        HTTPBodyPolicy bodyPolicy = httpRouter.bodyPolicy(getWaveRequestMethod(req.method()), req.uri());
+        long contentLength = HttpUtil.getContentLength(req, -1L);
+
+        // refused before any byte of the body is read
+        if (bodyPolicy.exceeds(contentLength)) {
+            reject(ctx, req, ResponseStatus.REQUEST_ENTITY_TOO_LARGE);
+            return;
+        }
+
+        if (HttpUtil.is100ContinueExpected(req)) {
+            ctx.writeAndFlush(new DefaultFullHttpResponse(HTTP_1_1, CONTINUE));
+        }
+
+        if (bodyPolicy.streamed) {
+            inboundPublisher = new NettyBodyPublisher(ctx, bodyPolicy.maxSize, () -> updateAutoRead(ctx));
+            inboundStreamed = new PendingRequest(getWaveRequest(req, ctx.channel().remoteAddress(), inboundPublisher), inboundKeepAlive, inboundPublisher, null);
+            pendingRequests.add(inboundStreamed);
+        } else {
+            inboundBody = new NettyBodyAggregator(bodyPolicy.maxSize, contentLength);
+        }
+    }
+
+    private void readContent(ChannelHandlerContext ctx, HttpContent content) {
+        boolean last = (content instanceof LastHttpContent);
 
-            if (HttpUtil.isKeepAlive(req)) {
-                ctx.write(new DefaultFullHttpResponse(HTTP_1_1, CONTINUE));
+        if (discarding) {
+            discarding = !last;
+        } else if (inboundWebSocket) {
+            if (last) {
+                inboundWebSocket = false;
+                ctx.fireChannelRead(new DefaultFullHttpRequest(inboundHead.protocolVersion(), inboundHead.method(), inboundHead.uri(),
+                        Unpooled.EMPTY_BUFFER, inboundHead.headers(), EmptyHttpHeaders.INSTANCE));
+            }
+        } else if (inboundPublisher != null) {
+            if (!inboundPublisher.offer(content)) {
+                // the handler sees the failure through the body, the connection is closed after its response
+                inboundStreamed.keepAlive = false;
+                discarding = !last;
+                inboundPublisher = null;
+            } else if (last) {
+                inboundPublisher = null;
+            }
+        } else if (inboundBody != null) {
+            if (!inboundBody.append(content.content())) {
+                inboundBody = null;
+                reject(ctx, inboundHead, ResponseStatus.REQUEST_ENTITY_TOO_LARGE);
+                discarding = !last;
+            } else if (last) {
+                HTTPRequest waveRequest = getWaveRequest(inboundHead, ctx.channel().remoteAddress(), inboundBody.toArray());
+                pendingRequests.add(new PendingRequest(waveRequest, inboundKeepAlive, null, null));
+                inboundBody = null;
             }
-            boolean keepAlive = HttpUtil.isKeepAlive(req);
+        }
+    }
+
+    /**
+     * Answer a request with an error without reading its body. The connection is closed after the response since
+     * the rest of the body may still be on its way.
+     */
+    private void reject(ChannelHandlerContext ctx, HttpRequest req, ResponseStatus status) {
+        HTTPRequest waveRequest = getWaveRequest(req, ctx.channel().remoteAddress(), new byte[0]);
+        pendingRequests.add(new PendingRequest(waveRequest, false, null, status));
+        discarding = !(req instanceof LastHttpContent);
+    }
+
+    private boolean isWebSocketUpgrade(HttpRequest req) {
+        return webSocketPaths.contains(req.uri()) && HttpHeaderValues.WEBSOCKET.contentEqualsIgnoreCase(req.headers().get(HttpHeaderNames.UPGRADE, ""));
+    }
+
+    /**
+     * Process the pending requests one at a time, so that responses keep the order of the requests of the connection.
+     */
+    private void processPendingRequests(ChannelHandlerContext ctx) {
+        while (!processing && !pendingRequests.isEmpty()) {
+            PendingRequest pendingRequest = pendingRequests.poll();
+
+            if (pendingRequest.rejection != null) {
+                writeResponse(ctx, httpRouter.processError(pendingRequest.request, pendingRequest.rejection), pendingRequest.keepAlive);
+                continue;
+            }
+
+            processing = true;
+
+            // a handler reading a streamed body blocks until the event loop delivers it, so it never runs there
+            if (handlerExecutor.isInline() && (pendingRequest.bodyPublisher == null)) {
+                process(ctx, pendingRequest);
+            } else if (!handlerExecutor.execute(() -> process(ctx, pendingRequest))) {
+                refuse(ctx, pendingRequest);
+            }
+        }
+
+        updateAutoRead(ctx);
+    }
+
+    /**
+     * Answer a request with 503 Service Unavailable when the handler executor is saturated.
+     */
+    private void refuse(ChannelHandlerContext ctx, PendingRequest pendingRequest) {
+        processing = false;
+        log.warn("Handler executor saturated, refusing {} {}", pendingRequest.request.method, pendingRequest.request.uri());
+        writeResponse(ctx, httpRouter.processError(pendingRequest.request, ResponseStatus.SERVICE_UNAVAILABLE), pendingRequest.keepAlive);
+        // flushed right away, the callers may have flushed already
+        ctx.flush();
+        pendingRequest.discardBody();
+    }
+
+    /**
+     * Read from the socket unless a request is being processed on the handler executor or waits for an asynchronous
+     * handler. A streamed body keeps being read while its subscriber asks for more, and a refused body while it is
+     * being discarded.
+     */
+    private void updateAutoRead(ChannelHandlerContext ctx) {
+        boolean read = !processing || discarding || ((inboundPublisher != null) && inboundPublisher.wantsMore());
+        ctx.channel().config().setAutoRead(read);
+    }
+
+    private void process(ChannelHandlerContext ctx, PendingRequest pendingRequest) {
+        CompletableFuture<HTTPResponse> waveResponse;
+        try {
+            waveResponse = httpRouter.processAsync(pendingRequest.request).toCompletableFuture();
+        } catch (Throwable e) {
+            waveResponse = CompletableFuture.failedFuture(e);
+        }
+
+        if (waveResponse.isDone() && ctx.executor().inEventLoop()) {
+            // flushed once the read, or the completion that resumed processing, is over
+            complete(ctx, pendingRequest, waveResponse);
+        } else {
+            CompletableFuture<HTTPResponse> response = waveResponse;
+            response.whenComplete((result, e) -> ctx.executor().execute(() -> {
+                complete(ctx, pendingRequest, response);
+                processPendingRequests(ctx);
+                ctx.flush();
+            }));
+        }
+    }
+
+    private void complete(ChannelHandlerContext ctx, PendingRequest pendingRequest, CompletableFuture<HTTPResponse> waveResponse) {
+        HTTPResponse response;
+        try {
+            response = waveResponse.join();
+        } catch (CompletionException e) {
+            processing = false;
+            pendingRequest.discardBody();
+            exceptionCaught(ctx, (e.getCause() != null) ? e.getCause() : e);
+            return;
+        }
+
+        if (response.bodyFile() != null) {
+            processing = false;
+            try {
+                writeFileResponse(ctx, pendingRequest, response);
+            } finally {
+                pendingRequest.discardBody();
+            }
+            return;
+        }
+
+        if (response.isBodyStreamed() && (response.bodyBuffer() == null)) {
+            // still processing until the whole body is written
+            writeStreamedResponse(ctx, pendingRequest, response);
+            return;
+        }
+
+        processing = false;
+        try {
+            writeResponse(ctx, response, pendingRequest.keepAlive);
+        } finally {
+            pendingRequest.discardBody();
+        }
+    }
 
-            HTTPRequest waveRequest = getWaveRequest(req, ctx.channel().remoteAddress());
-            HTTPResponse wareResponse = httpRouter.process(waveRequest);
-            HttpResponse response = getNettyResponse(wareResponse);
+    /**
+     * Send a streamed response from a handler thread, even with the inline execution model: its writer waits for a
+     * slow peer instead of buffering the body, which it could not do on the event loop. The response is refused with
+     * 503 Service Unavailable when the handler executor is saturated.
+     */
+    private void writeStreamedResponse(ChannelHandlerContext ctx, PendingRequest pendingRequest, HTTPResponse waveResponse) {
+        HttpResponse response = getNettyResponseHead(waveResponse);
+        boolean keepAlive = pendingRequest.keepAlive;
 
-            if (!keepAlive) {
-                ctx.write(response).addListener(ChannelFutureListener.CLOSE);
+        if (!HttpUtil.isContentLengthSet(response)) {
+            if (response.protocolVersion().equals(HTTP_1_1)) {
+                HttpUtil.setTransferEncodingChunked(response, true);
             } else {
-                response.headers().set(CONNECTION, HttpHeaderValues.KEEP_ALIVE);
-                ctx.write(response);
+                // without chunked encoding, the end of the body is the end of the connection
+                keepAlive = false;
             }
         }
+
+        if (keepAlive) {
+            response.headers().set(CONNECTION, HttpHeaderValues.KEEP_ALIVE);
+        }
+
+        boolean streamKeepAlive = keepAlive;
+        Runnable bodyWriter = () -> {
+            // written from the same thread as the chunks, so that it is sent before them
+            ctx.writeAndFlush(response);
+
+            NettyBodyOutputStream output = new NettyBodyOutputStream(ctx);
+            Throwable failure = null;
+            try {
+                waveResponse.bodyStream.write(output);
+                output.flush();
+            } catch (Throwable e) {
+                output.release();
+                failure = e;
+            }
+
+            Throwable streamFailure = failure;
+            ctx.executor().execute(() -> completeStreamed(ctx, pendingRequest, streamKeepAlive, streamFailure));
+        };
+
+        if (!handlerExecutor.execute(bodyWriter)) {
+            refuse(ctx, pendingRequest);
+        }
+    }
+
+    /**
+     * Send a file body without copying it to the heap: with <code>sendfile</code> over plaintext connections, as
+     * chunks read by the event loop when the connection is writable over TLS or when the response may be compressed.
+     */
+    private void writeFileResponse(ChannelHandlerContext ctx, PendingRequest pendingRequest, HTTPResponse waveResponse) {
+        HTTPBodyFile bodyFile = waveResponse.bodyFile();
+        FileChannel file;
+        try {
+            file = bodyFile.open();
+        } catch (IOException e) {
+            log.warn("Unable to open {}", bodyFile.path, e);
+            writeResponse(ctx, httpRouter.processError(pendingRequest.request, ResponseStatus.NOT_FOUND), pendingRequest.keepAlive);
+            return;
+        }
+
+        HttpResponse response = getNettyResponseHead(waveResponse);
+        HttpUtil.setContentLength(response, bodyFile.length);
+
+        if (pendingRequest.keepAlive) {
+            response.headers().set(CONNECTION, HttpHeaderValues.KEEP_ALIVE);
+        }
+
+        ctx.write(response);
+
+        // a file region goes past the compressor untouched, it is only used when the compressor lets the body through
+        boolean compressed = (ctx.pipeline().get(HttpContentCompressor.class) != null)
+                && pendingRequest.request.headers.containsKey("Accept-Encoding")
+                && !NettyContentCompressor.passesThrough(response);
+
+        ChannelFuture lastContent;
+        if ((ctx.pipeline().get(SslHandler.class) == null) && !compressed) {
+            ctx.write(new DefaultFileRegion(file, bodyFile.position, bodyFile.length));
+            lastContent = ctx.write(LastHttpContent.EMPTY_LAST_CONTENT);
+        } else {
+            try {
+                lastContent = ctx.write(new HttpChunkedInput(new ChunkedNioFile(file, bodyFile.position, bodyFile.length, NettyBodyOutputStream.CHUNK_SIZE)));
+            } catch (IOException e) {
+                closeQuietly(file);
+                exceptionCaught(ctx, e);
+                return;
+            }
+        }
+
+        if (!pendingRequest.keepAlive) {
+            lastContent.addListener(ChannelFutureListener.CLOSE);
+        }
+    }
+
+    private void closeQuietly(FileChannel file) {
+        try {
+            file.close();
+        } catch (IOException e) {
+            log.debug("Unable to close file", e);
+        }
+    }
+
+    private void completeStreamed(ChannelHandlerContext ctx, PendingRequest pendingRequest, boolean keepAlive, Throwable failure) {
+        processing = false;
+        pendingRequest.discardBody();
+
+        if (failure != null) {
+            // the status is already sent, closing the connection tells the peer the body is incomplete
+            exceptionCaught(ctx, failure);
+            return;
+        }
+
+        ChannelFuture lastContent = ctx.writeAndFlush(LastHttpContent.EMPTY_LAST_CONTENT);
+
+        if (!keepAlive) {
+            lastContent.addListener(ChannelFutureListener.CLOSE);
+        }
+
+        processPendingRequests(ctx);
+        ctx.flush();
+    }
+
+    private void writeResponse(ChannelHandlerContext ctx, HTTPResponse waveResponse, boolean keepAlive) {
+        HttpResponse response = getNettyResponse(waveResponse);
+
+        if (!keepAlive) {
+            ctx.write(response).addListener(ChannelFutureListener.CLOSE);
+        } else {
+            response.headers().set(CONNECTION, HttpHeaderValues.KEEP_ALIVE);
+            ctx.write(response);
+        }
+    }
+
+    private HttpResponse getNettyResponseHead(HTTPResponse waveResponse) {
+        HttpResponse response = new DefaultHttpResponse(
+                getNettyHttpVersion(waveResponse.protocolVersion),
+                HttpResponseStatus.valueOf(waveResponse.responseStatus.code)
+        );
+
+        waveResponse.headers.stream().forEach(header -> response.headers().set(header.key, header.value));
+        return response;
     }
 
     private HttpResponse getNettyResponse(HTTPResponse waveResponse) {
+        // buffers, direct or mapped ones included, are wrapped and not copied
+        HTTPBodyBuffer bodyBuffer = waveResponse.bodyBuffer();
         FullHttpResponse response = new DefaultFullHttpResponse(
                 getNettyHttpVersion(waveResponse.protocolVersion),
                 HttpResponseStatus.valueOf(waveResponse.responseStatus.code),
-                Unpooled.wrappedBuffer(waveResponse.body)
+                (bodyBuffer != null) ? Unpooled.wrappedBuffer(bodyBuffer.buffer()) : Unpooled.wrappedBuffer(waveResponse.body)
         );
 
         waveResponse.headers.stream().forEach(header -> response.headers().set(header.key, header.value));
@@ -72,36 +440,30 @@ class NettyServerChannelHandler extends ChannelInboundHandlerAdapter {
         return response;
     }
 
-
-    private HTTPRequest getWaveRequest(HttpRequest request, SocketAddress socketAddress) {
+    private HTTPRequest getWaveRequest(HttpRequest request, SocketAddress socketAddress, byte[] body) {
         return new HTTPRequest(
                 getWaveRequestMethod(request.method()),
                 request.uri(),
                 getWaveHTTPVersion(request.protocolVersion()),
                 getHeaders(request),
                 ((InetSocketAddress) socketAddress).getHostName(),
-                getBody(request)
+                body
         );
     }
 
-    private byte[] getBody(HttpRequest request) {
-        byte[] body = new byte[0];
-
-        if (request instanceof HttpContent) {
-            HttpContent httpContent = (HttpContent) request;
-            ByteBuf content = httpContent.content();
-            if (content.isReadable()) {
-                body = ByteBufUtil.getBytes(content);
-            }
-        }
-
-        return body;
+    private HTTPRequest getWaveRequest(HttpRequest request, SocketAddress socketAddress, NettyBodyPublisher bodyPublisher) {
+        return HTTPRequest.ofStreamedBody(
+                getWaveRequestMethod(request.method()),
+                request.uri(),
+                getWaveHTTPVersion(request.protocolVersion()),
+                getHeaders(request),
+                ((InetSocketAddress) socketAddress).getHostName(),
+                bodyPublisher
+        );
     }
 
     private HTTPHeaders getHeaders(HttpRequest request) {
-        HTTPHeaders result = new HTTPHeaders();
-        request.headers().forEach(header -> result.add(header.getKey(), header.getValue()));
-        return result;
+        return new NettyHTTPHeaders(request.headers());
     }
 
     private HttpVersion getNettyHttpVersion(ProtocolVersion protocolVersion) {
@@ -121,4 +483,30 @@ class NettyServerChannelHandler extends ChannelInboundHandlerAdapter {
         log.error("Error during request", cause);
         ctx.close();
     }
+
+    private static final class PendingRequest {
+        final HTTPRequest request;
+        final NettyBodyPublisher bodyPublisher;
+        final ResponseStatus rejection;
+        boolean keepAlive;
+
+        /**
+         * @param request       The request.
+         * @param keepAlive     True to keep the connection open after the response.
+         * @param bodyPublisher The body of the request if it is streamed, null otherwise.
+         * @param rejection     The error status answered without processing the request, null to process it.
+         */
+        PendingRequest(HTTPRequest request, boolean keepAlive, NettyBodyPublisher bodyPublisher, ResponseStatus rejection) {
+            this.request = request;
+            this.keepAlive = keepAlive;
+            this.bodyPublisher = bodyPublisher;
+            this.rejection = rejection;
+        }
+
+        void discardBody() {
+            if ((bodyPublisher != null) && !bodyPublisher.isComplete()) {
+                bodyPublisher.discard();
+            }
+        }
+    }
 }
\ No newline at end of file
@@ -6,20 +6,34 @@ import com.acs.wave.router.WebSocketRouter;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelPipeline;
 import io.netty.channel.socket.SocketChannel;
-import io.netty.handler.codec.http.HttpObjectAggregator;
 import io.netty.handler.codec.http.HttpServerCodec;
 import io.netty.handler.ssl.SslContext;
+import io.netty.handler.stream.ChunkedWriteHandler;
+
+import java.util.HashSet;
+import java.util.Set;
 
 class NettyServerChannelInitializer extends ChannelInitializer<SocketChannel> {
 
     private final HTTPRouter httpRouter;
     private final WebSocketRouter webSocketRouter;
     private final SslContext sslCtx;
+    private final NettyHandlerExecutor handlerExecutor;
+    private final boolean compression;
+    private final Set<String> webSocketPaths = new HashSet<>();
 
-    NettyServerChannelInitializer(HTTPRouter httpRouter, WebSocketRouter webSocketRouter, SslContext sslCtx) {
+    NettyServerChannelInitializer(HTTPRouter httpRouter, WebSocketRouter webSocketRouter, SslContext sslCtx, NettyHandlerExecutor handlerExecutor, boolean compression) {
         this.httpRouter = httpRouter;
         this.webSocketRouter = webSocketRouter;
         this.sslCtx = sslCtx;
+        this.handlerExecutor = handlerExecutor;
+        this.compression = compression;
+
+        if (webSocketRouter != null) {
+            for (WebSocketRoute route : webSocketRouter.routes()) {
+                webSocketPaths.add(route.uri);
+            }
+        }
     }
 
     @Override
@@ -30,14 +44,24 @@ class NettyServerChannelInitializer extends ChannelInitializer<SocketChannel> {
             p.addLast(sslCtx.newHandler(ch.alloc()));
         }
         p.addLast(new HttpServerCodec());
-        p.addLast(new HttpObjectAggregator(64 * 1024 * 1024));
+
+        if (compression) {
+            p.addLast(new NettyContentCompressor());
+        }
+
+        if ((sslCtx != null) || compression) {
+            // files are sent as chunks over TLS or when compressed, they cannot go straight from the file to the socket
+            p.addLast(new ChunkedWriteHandler());
+        }
+
+        // request bodies are aggregated or streamed by the channel handler according to the route, websocket
+        // handshakes and frames are handed over to the websocket handlers behind it
+        p.addLast(new NettyServerChannelHandler(httpRouter, handlerExecutor, webSocketPaths));
 
         if (webSocketRouter != null) {
             for (WebSocketRoute route : webSocketRouter.routes()) {
                 p.addLast(new NettyWebSocketFrameHandler(webSocketRouter, route.uri, route.subprotocol));
             }
         }
-
-        p.addLast(new NettyServerChannelHandler(httpRouter));
     }
 }
\ No newline at end of file
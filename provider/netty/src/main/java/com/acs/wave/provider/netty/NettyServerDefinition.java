@@ -8,9 +8,12 @@ import io.netty.handler.ssl.SslContext;
 class NettyServerDefinition extends WaveServerDefinition<SslContext> {
 
     public final WebSocketRouter webSocketRouter;
+    public final NettyServerOptions options;
 
-    NettyServerDefinition(String host, Integer httpPort, Integer httpsPort, SslContext sslContext, HTTPRouter httpRouter, WebSocketRouter webSocketRouter) {
+    NettyServerDefinition(String host, Integer httpPort, Integer httpsPort, SslContext sslContext, HTTPRouter httpRouter, WebSocketRouter webSocketRouter,
+                          NettyServerOptions options) {
         super(host, httpPort, httpsPort, sslContext, httpRouter);
         this.webSocketRouter = webSocketRouter;
+        this.options = options;
     }
 }
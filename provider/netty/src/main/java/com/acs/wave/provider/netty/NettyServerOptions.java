@@ -0,0 +1,44 @@
+package com.acs.wave.provider.netty;
+
+/**
+ * Event loop, socket and handler execution options of the Netty channels, shared by the HTTP and HTTPS ports.
+ */
+final class NettyServerOptions {
+
+    final NettyTransport transport;
+    final int acceptors;
+    final int workerThreads;
+    final int backlog;
+    final boolean tcpNoDelay;
+    final boolean keepAlive;
+    final Integer receiveBufferSize;
+    final Integer sendBufferSize;
+    final int writeBufferLowWaterMark;
+    final int writeBufferHighWaterMark;
+    final boolean pooledAllocator;
+    final NettyExecutionModel executionModel;
+    final int handlerThreads;
+    final int handlerQueueSize;
+    final boolean compression;
+
+    NettyServerOptions(NettyTransport transport, int acceptors, int workerThreads, int backlog, boolean tcpNoDelay,
+                       boolean keepAlive, Integer receiveBufferSize, Integer sendBufferSize,
+                       int writeBufferLowWaterMark, int writeBufferHighWaterMark, boolean pooledAllocator,
+                       NettyExecutionModel executionModel, int handlerThreads, int handlerQueueSize, boolean compression) {
+        this.transport = transport;
+        this.acceptors = acceptors;
+        this.workerThreads = workerThreads;
+        this.backlog = backlog;
+        this.tcpNoDelay = tcpNoDelay;
+        this.keepAlive = keepAlive;
+        this.receiveBufferSize = receiveBufferSize;
+        this.sendBufferSize = sendBufferSize;
+        this.writeBufferLowWaterMark = writeBufferLowWaterMark;
+        this.writeBufferHighWaterMark = writeBufferHighWaterMark;
+        this.pooledAllocator = pooledAllocator;
+        this.executionModel = executionModel;
+        this.handlerThreads = handlerThreads;
+        this.handlerQueueSize = handlerQueueSize;
+        this.compression = compression;
+    }
+}
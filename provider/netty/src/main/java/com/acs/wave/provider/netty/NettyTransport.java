@@ -0,0 +1,106 @@
+package com.acs.wave.provider.netty;
+
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.ServerChannel;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Transport used by the Netty channels.
+ */
+public enum NettyTransport {
+    /**
+     * Java NIO, available everywhere.
+     */
+    NIO {
+        @Override
+        EventLoopGroup newEventLoopGroup(int threads) {
+            return new NioEventLoopGroup(threads);
+        }
+
+        @Override
+        Class<? extends ServerChannel> serverChannelClass() {
+            return NioServerSocketChannel.class;
+        }
+    },
+    /**
+     * Linux native epoll, with lower syscall overhead and <code>SO_REUSEPORT</code> support.
+     */
+    EPOLL {
+        @Override
+        EventLoopGroup newEventLoopGroup(int threads) {
+            return new EpollEventLoopGroup(threads);
+        }
+
+        @Override
+        Class<? extends ServerChannel> serverChannelClass() {
+            return EpollServerSocketChannel.class;
+        }
+
+        @Override
+        boolean isAvailable() {
+            return Epoll.isAvailable();
+        }
+
+        @Override
+        boolean supportsReusePort() {
+            return true;
+        }
+    },
+    /**
+     * The best transport available on this platform: epoll, otherwise NIO.
+     */
+    AUTO {
+        @Override
+        EventLoopGroup newEventLoopGroup(int threads) {
+            return resolve().newEventLoopGroup(threads);
+        }
+
+        @Override
+        Class<? extends ServerChannel> serverChannelClass() {
+            return resolve().serverChannelClass();
+        }
+    };
+
+    private static final Logger log = LoggerFactory.getLogger(NettyTransport.class);
+
+    /**
+     * @param threads The number of threads, 0 for the Netty default (twice the number of cores).
+     */
+    abstract EventLoopGroup newEventLoopGroup(int threads);
+
+    abstract Class<? extends ServerChannel> serverChannelClass();
+
+    boolean isAvailable() {
+        return true;
+    }
+
+    boolean supportsReusePort() {
+        return false;
+    }
+
+    /**
+     * Get the transport to be actually used, falling back to NIO when the selected one is not available.
+     *
+     * @return The transport to be used.
+     */
+    NettyTransport resolve() {
+        if (this == AUTO) {
+            return EPOLL.isAvailable() ? EPOLL : NIO;
+        } else if (!isAvailable()) {
+            log.warn("Transport {} not available, falling back to {}", this, NIO, unavailabilityCause());
+            return NIO;
+        } else {
+            return this;
+        }
+    }
+
+    private Throwable unavailabilityCause() {
+        return (this == EPOLL) ? Epoll.unavailabilityCause() : null;
+    }
+}
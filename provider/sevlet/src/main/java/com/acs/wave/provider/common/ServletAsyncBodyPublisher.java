@@ -0,0 +1,140 @@
+package com.acs.wave.provider.common;
+
+import com.acs.wave.router.exception.BodyTooLargeException;
+
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.Flow;
+
+/**
+ * Streamed request body read with a servlet 3.1 {@link ReadListener}: chunks are read only while the container has
+ * data ready, so a slow client does not hold a thread. The request must be in asynchronous mode before subscribing.
+ * <p>
+ * Reading stops when the subscriber has no demand, and is resumed by its next request. All the state is guarded by
+ * the publisher, the container and the subscriber may call it from different threads.
+ */
+final class ServletAsyncBodyPublisher implements Flow.Publisher<ByteBuffer>, ReadListener {
+
+    private final ServletInputStream input;
+    private final long maxSize;
+    private final byte[] buffer = new byte[ServletBodyPublisher.CHUNK_SIZE];
+
+    private Flow.Subscriber<? super ByteBuffer> subscriber;
+    private long demand;
+    private long received;
+    private boolean listening;
+    private boolean draining;
+    private boolean done;
+
+    ServletAsyncBodyPublisher(ServletInputStream input, long maxSize) {
+        this.input = input;
+        this.maxSize = maxSize;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super ByteBuffer> subscriber) {
+        synchronized (this) {
+            if (this.subscriber != null) {
+                subscriber.onSubscribe(ServletBodyPublisher.REFUSED);
+                subscriber.onError(new IllegalStateException("A streamed request body can be subscribed only once"));
+                return;
+            }
+            this.subscriber = subscriber;
+            subscriber.onSubscribe(new Subscription());
+        }
+
+        // the input is not read before the listener is set, the container may call it right away from another thread
+        input.setReadListener(this);
+        onDataAvailable();
+    }
+
+    @Override
+    public synchronized void onDataAvailable() {
+        listening = true;
+        drain();
+    }
+
+    @Override
+    public synchronized void onAllDataRead() {
+        complete();
+    }
+
+    @Override
+    public synchronized void onError(Throwable t) {
+        fail(t);
+    }
+
+    private void drain() {
+        if (!listening || draining || done) {
+            return;
+        }
+
+        draining = true;
+        try {
+            // isReady returning false makes the container call onDataAvailable when more data arrives
+            while ((demand > 0) && !done && input.isReady()) {
+                int read = input.read(buffer);
+
+                if (read < 0) {
+                    complete();
+                    return;
+                }
+
+                received += read;
+                if (received > maxSize) {
+                    fail(new BodyTooLargeException(maxSize));
+                    return;
+                }
+
+                demand--;
+                subscriber.onNext(ByteBuffer.wrap(Arrays.copyOf(buffer, read)));
+            }
+
+            if (!done && input.isFinished()) {
+                complete();
+            }
+        } catch (IOException e) {
+            fail(e);
+        } finally {
+            draining = false;
+        }
+    }
+
+    private void complete() {
+        if (!done) {
+            done = true;
+            subscriber.onComplete();
+        }
+    }
+
+    private void fail(Throwable cause) {
+        if (!done) {
+            done = true;
+            subscriber.onError(cause);
+        }
+    }
+
+    private final class Subscription implements Flow.Subscription {
+        @Override
+        public void request(long n) {
+            synchronized (ServletAsyncBodyPublisher.this) {
+                if (n <= 0) {
+                    fail(new IllegalArgumentException("Requested " + n + " items"));
+                    return;
+                }
+                demand = (Long.MAX_VALUE - demand < n) ? Long.MAX_VALUE : demand + n;
+                drain();
+            }
+        }
+
+        @Override
+        public void cancel() {
+            synchronized (ServletAsyncBodyPublisher.this) {
+                done = true;
+            }
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.acs.wave.provider.common;
+
+import com.acs.wave.router.HTTPBodyFile;
+import com.acs.wave.router.HTTPResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Body of a response written with a servlet 3.1 {@link WriteListener}: a chunk is written only while the container
+ * can take it without blocking, so a slow client does not hold a thread for the whole transfer. The asynchronous
+ * context is completed once the body is written.
+ * <p>
+ * Only bodies whose content is known up front can be written this way: in memory bodies and files.
+ */
+final class ServletAsyncResponseWriter implements WriteListener {
+
+    static final int CHUNK_SIZE = 32 * 1024;
+
+    private static final Logger log = LoggerFactory.getLogger(ServletAsyncResponseWriter.class);
+
+    private final AsyncContext context;
+    private final ServletOutputStream output;
+    private final ByteBuffer buffer;
+    private final HTTPBodyFile file;
+    private final byte[] chunk = new byte[CHUNK_SIZE];
+
+    private FileChannel channel;
+    private long written;
+    private boolean finished;
+
+    private ServletAsyncResponseWriter(AsyncContext context, ServletOutputStream output, ByteBuffer buffer, HTTPBodyFile file) {
+        this.context = context;
+        this.output = output;
+        this.buffer = buffer;
+        this.file = file;
+    }
+
+    /**
+     * @return True if the body of the response can be written asynchronously, and is large enough to be worth it.
+     */
+    static boolean accepts(HTTPResponse response) {
+        if (response.bodyFile() != null) {
+            return true;
+        }
+        if (response.bodyBuffer() != null) {
+            return response.bodyBuffer().length() > CHUNK_SIZE;
+        }
+        return !response.isBodyStreamed() && (response.body != null) && (response.body.length > CHUNK_SIZE);
+    }
+
+    /**
+     * Start writing the body of a response whose status and headers are set, see {@link #accepts(HTTPResponse)}.
+     */
+    static void start(HTTPResponse response, AsyncContext context) throws IOException {
+        ByteBuffer buffer = null;
+
+        if (response.bodyBuffer() != null) {
+            buffer = response.bodyBuffer().buffer();
+        } else if (response.bodyFile() == null) {
+            buffer = ByteBuffer.wrap(response.body);
+        }
+
+        ServletOutputStream output = context.getResponse().getOutputStream();
+        output.setWriteListener(new ServletAsyncResponseWriter(context, output, buffer, response.bodyFile()));
+    }
+
+    @Override
+    public void onWritePossible() throws IOException {
+        try {
+            // isReady returning false makes the container call onWritePossible once the client has caught up
+            while (output.isReady()) {
+                int length = nextChunk();
+
+                if (length < 0) {
+                    finish();
+                    return;
+                }
+                output.write(chunk, 0, length);
+            }
+        } catch (IOException e) {
+            onError(e);
+        }
+    }
+
+    @Override
+    public void onError(Throwable t) {
+        log.debug("Unable to write response", t);
+        finish();
+    }
+
+    /**
+     * @return The length of the next chunk copied in {@link #chunk}, -1 at the end of the body.
+     */
+    private int nextChunk() throws IOException {
+        if (buffer != null) {
+            int length = Math.min(chunk.length, buffer.remaining());
+            if (length == 0) {
+                return -1;
+            }
+            buffer.get(chunk, 0, length);
+            return length;
+        }
+
+        if (written >= file.length) {
+            return -1;
+        }
+        if (channel == null) {
+            channel = file.open();
+        }
+
+        int length = (int) Math.min(chunk.length, file.length - written);
+        int read = channel.read(ByteBuffer.wrap(chunk, 0, length), file.position + written);
+        if (read < 0) {
+            throw new IOException("File " + file.path + " shorter than expected");
+        }
+        written += read;
+        return read;
+    }
+
+    private void finish() {
+        if (finished) {
+            return;
+        }
+        finished = true;
+
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                log.debug("Unable to close file", e);
+            }
+            channel = null;
+        }
+        context.complete();
+    }
+}
@@ -0,0 +1,119 @@
+package com.acs.wave.provider.common;
+
+import com.acs.wave.router.exception.BodyTooLargeException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Streamed request body read from the servlet input on demand, blocking the thread requesting chunks until they are
+ * received.
+ */
+final class ServletBodyPublisher implements Flow.Publisher<ByteBuffer> {
+
+    static final int CHUNK_SIZE = 8192;
+
+    static final Flow.Subscription REFUSED = new Flow.Subscription() {
+        @Override
+        public void request(long n) {
+        }
+
+        @Override
+        public void cancel() {
+        }
+    };
+
+    private final InputStream input;
+    private final long maxSize;
+    private final AtomicBoolean subscribed = new AtomicBoolean();
+
+    ServletBodyPublisher(InputStream input, long maxSize) {
+        this.input = input;
+        this.maxSize = maxSize;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super ByteBuffer> subscriber) {
+        if (!subscribed.compareAndSet(false, true)) {
+            subscriber.onSubscribe(REFUSED);
+            subscriber.onError(new IllegalStateException("A streamed request body can be subscribed only once"));
+            return;
+        }
+
+        subscriber.onSubscribe(new Subscription(subscriber));
+    }
+
+    private final class Subscription implements Flow.Subscription {
+
+        private final Flow.Subscriber<? super ByteBuffer> subscriber;
+        private long demand;
+        private long received;
+        private boolean emitting;
+        private volatile boolean done;
+
+        private Subscription(Flow.Subscriber<? super ByteBuffer> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public synchronized void request(long n) {
+            if (done) {
+                return;
+            }
+
+            if (n <= 0) {
+                done = true;
+                subscriber.onError(new IllegalArgumentException("Requested " + n + " items"));
+                return;
+            }
+
+            demand = (Long.MAX_VALUE - demand < n) ? Long.MAX_VALUE : demand + n;
+
+            // a subscriber requesting more from onNext gets its chunks from the loop already running
+            if (!emitting) {
+                emitting = true;
+                try {
+                    emit();
+                } finally {
+                    emitting = false;
+                }
+            }
+        }
+
+        @Override
+        public void cancel() {
+            done = true;
+        }
+
+        private void emit() {
+            try {
+                while ((demand > 0) && !done) {
+                    byte[] chunk = new byte[CHUNK_SIZE];
+                    int read = input.read(chunk);
+
+                    if (read < 0) {
+                        done = true;
+                        subscriber.onComplete();
+                        return;
+                    }
+
+                    received += read;
+                    if (received > maxSize) {
+                        done = true;
+                        subscriber.onError(new BodyTooLargeException(maxSize));
+                        return;
+                    }
+
+                    demand--;
+                    subscriber.onNext(ByteBuffer.wrap(chunk, 0, read));
+                }
+            } catch (IOException e) {
+                done = true;
+                subscriber.onError(e);
+            }
+        }
+    }
+}
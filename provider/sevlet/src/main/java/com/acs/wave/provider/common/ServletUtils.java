@@ -1,40 +1,149 @@
 package com.acs.wave.provider.common;
 
+import com.acs.wave.router.HTTPBodyPolicy;
 import com.acs.wave.router.HTTPHeader;
 import com.acs.wave.router.HTTPHeaders;
 import com.acs.wave.router.HTTPRequest;
 import com.acs.wave.router.HTTPResponse;
+import com.acs.wave.router.HTTPRouter;
 import com.acs.wave.router.constants.ProtocolVersion;
 import com.acs.wave.router.constants.RequestMethod;
+import com.acs.wave.router.exception.BodyTooLargeException;
 
+import javax.servlet.AsyncContext;
+import javax.servlet.ServletOutputStream;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Enumeration;
 import java.util.List;
+import java.util.concurrent.Flow;
 import java.util.function.Consumer;
 
 public final class ServletUtils {
+
+    // larger bodies cannot be held in an array
+    private static final long MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
     private ServletUtils() {
     }
 
 
     public static void transferParams(HTTPResponse waveResponse, HttpServletResponse response) throws IOException {
-        waveResponse.headers.stream().forEach(header -> response.addHeader(header.key, header.value));
-        response.getOutputStream().write(waveResponse.body);
+        // status and headers go first, they are committed with the first bytes of the body
+        transferHead(waveResponse, response);
+
+        ServletOutputStream output = response.getOutputStream();
+        if (waveResponse.isBodyStreamed()) {
+            // the container sends the body chunked unless a Content-Length header is set
+            waveResponse.bodyStream.write(output);
+            output.flush();
+        } else if (waveResponse.body != null) {
+            output.write(waveResponse.body);
+        }
+    }
+
+    /**
+     * Write a response without blocking while the client is slow to receive it, when its body is large and known up
+     * front: the body is written with a servlet 3.1 write listener, and the asynchronous context is completed once it
+     * is sent. Other responses are written right away and the context completed. The context is completed as well
+     * when writing fails.
+     *
+     * @param waveResponse The response.
+     * @param context      The asynchronous context of the request.
+     */
+    public static void transferParamsAsync(HTTPResponse waveResponse, AsyncContext context) throws IOException {
+        HttpServletResponse response = (HttpServletResponse) context.getResponse();
+
+        if (!ServletAsyncResponseWriter.accepts(waveResponse)) {
+            try {
+                transferParams(waveResponse, response);
+            } finally {
+                context.complete();
+            }
+            return;
+        }
+
+        try {
+            transferHead(waveResponse, response);
+            ServletAsyncResponseWriter.start(waveResponse, context);
+        } catch (IOException | RuntimeException e) {
+            context.complete();
+            throw e;
+        }
+    }
+
+    private static void transferHead(HTTPResponse waveResponse, HttpServletResponse response) {
         response.setStatus(waveResponse.responseStatus.code);
+        waveResponse.headers.stream().forEach(header -> response.addHeader(header.key, header.value));
     }
 
+    /**
+     * Convert a request, reading its whole body with the default body policy.
+     *
+     * @throws UncheckedIOException If the body cannot be read.
+     */
     public static HTTPRequest toWaveRequest(HttpServletRequest request) {
-        return new HTTPRequest(
-                getMethod(request.getMethod()),
-                getUri(request),
-                getProtocol(request.getProtocol()),
-                getHeaders(request),
-                request.getRemoteAddr(),
-                getBody(request)
-        );
+        try {
+            return toWaveRequest(request, HTTPBodyPolicy.aggregated());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to read the request body", e);
+        }
+    }
+
+    /**
+     * Convert a request, its body read as the body policy says: right away, the first time it is accessed, or on
+     * demand as a blocking stream.
+     *
+     * @param request    The servlet request.
+     * @param bodyPolicy The body policy of the route.
+     * @return The request.
+     * @throws BodyTooLargeException If an aggregated body exceeds the maximum size, lazy and streamed ones throw it when
+     *                               they are read.
+     */
+    public static HTTPRequest toWaveRequest(HttpServletRequest request, HTTPBodyPolicy bodyPolicy) throws IOException {
+        if (bodyPolicy.streamed) {
+            return toWaveRequest(request, new ServletBodyPublisher(request.getInputStream(), bodyPolicy.maxSize));
+        }
+
+        if (bodyPolicy.lazy) {
+            return HTTPRequest.ofLazyBody(getMethod(request.getMethod()), getUri(request), getProtocol(request.getProtocol()), getHeaders(request), request.getRemoteAddr(), () -> {
+                try {
+                    return getBody(request, bodyPolicy.maxSize);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Unable to read the request body", e);
+                }
+            });
+        }
+
+        return toWaveRequest(request, getBody(request, bodyPolicy.maxSize));
+    }
+
+    /**
+     * Convert a request whose body is streamed by a publisher.
+     */
+    static HTTPRequest toWaveRequest(HttpServletRequest request, Flow.Publisher<ByteBuffer> bodyPublisher) {
+        return HTTPRequest.ofStreamedBody(getMethod(request.getMethod()), getUri(request), getProtocol(request.getProtocol()), getHeaders(request), request.getRemoteAddr(), bodyPublisher);
+    }
+
+    /**
+     * Convert a request with a body already read, or without body.
+     */
+    static HTTPRequest toWaveRequest(HttpServletRequest request, byte[] body) {
+        return new HTTPRequest(getMethod(request.getMethod()), getUri(request), getProtocol(request.getProtocol()), getHeaders(request), request.getRemoteAddr(), body);
+    }
+
+    /**
+     * @return The body policy of the route of a request.
+     */
+    static HTTPBodyPolicy getBodyPolicy(HTTPRouter httpRouter, HttpServletRequest request) {
+        return httpRouter.bodyPolicy(getMethod(request.getMethod()), request.getRequestURI());
     }
 
     private static String getUri(HttpServletRequest request) {
@@ -47,8 +156,46 @@ public final class ServletUtils {
         return result;
     }
 
-    private static byte[] getBody(HttpServletRequest request) {
-        return new byte[0];
+    /**
+     * Read a body in an array sized from the <code>Content-Length</code> header when there is one, growing up to the
+     * maximum size otherwise.
+     */
+    private static byte[] getBody(HttpServletRequest request, long maxSize) throws IOException {
+        long contentLength = request.getContentLengthLong();
+
+        if (contentLength > maxSize) {
+            throw new BodyTooLargeException(maxSize);
+        }
+
+        InputStream input = request.getInputStream();
+
+        if (contentLength == 0) {
+            return new byte[0];
+        }
+
+        if ((contentLength > 0) && (contentLength <= MAX_ARRAY_SIZE)) {
+            byte[] result = new byte[(int) contentLength];
+            int length = 0;
+            int read;
+
+            while ((length < result.length) && ((read = input.read(result, length, result.length - length)) > -1)) {
+                length += read;
+            }
+            return (length < result.length) ? Arrays.copyOf(result, length) : result;
+        }
+
+        long limit = Math.min(maxSize, MAX_ARRAY_SIZE);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        byte[] chunk = new byte[ServletBodyPublisher.CHUNK_SIZE];
+        int read;
+
+        while ((read = input.read(chunk)) > -1) {
+            if (output.size() + read > limit) {
+                throw new BodyTooLargeException(limit);
+            }
+            output.write(chunk, 0, read);
+        }
+        return output.toByteArray();
     }
 
     private static HTTPHeaders getHeaders(HttpServletRequest request) {
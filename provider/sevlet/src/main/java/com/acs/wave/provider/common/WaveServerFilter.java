@@ -1,5 +1,6 @@
 package com.acs.wave.provider.common;
 
+import com.acs.wave.router.HTTPBodyPolicy;
 import com.acs.wave.router.HTTPResponse;
 import com.acs.wave.router.HTTPRouter;
 import com.acs.wave.router.constants.ResponseStatus;
@@ -27,7 +28,12 @@ public class WaveServerFilter implements Filter {
 
     @Override
     public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain) throws IOException, ServletException {
-        HTTPResponse waveResponse = httpRouter.process(ServletUtils.toWaveRequest((HttpServletRequest) request));
+        HttpServletRequest servletRequest = (HttpServletRequest) request;
+        HTTPBodyPolicy bodyPolicy = ServletUtils.getBodyPolicy(httpRouter, servletRequest);
+
+        // bodies are read only by the routes using them, requests passed down the chain keep theirs
+        HTTPBodyPolicy filterBodyPolicy = bodyPolicy.streamed ? bodyPolicy : HTTPBodyPolicy.lazy(bodyPolicy.maxSize);
+        HTTPResponse waveResponse = httpRouter.process(ServletUtils.toWaveRequest(servletRequest, filterBodyPolicy));
 
         if (waveResponse.responseStatus != ResponseStatus.NOT_FOUND) {
             ServletUtils.transferParams(waveResponse, (HttpServletResponse) response);
@@ -1,30 +1,190 @@
 package com.acs.wave.provider.common;
 
+import com.acs.wave.router.HTTPBodyPolicy;
+import com.acs.wave.router.HTTPRequest;
 import com.acs.wave.router.HTTPResponse;
 import com.acs.wave.router.HTTPRouter;
+import com.acs.wave.router.constants.ResponseStatus;
+import com.acs.wave.router.exception.BodyTooLargeException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.servlet.AsyncContext;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class WaveServerServlet extends HttpServlet {
 
     protected final Logger log = LoggerFactory.getLogger(getClass());
 
+    private static final AtomicInteger COUNTER = new AtomicInteger();
+
     private final HTTPRouter httpRouter;
+    private final boolean nonBlockingBodies;
+    private final boolean nonBlockingWrites;
+    private final Executor bodyExecutor;
+    // created by the servlet when no executor is given, shut down when it is destroyed
+    private final ExecutorService ownedBodyExecutor;
 
     public WaveServerServlet(HTTPRouter httpRouter) {
+        this(httpRouter, false, false);
+    }
+
+    public WaveServerServlet(HTTPRouter httpRouter, boolean nonBlockingBodies) {
+        this(httpRouter, nonBlockingBodies, false);
+    }
+
+    /**
+     * @param httpRouter        The router.
+     * @param nonBlockingBodies True to read the streamed request bodies with a servlet 3.1 read listener, so that no
+     *                          container thread waits for a slow client. The router then runs on a pool of daemon
+     *                          threads for these requests.
+     * @param nonBlockingWrites True to write the large in memory and file response bodies with a servlet 3.1 write
+     *                          listener, so that no container thread waits for a slow client to receive them.
+     */
+    public WaveServerServlet(HTTPRouter httpRouter, boolean nonBlockingBodies, boolean nonBlockingWrites) {
+        this(httpRouter, nonBlockingBodies, nonBlockingWrites, null);
+    }
+
+    /**
+     * @param httpRouter        The router.
+     * @param nonBlockingBodies True to read the streamed request bodies with a servlet 3.1 read listener, so that no
+     *                          container thread waits for a slow client.
+     * @param nonBlockingWrites True to write the large in memory and file response bodies with a servlet 3.1 write
+     *                          listener, so that no container thread waits for a slow client to receive them.
+     * @param bodyExecutor      Runs the router for the requests whose body is read with a read listener, so that a
+     *                          synchronous handler reading it blocks one of its threads instead of a container thread.
+     *                          Null to use a pool of daemon threads created on demand, shut down with the servlet.
+     */
+    public WaveServerServlet(HTTPRouter httpRouter, boolean nonBlockingBodies, boolean nonBlockingWrites, Executor bodyExecutor) {
         this.httpRouter = httpRouter;
+        this.nonBlockingBodies = nonBlockingBodies;
+        this.nonBlockingWrites = nonBlockingWrites;
+        this.ownedBodyExecutor = (nonBlockingBodies && (bodyExecutor == null)) ? newBodyExecutor() : null;
+        this.bodyExecutor = (bodyExecutor != null) ? bodyExecutor : ownedBodyExecutor;
+    }
+
+    private static ExecutorService newBodyExecutor() {
+        return Executors.newCachedThreadPool(task -> {
+            Thread thread = new Thread(task, "wave-servlet-body-" + COUNTER.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public void destroy() {
+        if (ownedBodyExecutor != null) {
+            ownedBodyExecutor.shutdown();
+        }
+        super.destroy();
     }
 
     @Override
     protected void service(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
-        HTTPResponse waveResponse = httpRouter.process(ServletUtils.toWaveRequest(request));
-        ServletUtils.transferParams(waveResponse, response);
+        HTTPBodyPolicy bodyPolicy = ServletUtils.getBodyPolicy(httpRouter, request);
+        // false when a servlet or filter of the chain is not async-supported, the blocking paths are used then
+        boolean asyncSupported = request.isAsyncSupported();
+        AsyncContext asyncContext = null;
+        HTTPRequest waveRequest;
+
+        try {
+            if (bodyPolicy.exceeds(request.getContentLengthLong())) {
+                throw new BodyTooLargeException(bodyPolicy.maxSize);
+            }
+
+            if (nonBlockingBodies && bodyPolicy.streamed && asyncSupported) {
+                // a read listener can only be set on an asynchronous request
+                asyncContext = request.startAsync();
+                waveRequest = ServletUtils.toWaveRequest(request, new ServletAsyncBodyPublisher(request.getInputStream(), bodyPolicy.maxSize));
+            } else {
+                waveRequest = ServletUtils.toWaveRequest(request, bodyPolicy);
+            }
+        } catch (BodyTooLargeException e) {
+            log.debug("Request body too large", e);
+            HTTPRequest refusedRequest = ServletUtils.toWaveRequest(request, new byte[0]);
+            ServletUtils.transferParams(httpRouter.processError(refusedRequest, ResponseStatus.REQUEST_ENTITY_TOO_LARGE), response);
+            return;
+        }
+
+        CompletableFuture<HTTPResponse> waveResponse;
+
+        if (asyncContext != null) {
+            try {
+                // the body arrives on container threads, a handler blocking on it must not hold one of them
+                waveResponse = CompletableFuture.supplyAsync(() -> httpRouter.processAsync(waveRequest), bodyExecutor)
+                        .thenCompose(stage -> stage);
+            } catch (RejectedExecutionException e) {
+                log.warn("Body executor saturated, refusing {} {}", waveRequest.method, waveRequest.uri());
+                waveResponse = CompletableFuture.completedFuture(httpRouter.processError(waveRequest, ResponseStatus.SERVICE_UNAVAILABLE));
+            }
+        } else {
+            waveResponse = httpRouter.processAsync(waveRequest).toCompletableFuture();
+        }
+
+        if (!asyncSupported) {
+            transferBlocking(waveResponse, response);
+            return;
+        }
+
+        if (waveResponse.isDone() && (asyncContext == null)) {
+            HTTPResponse result = waveResponse.join();
+
+            if (!nonBlockingWrites || !ServletAsyncResponseWriter.accepts(result)) {
+                ServletUtils.transferParams(result, response);
+                return;
+            }
+        }
+
+        // release the container thread while an asynchronous handler waits, or while a slow client receives the body
+        AsyncContext context = (asyncContext != null) ? asyncContext : request.startAsync();
+        waveResponse.whenComplete((result, e) -> {
+            boolean writing = false;
+            try {
+                if (e != null) {
+                    log.error("Error during request", e);
+                    ((HttpServletResponse) context.getResponse()).sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+                } else if (nonBlockingWrites) {
+                    // the context is completed once the body is written, or when writing it fails
+                    writing = true;
+                    ServletUtils.transferParamsAsync(result, context);
+                } else {
+                    ServletUtils.transferParams(result, (HttpServletResponse) context.getResponse());
+                }
+            } catch (IOException ioe) {
+                log.error("Unable to write response", ioe);
+            } finally {
+                if (!writing) {
+                    context.complete();
+                }
+            }
+        });
     }
 
-}
\ No newline at end of file
+    /**
+     * Wait for the response on the container thread, when the request cannot be made asynchronous.
+     */
+    private void transferBlocking(CompletableFuture<HTTPResponse> waveResponse, HttpServletResponse response) throws IOException {
+        HTTPResponse result;
+        try {
+            result = waveResponse.join();
+        } catch (CompletionException | CancellationException e) {
+            log.error("Error during request", e);
+            response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+            return;
+        }
+
+        ServletUtils.transferParams(result, response);
+    }
+}
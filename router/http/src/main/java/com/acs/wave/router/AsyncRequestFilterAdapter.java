@@ -0,0 +1,26 @@
+package com.acs.wave.router;
+
+import com.acs.wave.router.functional.AsyncRequestFilter;
+import com.acs.wave.router.functional.RequestFilter;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Registers an asynchronous filter among the synchronous ones. {@link HTTPRouter#processAsync(HTTPRequest)} calls it
+ * without blocking, {@link HTTPRouter#process(HTTPRequest)} waits for its result.
+ */
+final class AsyncRequestFilterAdapter implements RequestFilter {
+
+    final AsyncRequestFilter filter;
+
+    AsyncRequestFilterAdapter(AsyncRequestFilter filter) {
+        this.filter = filter;
+    }
+
+    @Override
+    public Optional<HTTPResponse> handle(HTTPRequest request, HTTPResponseBuilder responseBuilder, Supplier<Optional<HTTPResponse>> nextJump) {
+        return HTTPAsync.await(filter.handle(request, responseBuilder, () -> CompletableFuture.completedFuture(nextJump.get())));
+    }
+}
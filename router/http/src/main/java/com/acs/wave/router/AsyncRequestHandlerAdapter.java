@@ -0,0 +1,24 @@
+package com.acs.wave.router;
+
+import com.acs.wave.router.functional.AsyncRequestHandler;
+import com.acs.wave.router.functional.RequestHandler;
+
+import java.util.Optional;
+
+/**
+ * Registers an asynchronous handler among the synchronous ones. {@link HTTPRouter#processAsync(HTTPRequest)} calls it
+ * without blocking, {@link HTTPRouter#process(HTTPRequest)} waits for its result.
+ */
+final class AsyncRequestHandlerAdapter implements RequestHandler {
+
+    final AsyncRequestHandler handler;
+
+    AsyncRequestHandlerAdapter(AsyncRequestHandler handler) {
+        this.handler = handler;
+    }
+
+    @Override
+    public Optional<HTTPResponse> handle(HTTPRequest request, HTTPResponseBuilder responseBuilder) {
+        return HTTPAsync.await(handler.handle(request, responseBuilder));
+    }
+}
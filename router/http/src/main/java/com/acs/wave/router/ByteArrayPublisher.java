@@ -0,0 +1,45 @@
+package com.acs.wave.router;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.Flow;
+
+/**
+ * Publisher of an aggregated body, so that handlers written for streamed bodies also accept aggregated ones.
+ */
+final class ByteArrayPublisher implements Flow.Publisher<ByteBuffer> {
+
+    private final byte[] body;
+
+    ByteArrayPublisher(byte[] body) {
+        this.body = body;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super ByteBuffer> subscriber) {
+        subscriber.onSubscribe(new Flow.Subscription() {
+            private boolean done;
+
+            @Override
+            public void request(long n) {
+                if (done) {
+                    return;
+                }
+                done = true;
+
+                if (n <= 0) {
+                    subscriber.onError(new IllegalArgumentException("Requested " + n + " items"));
+                    return;
+                }
+                if (body.length > 0) {
+                    subscriber.onNext(ByteBuffer.wrap(body).asReadOnlyBuffer());
+                }
+                subscriber.onComplete();
+            }
+
+            @Override
+            public void cancel() {
+                done = true;
+            }
+        });
+    }
+}
@@ -1,134 +1,136 @@
 package com.acs.wave.router;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-
-import java.io.UnsupportedEncodingException;
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-import java.util.stream.Collectors;
 
-public class HTTPAddress {
+/**
+ * Extraction of the path and query of a request uri, and url decoding of their params.
+ */
+public final class HTTPAddress {
+
+    private HTTPAddress() {
+    }
 
-    private static final Logger log = LoggerFactory.getLogger(HTTPAddress.class);
+    static String extractPath(String rawUri) {
+        if (rawUri.startsWith("/") && !rawUri.startsWith("//")) {
+            int end = rawUri.length();
+            int query = rawUri.indexOf('?');
+            int fragment = rawUri.indexOf('#');
+
+            if ((query >= 0) && (query < end)) {
+                end = query;
+            }
+            if ((fragment >= 0) && (fragment < end)) {
+                end = fragment;
+            }
+
+            int escape = rawUri.indexOf('%');
+            if ((escape < 0) || (escape >= end)) {
+                return (end == rawUri.length()) ? rawUri : rawUri.substring(0, end);
+            }
+        }
 
-    static HTTPAddress build(String rawUri) {
         try {
-            URI uri = new URI(rawUri);
-            return new HTTPAddress(uri, new HTTPParams(), extractQueryParam(uri.getQuery()));
+            return new URI(rawUri).getPath();
         } catch (URISyntaxException e) {
             throw new RuntimeException(e);
         }
     }
 
-    private static HTTPParams extractQueryParam(String query) {
-        if (query == null) {
-            return new HTTPParams();
-        }
-        Map<String, String> params = Arrays.stream(query.split("&"))
-                .map(HTTPAddress::toMapEntry)
-                .filter(Optional::isPresent)
-                .map(Optional::get)
-                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
-
-        return new HTTPParams(params);
-    }
+    /**
+     * @return The raw query of an uri, null if it has none.
+     */
+    static String extractQuery(String rawUri) {
+        int query = rawUri.indexOf('?');
 
-    private static Optional<Map.Entry<String, String>> toMapEntry(String rawEntry) {
-        Optional<Map.Entry<String, String>> result = Optional.empty();
-
-        try {
-            String[] parts = rawEntry.split("=");
-
-            String key = parts[0];
-            String value = (parts.length > 1) ? parts[1] : "";
-            result = Optional.of(new AbstractMap.SimpleEntry<>(URLDecoder.decode(key, "UTF-8"), URLDecoder.decode(value, "UTF-8")));
-        } catch (Exception e) {
-            log.error("Unable to parse query params", e);
+        if (query < 0) {
+            return null;
         }
 
-        return result;
+        int fragment = rawUri.indexOf('#', query);
+        return rawUri.substring(query + 1, (fragment < 0) ? rawUri.length() : fragment);
     }
 
-    final URI uri;
-    final HTTPParams pathParams;
-    final HTTPParams queryParams;
+    /**
+     * Decode the params of a raw query string in one pass. A param without '=' has an empty value, and everything
+     * after the first '=' is the value.
+     */
+    static Map<String, List<String>> decodeQuery(String query) {
+        Map<String, List<String>> result = new LinkedHashMap<>();
+        int length = query.length();
+        int start = 0;
+
+        while (start < length) {
+            int end = query.indexOf('&', start);
+            if (end < 0) {
+                end = length;
+            }
 
-    HTTPAddress(URI uri, HTTPParams pathParams, HTTPParams queryParams) {
-        this.uri = uri;
-        this.pathParams = pathParams;
-        this.queryParams = queryParams;
-    }
+            if (end > start) {
+                int separator = query.indexOf('=', start);
+                if ((separator < 0) || (separator > end)) {
+                    separator = end;
+                }
 
-    public HTTPAddress clone() {
-        return new HTTPAddress(uri, pathParams, queryParams);
-    }
+                String key = decode(query, start, separator);
+                String value = (separator < end) ? decode(query, separator + 1, end) : "";
+                result.computeIfAbsent(key, k -> new ArrayList<>(1)).add(value);
+            }
+            start = end + 1;
+        }
 
-    HTTPAddress ofRoute(String routeUri) {
-        return new HTTPAddress(uri, extractPathParams(routeUri), queryParams);
+        return Collections.unmodifiableMap(result);
     }
 
+    /**
+     * Decode part of an url encoded value as UTF-8, '+' standing for a space. A malformed escape sequence is kept as
+     * it is.
+     */
+    static String decode(String value, int start, int end) {
+        int escape = start;
+        while ((escape < end) && (value.charAt(escape) != '%') && (value.charAt(escape) != '+')) {
+            escape++;
+        }
+        if (escape == end) {
+            return ((start == 0) && (end == value.length())) ? value : value.substring(start, end);
+        }
 
-    boolean matchUrl(String routeUri) {
-        String pattern = getPattern(routeUri);
-        return Pattern.matches(pattern, uri.getPath());
-    }
+        StringBuilder result = new StringBuilder(end - start);
+        result.append(value, start, escape);
 
-    private HTTPParams extractPathParams(String routeUri) {
-        Map<String, String> params = new HashMap<>();
+        byte[] bytes = null;
+        int i = escape;
 
-        if (matchUrl(routeUri)) {
-            List<String> names = getParamNames(routeUri);
+        while (i < end) {
+            char c = value.charAt(i);
 
-            String patternString = getPattern(routeUri);
+            if (c == '+') {
+                result.append(' ');
+                i++;
+            } else if ((c == '%') && isEscape(value, i, end)) {
+                if (bytes == null) {
+                    bytes = new byte[(end - i) / 3];
+                }
 
-            Pattern pattern = Pattern.compile(patternString);
-            Matcher matcher = pattern.matcher(uri.getPath());
-            if (matcher.find()) {
-                for (int i = 1; i <= matcher.groupCount(); i++) {
-                    params.put(names.get(i - 1), urlDecode(matcher.group(i)));
+                int count = 0;
+                while (isEscape(value, i, end)) {
+                    bytes[count++] = (byte) ((Character.digit(value.charAt(i + 1), 16) << 4) + Character.digit(value.charAt(i + 2), 16));
+                    i += 3;
                 }
+                result.append(new String(bytes, 0, count, StandardCharsets.UTF_8));
+            } else {
+                result.append(c);
+                i++;
             }
         }
 
-        return new HTTPParams(params);
-    }
-
-    private String urlDecode(String value) {
-        try {
-            return URLDecoder.decode(value, "UTF-8");
-        } catch (UnsupportedEncodingException e) {
-            throw new RuntimeException(e);
-        }
-    }
-
-    private String getPattern(String routeUri) {
-        String pattern = routeUri.replaceAll("\\*", ".*");
-        pattern = pattern.replaceAll("\\{[^/{}+]*\\}", "([^/{}]*)");
-        pattern = pattern.replaceAll("\\{[^/{}]*\\+\\}", "([^{}]*)");
-        return pattern;
-    }
-
-    private List<String> getParamNames(String routeUri) {
-        List<String> names = new ArrayList<>();
-        Pattern pattern = Pattern.compile("(\\{[^/{}]*\\})");
-        Matcher matcher = pattern.matcher(routeUri);
-        while (matcher.find()) {
-            names.add(matcher.group().replace("{", "").replace("+}", "").replace("}", ""));
-        }
-        return names;
+        return result.toString();
     }
 
-    @Override
-    public String toString() {
-        return "HTTPAddress{" +
-                "uri='" + uri + '\'' +
-                ", pathParams=" + pathParams +
-                ", queryParams=" + queryParams +
-                '}';
+    private static boolean isEscape(String value, int index, int end) {
+        return (index + 2 < end) && (value.charAt(index) == '%')
+                && (Character.digit(value.charAt(index + 1), 16) >= 0) && (Character.digit(value.charAt(index + 2), 16) >= 0);
     }
 }
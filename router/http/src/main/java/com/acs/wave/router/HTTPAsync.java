@@ -0,0 +1,48 @@
+package com.acs.wave.router;
+
+import com.acs.wave.utils.ExceptionUtils;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * Helpers bridging the synchronous and asynchronous filters and handlers.
+ */
+final class HTTPAsync {
+    private HTTPAsync() {
+    }
+
+    /**
+     * Wait for a stage, rethrowing the exception it failed with as is, so that a blocking caller sees the same
+     * exception a synchronous handler would have thrown.
+     */
+    static <T> T await(CompletionStage<T> stage) {
+        try {
+            return stage.toCompletableFuture().join();
+        } catch (CompletionException e) {
+            ExceptionUtils.throwRuntimeException(unwrap(e));
+            return null;
+        }
+    }
+
+    /**
+     * Call a function returning a stage, turning an exception thrown before the stage is created into a failed stage.
+     */
+    static <T> CompletionStage<T> call(Supplier<CompletionStage<T>> supplier) {
+        try {
+            return supplier.get();
+        } catch (Throwable e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    static Throwable unwrap(Throwable throwable) {
+        while (((throwable instanceof CompletionException) || (throwable instanceof ExecutionException)) && (throwable.getCause() != null)) {
+            throwable = throwable.getCause();
+        }
+        return throwable;
+    }
+}
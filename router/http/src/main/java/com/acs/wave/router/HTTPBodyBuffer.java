@@ -0,0 +1,55 @@
+package com.acs.wave.router;
+
+import com.acs.wave.router.functional.BodyStreamWriter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Response body held in a buffer, possibly direct or memory-mapped. Providers able to send a buffer as is wrap it
+ * without copying it; the others stream it like any other body.
+ */
+public final class HTTPBodyBuffer implements BodyStreamWriter {
+
+    private final ByteBuffer buffer;
+
+    HTTPBodyBuffer(ByteBuffer buffer) {
+        this.buffer = buffer.duplicate();
+    }
+
+    /**
+     * @return A view of the body, whose position and limit can be changed freely.
+     */
+    public ByteBuffer buffer() {
+        return buffer.duplicate();
+    }
+
+    public int length() {
+        return buffer.remaining();
+    }
+
+    @Override
+    public void write(OutputStream output) throws IOException {
+        if (buffer.hasArray()) {
+            output.write(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+        } else {
+            ByteBuffer content = buffer();
+            WritableByteChannel channel = Channels.newChannel(output);
+
+            while (content.hasRemaining()) {
+                channel.write(content);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "HTTPBodyBuffer{" +
+                "length=" + length() +
+                ", direct=" + buffer.isDirect() +
+                '}';
+    }
+}
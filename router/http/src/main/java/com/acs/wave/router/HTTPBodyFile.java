@@ -0,0 +1,59 @@
+package com.acs.wave.router;
+
+import com.acs.wave.router.functional.BodyStreamWriter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Response body read from a region of a file. Providers able to send files without copying them to the heap, with
+ * <code>sendfile</code> for example, use the file directly; the others stream it like any other body.
+ */
+public final class HTTPBodyFile implements BodyStreamWriter {
+
+    public final Path path;
+    public final long position;
+    public final long length;
+
+    HTTPBodyFile(Path path, long position, long length) {
+        this.path = path;
+        this.position = position;
+        this.length = length;
+    }
+
+    public FileChannel open() throws IOException {
+        return FileChannel.open(path, StandardOpenOption.READ);
+    }
+
+    @Override
+    public void write(OutputStream output) throws IOException {
+        try (FileChannel file = open()) {
+            WritableByteChannel channel = Channels.newChannel(output);
+            long written = 0;
+
+            while (written < length) {
+                long transferred = file.transferTo(position + written, length - written, channel);
+
+                if (transferred <= 0) {
+                    throw new IOException("File " + path + " is shorter than expected");
+                }
+
+                written += transferred;
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "HTTPBodyFile{" +
+                "path=" + path +
+                ", position=" + position +
+                ", length=" + length +
+                '}';
+    }
+}
@@ -0,0 +1,117 @@
+package com.acs.wave.router;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Flow;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Blocking input stream over a streamed body, requesting one chunk ahead of the reader. Reads block until the
+ * provider receives more data, so it must not be read from an I/O thread.
+ */
+final class HTTPBodyInputStream extends InputStream implements Flow.Subscriber<ByteBuffer> {
+
+    private static final ByteBuffer END = ByteBuffer.allocate(0);
+
+    private final BlockingQueue<ByteBuffer> chunks = new LinkedBlockingQueue<>();
+    private volatile Flow.Subscription subscription;
+    private volatile Throwable error;
+    private ByteBuffer current;
+    private boolean ended;
+
+    HTTPBodyInputStream(Flow.Publisher<ByteBuffer> publisher) {
+        publisher.subscribe(this);
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        this.subscription = subscription;
+        subscription.request(1);
+    }
+
+    @Override
+    public void onNext(ByteBuffer item) {
+        chunks.add(item);
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        error = throwable;
+        chunks.add(END);
+    }
+
+    @Override
+    public void onComplete() {
+        chunks.add(END);
+    }
+
+    @Override
+    public int read() throws IOException {
+        ByteBuffer buffer = next();
+        return (buffer != null) ? (buffer.get() & 0xFF) : -1;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+
+        ByteBuffer buffer = next();
+
+        if (buffer == null) {
+            return -1;
+        }
+
+        int count = Math.min(len, buffer.remaining());
+        buffer.get(b, off, count);
+        return count;
+    }
+
+    @Override
+    public int available() {
+        return (current != null) ? current.remaining() : 0;
+    }
+
+    @Override
+    public void close() {
+        Flow.Subscription subscription = this.subscription;
+        if (!ended && (subscription != null)) {
+            subscription.cancel();
+        }
+        ended = true;
+        current = null;
+    }
+
+    private ByteBuffer next() throws IOException {
+        while ((current == null) || !current.hasRemaining()) {
+            if (ended) {
+                return null;
+            }
+
+            try {
+                current = chunks.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while reading the request body");
+            }
+
+            if (current == END) {
+                ended = true;
+                current = null;
+
+                if (error != null) {
+                    throw new IOException("Unable to read the request body", error);
+                }
+                return null;
+            }
+
+            subscription.request(1);
+        }
+
+        return current;
+    }
+}
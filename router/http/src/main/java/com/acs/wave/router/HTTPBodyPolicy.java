@@ -0,0 +1,66 @@
+package com.acs.wave.router;
+
+/**
+ * How a provider receives the body of the requests of a route.
+ * <p>
+ * An aggregated body is read completely before the router runs and is available as {@link HTTPRequest#body()}. A
+ * streamed body is handed to the router as soon as the request head arrives and is read through
+ * {@link HTTPRequest#bodyPublisher()} or {@link HTTPRequest#bodyStream()}, so it is never held in memory as a whole.
+ * A lazy body is read completely the first time {@link HTTPRequest#body()} is called, by the providers able to leave a
+ * body unread as the servlet ones, other providers read it as an aggregated body.
+ * Requests announcing a <code>Content-Length</code> larger than the maximum size are refused before their body is read.
+ */
+public final class HTTPBodyPolicy {
+
+    public static final long DEFAULT_MAX_SIZE = 64 * 1024 * 1024;
+
+    public final boolean streamed;
+    public final boolean lazy;
+    public final long maxSize;
+
+    private HTTPBodyPolicy(boolean streamed, boolean lazy, long maxSize) {
+        if (maxSize < 0) {
+            throw new IllegalArgumentException("maxSize should be 0 or more");
+        }
+        this.streamed = streamed;
+        this.lazy = lazy;
+        this.maxSize = maxSize;
+    }
+
+    public static HTTPBodyPolicy aggregated() {
+        return aggregated(DEFAULT_MAX_SIZE);
+    }
+
+    public static HTTPBodyPolicy aggregated(long maxSize) {
+        return new HTTPBodyPolicy(false, false, maxSize);
+    }
+
+    public static HTTPBodyPolicy lazy() {
+        return lazy(DEFAULT_MAX_SIZE);
+    }
+
+    public static HTTPBodyPolicy lazy(long maxSize) {
+        return new HTTPBodyPolicy(false, true, maxSize);
+    }
+
+    public static HTTPBodyPolicy streamed() {
+        return streamed(Long.MAX_VALUE);
+    }
+
+    public static HTTPBodyPolicy streamed(long maxSize) {
+        return new HTTPBodyPolicy(true, false, maxSize);
+    }
+
+    public boolean exceeds(long size) {
+        return size > maxSize;
+    }
+
+    @Override
+    public String toString() {
+        return "HTTPBodyPolicy{" +
+                "streamed=" + streamed +
+                ", lazy=" + lazy +
+                ", maxSize=" + maxSize +
+                '}';
+    }
+}
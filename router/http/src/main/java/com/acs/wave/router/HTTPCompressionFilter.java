@@ -0,0 +1,268 @@
+package com.acs.wave.router;
+
+import com.acs.wave.router.constants.ContentEncoding;
+import com.acs.wave.router.constants.ResponseStatus;
+import com.acs.wave.router.functional.BodyStreamWriter;
+import com.acs.wave.router.functional.RequestFilter;
+import com.acs.wave.utils.ExceptionUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Filter compressing the responses of the filters registered after it with gzip, when the client accepts it. It is
+ * meant to be registered in front of the static file filters; responses of handlers, built once all filters have
+ * jumped to the next one, are not seen by filters.
+ * Only successful responses of textual content types are compressed, from a minimum size. Responses with a strong
+ * ETag are compressed once and their compressed variant cached by path and ETag, within a byte budget. Other streamed
+ * bodies are compressed while they are written. The compressed variant gets its own ETag, also sent when a
+ * conditional request for it is answered with 304 Not Modified.
+ * <p>
+ * Responses already encoded, precompressed files served by the file filters for example, are left untouched.
+ */
+public final class HTTPCompressionFilter implements RequestFilter {
+
+    public static final int DEFAULT_MIN_SIZE = 1024;
+    public static final long DEFAULT_CACHE_SIZE = 16L * 1024L * 1024L;
+
+    private static final List<String> COMPRESSIBLE_TYPES = Arrays.asList(
+            "text/", "application/javascript", "application/json", "application/xml", "image/svg+xml"
+    );
+    private static final String VARY = "Accept-Encoding";
+
+    private final int minSize;
+    private final long cacheSize;
+
+    private final Map<String, byte[]> cache = new LinkedHashMap<>(16, 0.75f, true);
+    private long cachedBytes;
+
+    public HTTPCompressionFilter() {
+        this(DEFAULT_MIN_SIZE, DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * @param minSize   The size from which bodies are compressed, bodies of unknown size always are.
+     * @param cacheSize The budget in bytes of the compressed variants cache, 0 to disable it.
+     */
+    public HTTPCompressionFilter(int minSize, long cacheSize) {
+        if (minSize < 0) {
+            throw new IllegalArgumentException("minSize must not be negative");
+        }
+        if (cacheSize < 0) {
+            throw new IllegalArgumentException("cacheSize must not be negative");
+        }
+
+        this.minSize = minSize;
+        this.cacheSize = cacheSize;
+    }
+
+    @Override
+    public Optional<HTTPResponse> handle(HTTPRequest request, HTTPResponseBuilder responseBuilder, Supplier<Optional<HTTPResponse>> nextJump) {
+        Optional<HTTPResponse> response = nextJump.get();
+
+        if (response.isPresent() && isNotModifiedCompressible(response.get())) {
+            return Optional.of(notModified(request, response.get()));
+        }
+
+        if (!response.isPresent() || !isCompressible(response.get())) {
+            return response;
+        }
+
+        if (!ContentEncoding.GZIP.isAccepted(request.headers)) {
+            // caches must not give the compressed variant to this client, nor this variant to the others
+            return Optional.of(copy(response.get(), copyHeaders(response.get())));
+        }
+
+        return Optional.of(compress(request, response.get()));
+    }
+
+    private boolean isNotModifiedCompressible(HTTPResponse response) {
+        return (response.responseStatus == ResponseStatus.NOT_MODIFIED) && !response.headers.containsKey("Content-Encoding")
+                && isCompressibleType(response.headers.getSingle("Content-Type", String.class).orElse(null));
+    }
+
+    // the 304 of the compressed variant must carry the ETag the client validated, not the one of the identity body
+    private HTTPResponse notModified(HTTPRequest request, HTTPResponse response) {
+        Optional<String> etag = response.headers.getSingle("ETag", String.class);
+        boolean variant = etag.isPresent() && ContentEncoding.GZIP.isAccepted(request.headers)
+                && isRequested(request, getCompressedEtag(etag.get()));
+
+        HTTPHeaders headers = variant ? copyHeaders(response, "ETag") : copyHeaders(response);
+        if (variant) {
+            headers.add("ETag", getCompressedEtag(etag.get()));
+        }
+
+        return copy(response, headers);
+    }
+
+    private boolean isRequested(HTTPRequest request, String etag) {
+        String opaque = getOpaqueEtag(etag);
+        return request.headers.getSingle("If-None-Match", String.class)
+                .map(expected -> Arrays.stream(expected.split(",")).anyMatch(value -> getOpaqueEtag(value).equals(opaque)))
+                .orElse(false);
+    }
+
+    private String getOpaqueEtag(String etag) {
+        String result = etag.trim();
+        return result.startsWith("W/") ? result.substring(2) : result;
+    }
+
+    private boolean isCompressible(HTTPResponse response) {
+        if ((response.responseStatus != ResponseStatus.OK) || response.headers.containsKey("Content-Encoding")) {
+            return false;
+        }
+
+        if (!isCompressibleType(response.headers.getSingle("Content-Type", String.class).orElse(null))) {
+            return false;
+        }
+
+        long length = getLength(response);
+        return (length < 0) || (length >= minSize);
+    }
+
+    /**
+     * @param contentType A content type, possibly null.
+     * @return True if the content type is textual and worth compressing.
+     */
+    public static boolean isCompressibleType(String contentType) {
+        if (contentType == null) {
+            return false;
+        }
+
+        String type = contentType.toLowerCase();
+        return COMPRESSIBLE_TYPES.stream().anyMatch(type::startsWith);
+    }
+
+    private HTTPResponse compress(HTTPRequest request, HTTPResponse response) {
+        Optional<String> etag = response.headers.getSingle("ETag", String.class);
+        // a weak ETag may be shared by different bodies, the variant cached for one of them must not answer the others
+        boolean cacheable = etag.isPresent() && !etag.get().startsWith("W/");
+
+        HTTPHeaders headers = copyHeaders(response, "Content-Length", "ETag");
+        headers.add("Content-Encoding", ContentEncoding.GZIP.token);
+        etag.ifPresent(value -> headers.add("ETag", getCompressedEtag(value)));
+
+        // only bodies small enough to be cached are compressed in memory
+        if (response.isBodyStreamed() && (!cacheable || (getLength(response) > cacheSize))) {
+            return new HTTPResponse(response.protocolVersion, response.responseStatus, headers, null, gzip(response.bodyStream));
+        }
+
+        byte[] body = cacheable ? getCached(request.uri(), etag.get(), response) : gzip(response);
+        return new HTTPResponse(response.protocolVersion, response.responseStatus, headers, body);
+    }
+
+    /**
+     * Copy the headers of a response, without the given ones, adding Vary: Accept-Encoding. The headers of the
+     * response are left untouched, they may be shared with other responses.
+     */
+    private HTTPHeaders copyHeaders(HTTPResponse response, String... removed) {
+        HTTPHeaders headers = new HTTPHeaders(response.headers.stream()
+                .filter(header -> Arrays.stream(removed).noneMatch(header.key::equalsIgnoreCase))
+                .collect(Collectors.toList()));
+        addVary(headers);
+        return headers;
+    }
+
+    private HTTPResponse copy(HTTPResponse response, HTTPHeaders headers) {
+        return new HTTPResponse(response.protocolVersion, response.responseStatus, headers, response.body, response.bodyStream);
+    }
+
+    // the suffix goes inside the quotes of the ETag, keeping its weakness
+    private String getCompressedEtag(String etag) {
+        String suffix = "-" + ContentEncoding.GZIP.token;
+        return etag.endsWith("\"") ? etag.substring(0, etag.length() - 1) + suffix + "\"" : etag + suffix;
+    }
+
+    // ETags are only unique per resource, the path is part of the key
+    private byte[] getCached(String path, String etag, HTTPResponse response) {
+        String key = path + "\n" + etag + ":" + ContentEncoding.GZIP.token;
+        byte[] result;
+
+        synchronized (cache) {
+            result = cache.get(key);
+        }
+
+        if (result == null) {
+            result = gzip(response);
+            put(key, result);
+        }
+
+        return result;
+    }
+
+    private void put(String key, byte[] compressed) {
+        if (compressed.length > cacheSize) {
+            return;
+        }
+
+        synchronized (cache) {
+            byte[] previous = cache.remove(key);
+            if (previous != null) {
+                cachedBytes -= previous.length;
+            }
+
+            Iterator<byte[]> eldest = cache.values().iterator();
+            while ((cachedBytes + compressed.length > cacheSize) && eldest.hasNext()) {
+                cachedBytes -= eldest.next().length;
+                eldest.remove();
+            }
+
+            cache.put(key, compressed);
+            cachedBytes += compressed.length;
+        }
+    }
+
+    private byte[] gzip(HTTPResponse response) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            if (response.isBodyStreamed()) {
+                response.bodyStream.write(gzip);
+            } else if (response.body != null) {
+                gzip.write(response.body);
+            }
+        } catch (IOException e) {
+            ExceptionUtils.throwRuntimeException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private BodyStreamWriter gzip(BodyStreamWriter bodyStream) {
+        return output -> {
+            GZIPOutputStream gzip = new GZIPOutputStream(output, true);
+            bodyStream.write(gzip);
+            // ends the gzip stream, the output belongs to the provider
+            gzip.finish();
+        };
+    }
+
+    private long getLength(HTTPResponse response) {
+        if (response.bodyBuffer() != null) {
+            return response.bodyBuffer().length();
+        } else if (response.bodyFile() != null) {
+            return response.bodyFile().length;
+        } else if (response.isBodyStreamed()) {
+            return -1L;
+        } else {
+            return (response.body != null) ? response.body.length : 0L;
+        }
+    }
+
+    private void addVary(HTTPHeaders headers) {
+        boolean present = headers.get("Vary", String.class).stream()
+                .flatMap(value -> Arrays.stream(value.split(",")))
+                .anyMatch(value -> value.trim().equalsIgnoreCase(VARY) || value.trim().equals("*"));
+
+        if (!present) {
+            headers.add("Vary", VARY);
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.acs.wave.router;
+
+import com.acs.wave.router.functional.RequestFilter;
+import com.acs.wave.utils.LogLevel;
+import com.acs.wave.utils.StopWatch;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Supplier;
+
+/**
+ * Immutable, prebuilt list of the filters that apply to one kind of request.
+ */
+final class HTTPFilterChain {
+
+    private static final Logger log = LoggerFactory.getLogger(HTTPFilterChain.class);
+
+    private final HTTPRoute<RequestFilter>[] routes;
+    private final int[] positions;
+
+    /**
+     * @param routes    The filters of the chain, in execution order.
+     * @param positions The position of every filter in the router filter list, used to pick its path params.
+     */
+    HTTPFilterChain(HTTPRoute<RequestFilter>[] routes, int[] positions) {
+        this.routes = routes;
+        this.positions = positions;
+    }
+
+    /**
+     * Run the chain.
+     *
+     * @param httpRequest     The request.
+     * @param pathParams      The path params extracted for every filter, indexed by its position in the router.
+     * @param responseBuilder The response builder.
+     * @return The response of the first filter that answers, empty if all of them jumped to the next one.
+     */
+    Optional<HTTPResponse> process(HTTPRequest httpRequest, HTTPParams[] pathParams, HTTPResponseBuilder responseBuilder) {
+        return new Jump(this, httpRequest, pathParams, responseBuilder, 0).get();
+    }
+
+    /**
+     * Run the chain without blocking on the asynchronous filters. A synchronous filter still waits for the rest of
+     * the chain when it calls its next jump.
+     *
+     * @param httpRequest     The request.
+     * @param pathParams      The path params extracted for every filter, indexed by its position in the router.
+     * @param responseBuilder The response builder.
+     * @return The response of the first filter that answers, empty if all of them jumped to the next one.
+     */
+    CompletionStage<Optional<HTTPResponse>> processAsync(HTTPRequest httpRequest, HTTPParams[] pathParams, HTTPResponseBuilder responseBuilder) {
+        return new AsyncJump(this, httpRequest, pathParams, responseBuilder, 0).get();
+    }
+
+    private CompletionStage<Optional<HTTPResponse>> invokeAsync(int index, AsyncJump jump) {
+        HTTPRoute<RequestFilter> httpRoute = routes[index];
+        HTTPRequest filterRequest = jump.httpRequest.ofPathParams(jump.pathParams[positions[index]]);
+        AsyncJump next = new AsyncJump(this, jump.httpRequest, jump.pathParams, jump.responseBuilder, index + 1);
+
+        log.trace("Filter {} {}", httpRoute.methods, httpRoute.uri);
+
+        if (httpRoute.handler instanceof AsyncRequestFilterAdapter) {
+            return ((AsyncRequestFilterAdapter) httpRoute.handler).filter.handle(filterRequest, jump.responseBuilder, next);
+        }
+
+        return CompletableFuture.completedFuture(httpRoute.handler.handle(filterRequest, jump.responseBuilder, () -> HTTPAsync.await(next.get())));
+    }
+
+    private Optional<HTTPResponse> invoke(int index, Jump jump) {
+        HTTPRoute<RequestFilter> httpRoute = routes[index];
+        HTTPRequest filterRequest = jump.httpRequest.ofPathParams(jump.pathParams[positions[index]]);
+        Jump next = new Jump(this, jump.httpRequest, jump.pathParams, jump.responseBuilder, index + 1);
+
+        if (!log.isTraceEnabled()) {
+            return httpRoute.handler.handle(filterRequest, jump.responseBuilder, next);
+        }
+
+        log.trace("Filter {} {}", httpRoute.methods, httpRoute.uri);
+        StopWatch stopWatch = new StopWatch().start();
+        try {
+            return httpRoute.handler.handle(filterRequest, jump.responseBuilder, next);
+        } finally {
+            stopWatch.printElapseTime("Filter " + httpRoute.methods + " " + httpRoute.uri, log, LogLevel.TRACE);
+        }
+    }
+
+    /**
+     * Position in the chain handed to every filter as its next jump. It is immutable, so a filter may keep its next
+     * jump and call it later, from any thread, and still run the rest of the chain only.
+     */
+    private static final class Jump implements Supplier<Optional<HTTPResponse>> {
+        private final HTTPFilterChain chain;
+        private final HTTPRequest httpRequest;
+        private final HTTPParams[] pathParams;
+        private final HTTPResponseBuilder responseBuilder;
+        private final int index;
+
+        Jump(HTTPFilterChain chain, HTTPRequest httpRequest, HTTPParams[] pathParams, HTTPResponseBuilder responseBuilder, int index) {
+            this.chain = chain;
+            this.httpRequest = httpRequest;
+            this.pathParams = pathParams;
+            this.responseBuilder = responseBuilder;
+            this.index = index;
+        }
+
+        @Override
+        public Optional<HTTPResponse> get() {
+            if (index >= chain.routes.length) {
+                return Optional.empty();
+            }
+
+            return chain.invoke(index, this);
+        }
+    }
+
+    /**
+     * Position in the chain handed to asynchronous filters, immutable as {@link Jump}.
+     */
+    private static final class AsyncJump implements Supplier<CompletionStage<Optional<HTTPResponse>>> {
+        private final HTTPFilterChain chain;
+        private final HTTPRequest httpRequest;
+        private final HTTPParams[] pathParams;
+        private final HTTPResponseBuilder responseBuilder;
+        private final int index;
+
+        AsyncJump(HTTPFilterChain chain, HTTPRequest httpRequest, HTTPParams[] pathParams, HTTPResponseBuilder responseBuilder, int index) {
+            this.chain = chain;
+            this.httpRequest = httpRequest;
+            this.pathParams = pathParams;
+            this.responseBuilder = responseBuilder;
+            this.index = index;
+        }
+
+        @Override
+        public CompletionStage<Optional<HTTPResponse>> get() {
+            if (index >= chain.routes.length) {
+                return CompletableFuture.completedFuture(Optional.empty());
+            }
+
+            return HTTPAsync.call(() -> chain.invokeAsync(index, this));
+        }
+    }
+}
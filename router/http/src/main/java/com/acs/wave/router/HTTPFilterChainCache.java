@@ -0,0 +1,122 @@
+package com.acs.wave.router;
+
+import com.acs.wave.router.functional.RequestFilter;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cache of prebuilt filter chains.
+ * <p>
+ * The filters are still matched on every request, since their path params depend on the concrete path, but the
+ * matching only records which filters apply. That set, keyed as a bitmask of filter positions, is enough to reuse the
+ * chain built the first time it was seen.
+ */
+final class HTTPFilterChainCache {
+
+    private static final int MAX_CACHED_FILTERS = Long.SIZE;
+    private static final int MAX_CACHED_CHAINS = 1024;
+
+    private final HTTPRoute<RequestFilter>[] filters;
+    private final Map<Long, HTTPFilterChain> chains = new ConcurrentHashMap<>();
+
+    @SuppressWarnings("unchecked")
+    HTTPFilterChainCache(List<HTTPRoute<RequestFilter>> filters) {
+        this.filters = filters.toArray(new HTTPRoute[0]);
+    }
+
+    Optional<HTTPResponse> process(HTTPRequest httpRequest, HTTPResponseBuilder responseBuilder) {
+        HTTPParams[] pathParams = match(httpRequest);
+
+        if (pathParams == null) {
+            return Optional.empty();
+        }
+
+        return getChain(pathParams).process(httpRequest, pathParams, responseBuilder);
+    }
+
+    CompletionStage<Optional<HTTPResponse>> processAsync(HTTPRequest httpRequest, HTTPResponseBuilder responseBuilder) {
+        HTTPParams[] pathParams = match(httpRequest);
+
+        if (pathParams == null) {
+            return CompletableFuture.completedFuture(Optional.empty());
+        }
+
+        return getChain(pathParams).processAsync(httpRequest, pathParams, responseBuilder);
+    }
+
+    /**
+     * Match all the filters.
+     *
+     * @param httpRequest The request.
+     * @return The path params of every matching filter indexed by its position, null if no filter matches.
+     */
+    private HTTPParams[] match(HTTPRequest httpRequest) {
+        HTTPParams[] pathParams = null;
+
+        for (int i = 0; i < filters.length; i++) {
+            HTTPParams params = filters[i].match(httpRequest);
+
+            if (params != null) {
+                if (pathParams == null) {
+                    pathParams = new HTTPParams[filters.length];
+                }
+                pathParams[i] = params;
+            }
+        }
+
+        return pathParams;
+    }
+
+    private HTTPFilterChain getChain(HTTPParams[] pathParams) {
+        long key = 0;
+        int size = 0;
+
+        for (int i = 0; i < pathParams.length; i++) {
+            if (pathParams[i] != null) {
+                size++;
+
+                if (i < MAX_CACHED_FILTERS) {
+                    key |= 1L << i;
+                }
+            }
+        }
+
+        return (filters.length <= MAX_CACHED_FILTERS) ? getChain(key, pathParams, size) : buildChain(pathParams, size);
+    }
+
+    private HTTPFilterChain getChain(long key, HTTPParams[] pathParams, int size) {
+        HTTPFilterChain chain = chains.get(key);
+
+        if (chain == null) {
+            chain = buildChain(pathParams, size);
+
+            if (chains.size() < MAX_CACHED_CHAINS) {
+                chains.putIfAbsent(key, chain);
+            }
+        }
+
+        return chain;
+    }
+
+    @SuppressWarnings("unchecked")
+    private HTTPFilterChain buildChain(HTTPParams[] pathParams, int size) {
+        HTTPRoute<RequestFilter>[] routes = new HTTPRoute[size];
+        int[] positions = new int[size];
+        int index = 0;
+
+        for (int i = 0; i < pathParams.length; i++) {
+            if (pathParams[i] != null) {
+                routes[index] = filters[i];
+                positions[index] = i;
+                index++;
+            }
+        }
+
+        return new HTTPFilterChain(routes, positions);
+    }
+}
@@ -9,29 +9,100 @@ import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+/**
+ * Headers of a request or a response, looked up case-insensitively.
+ * <p>
+ * The headers are kept in insertion order, with an open addressing index from each lowercase name to its first
+ * header, and the next header of the same name chained from it. A copy shares the arrays of its source until either
+ * of them is modified, requests are copied for each route they go through.
+ */
 public class HTTPHeaders {
-    private final List<HTTPHeader> headers;
+
+    private static final int MIN_CAPACITY = 8;
+    private static final int NO_ENTRY = -1;
+    private static final HTTPHeader[] NO_ENTRIES = new HTTPHeader[0];
+    private static final String[] NO_NAMES = new String[0];
+    private static final int[] NO_INTS = new int[0];
+
+    // interned lowercase names of the usual headers, keyed by both their usual and lowercase spelling, so that most
+    // names are not lowercased again and compare by reference
+    private static final Map<String, String> COMMON_NAMES = commonNames(
+            "Accept", "Accept-Charset", "Accept-Encoding", "Accept-Language", "Accept-Ranges", "Age", "Allow",
+            "Authorization", "Cache-Control", "Connection", "Content-Disposition", "Content-Encoding",
+            "Content-Language", "Content-Length", "Content-Location", "Content-Range", "Content-Type", "Cookie", "Date",
+            "ETag", "Expect", "Expires", "Forwarded", "Host", "If-Match", "If-Modified-Since", "If-None-Match",
+            "If-Range", "If-Unmodified-Since", "Keep-Alive", "Last-Modified", "Location", "Origin", "Pragma", "Range",
+            "Referer", "Server", "Set-Cookie", "TE", "Trailer", "Transfer-Encoding", "Upgrade", "User-Agent", "Vary",
+            "Via", "WWW-Authenticate", "X-Forwarded-For", "X-Forwarded-Host", "X-Forwarded-Proto", "X-Requested-With");
+
+    // nothing is allocated before the first header is added
+    private HTTPHeader[] entries = NO_ENTRIES;
+    private String[] names = NO_NAMES;
+    private int[] hashes = NO_INTS;
+    // next header of the same name, NO_ENTRY for the last one
+    private int[] next = NO_INTS;
+    // 1 + first header of each name, 0 for a free slot
+    private int[] index = NO_INTS;
+    private int size;
+    // the arrays are shared with a copy, and must be copied before being modified
+    private boolean shared;
 
     public HTTPHeaders() {
-        this(new ArrayList<>());
     }
 
     public HTTPHeaders(List<HTTPHeader> headers) {
-        this.headers = new ArrayList<>(headers);
+        this(Math.max(MIN_CAPACITY, headers.size()));
+        headers.forEach(this::add);
+    }
+
+    private HTTPHeaders(int capacity) {
+        allocate(capacity);
+    }
+
+    private HTTPHeaders(HTTPHeaders source) {
+        this.entries = source.entries;
+        this.names = source.names;
+        this.hashes = source.hashes;
+        this.next = source.next;
+        this.index = source.index;
+        this.size = source.size;
+        this.shared = true;
     }
 
     public void add(String key, Object value) {
-        headers.add(new HTTPHeader(key, toHeaderString(value)));
+        add(new HTTPHeader(key, toHeaderString(value)));
+    }
+
+    /**
+     * Remove every header of a name, whatever its case.
+     */
+    public void remove(String key) {
+        if (first(key) == NO_ENTRY) {
+            return;
+        }
+
+        HTTPHeader[] oldEntries = entries;
+        int oldSize = size;
+
+        allocate(Math.max(MIN_CAPACITY, oldEntries.length));
+        size = 0;
+        shared = false;
+
+        for (int i = 0; i < oldSize; i++) {
+            if (!oldEntries[i].key.equalsIgnoreCase(key)) {
+                add(oldEntries[i]);
+            }
+        }
     }
 
     public Set<String> keys() {
-        return headers.stream()
+        return stream()
                 .map(header -> header.key)
                 .collect(Collectors.toSet());
     }
 
     public boolean containsKey(String key) {
-        return headers.stream().anyMatch(header -> header.key.equalsIgnoreCase(key));
+        return first(key) != NO_ENTRY;
     }
 
     public <T> T getMandatory(String key, Class<T> parameterClass) {
@@ -51,11 +122,12 @@ public class HTTPHeaders {
     }
 
     public <T> Optional<T> getSingle(String key, Class<T> parameterClass) {
-        return get(key, parameterClass).stream().findFirst();
+        return getSingle(key, value -> ValuesConverter.convert(key, value, parameterClass));
     }
 
     public <T> Optional<T> getSingle(String key, Function<String, T> converter) {
-        return get(key, converter).stream().findFirst();
+        int entry = first(key);
+        return (entry == NO_ENTRY) ? Optional.empty() : Optional.ofNullable(converter.apply(entries[entry].value));
     }
 
     public <T> List<T> get(String key, Class<T> parameterClass) {
@@ -63,28 +135,180 @@ public class HTTPHeaders {
     }
 
     public <T> List<T> get(String key, Function<String, T> converter) {
-        return headers.stream()
-                .filter(header -> header.key.equalsIgnoreCase(key))
-                .map(header -> converter.apply(header.value))
-                .collect(Collectors.toList());
+        List<T> result = new ArrayList<>(1);
+
+        for (int entry = first(key); entry != NO_ENTRY; entry = next[entry]) {
+            result.add(converter.apply(entries[entry].value));
+        }
+        return result;
     }
 
 
     public Stream<HTTPHeader> stream() {
-        return headers.stream();
+        return Arrays.stream(entries, 0, size);
     }
 
+    /**
+     * @return A copy of the headers, sharing their content until either of them is modified.
+     */
     public HTTPHeaders clone() {
-        return new HTTPHeaders(headers.stream().map(HTTPHeader::clone).collect(Collectors.toList()));
+        shared = true;
+        return new HTTPHeaders(this);
     }
 
     @Override
     public String toString() {
         return "HTTPHeaders{" +
-                "headers='" + headers + '\'' +
+                "headers='" + Arrays.asList(entries).subList(0, size) + '\'' +
                 '}';
     }
 
+    private void add(HTTPHeader header) {
+        String name = toName(header.key);
+        int hash = hash(name);
+
+        if (shared || (size == entries.length)) {
+            copy(Math.max(MIN_CAPACITY, (size == entries.length) ? size * 2 : entries.length));
+        }
+
+        entries[size] = header;
+        names[size] = name;
+        hashes[size] = hash;
+        next[size] = NO_ENTRY;
+
+        int mask = index.length - 1;
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            int entry = index[slot] - 1;
+
+            if (entry == NO_ENTRY) {
+                index[slot] = size + 1;
+                break;
+            }
+            if ((hashes[entry] == hash) && names[entry].equals(name)) {
+                while (next[entry] != NO_ENTRY) {
+                    entry = next[entry];
+                }
+                next[entry] = size;
+                break;
+            }
+        }
+
+        size++;
+    }
+
+    private int first(String key) {
+        if (size == 0) {
+            return NO_ENTRY;
+        }
+
+        int hash = hash(key);
+        int mask = index.length - 1;
+
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            int entry = index[slot] - 1;
+
+            if ((entry == NO_ENTRY) || ((hashes[entry] == hash) && names[entry].equalsIgnoreCase(key))) {
+                return entry;
+            }
+        }
+    }
+
+    private void copy(int capacity) {
+        HTTPHeader[] oldEntries = entries;
+        String[] oldNames = names;
+        int[] oldHashes = hashes;
+        int[] oldNext = next;
+        int[] oldIndex = index;
+
+        if (capacity == oldEntries.length) {
+            entries = oldEntries.clone();
+            names = oldNames.clone();
+            hashes = oldHashes.clone();
+            next = oldNext.clone();
+            index = oldIndex.clone();
+        } else {
+            allocate(capacity);
+            System.arraycopy(oldEntries, 0, entries, 0, size);
+            System.arraycopy(oldNames, 0, names, 0, size);
+            System.arraycopy(oldHashes, 0, hashes, 0, size);
+            System.arraycopy(oldNext, 0, next, 0, size);
+            reindex(oldIndex);
+        }
+
+        shared = false;
+    }
+
+    private void allocate(int capacity) {
+        entries = new HTTPHeader[capacity];
+        names = new String[capacity];
+        hashes = new int[capacity];
+        next = new int[capacity];
+        // at most half full, each name takes one slot whatever its number of headers
+        index = new int[Integer.highestOneBit(capacity - 1) << 2];
+    }
+
+    private void reindex(int[] oldIndex) {
+        int mask = index.length - 1;
+
+        for (int value : oldIndex) {
+            if (value != 0) {
+                int slot = hashes[value - 1] & mask;
+                while (index[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                index[slot] = value;
+            }
+        }
+    }
+
+    private static String toName(String key) {
+        String name = COMMON_NAMES.get(key);
+        return (name != null) ? name : toLowerCase(key);
+    }
+
+    /**
+     * Lowercase the ASCII letters only, as {@link #hash(String)} does.
+     */
+    private static String toLowerCase(String key) {
+        char[] chars = null;
+
+        for (int i = 0; i < key.length(); i++) {
+            char c = key.charAt(i);
+
+            if ((c >= 'A') && (c <= 'Z')) {
+                if (chars == null) {
+                    chars = key.toCharArray();
+                }
+                chars[i] = (char) (c + ('a' - 'A'));
+            }
+        }
+        return (chars != null) ? new String(chars) : key;
+    }
+
+    /**
+     * Hash of a name ignoring the case of ASCII letters, the only ones allowed in header names.
+     */
+    private static int hash(String key) {
+        int hash = 0;
+
+        for (int i = 0; i < key.length(); i++) {
+            char c = key.charAt(i);
+            hash = 31 * hash + (((c >= 'A') && (c <= 'Z')) ? (c + ('a' - 'A')) : c);
+        }
+        return hash ^ (hash >>> 16);
+    }
+
+    private static Map<String, String> commonNames(String... names) {
+        Map<String, String> result = new HashMap<>();
+
+        for (String name : names) {
+            String lowerCase = toLowerCase(name).intern();
+            result.put(name, lowerCase);
+            result.put(lowerCase, lowerCase);
+        }
+        return result;
+    }
+
     private String toHeaderString(Object value) {
         if (value instanceof Date) {
             return dateToString((Date) value);
@@ -0,0 +1,33 @@
+package com.acs.wave.router;
+
+import java.util.function.Supplier;
+
+/**
+ * Body read the first time it is accessed, shared by the copies of a request made while it is routed.
+ */
+final class HTTPLazyBody implements Supplier<byte[]> {
+
+    private final Supplier<byte[]> loader;
+    private volatile byte[] body;
+
+    HTTPLazyBody(Supplier<byte[]> loader) {
+        this.loader = loader;
+    }
+
+    @Override
+    public byte[] get() {
+        byte[] result = body;
+
+        if (result == null) {
+            synchronized (this) {
+                result = body;
+                if (result == null) {
+                    result = loader.get();
+                    body = result;
+                }
+            }
+        }
+
+        return result;
+    }
+}
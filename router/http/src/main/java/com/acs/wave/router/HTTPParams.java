@@ -6,24 +6,69 @@ import com.acs.wave.utils.ValuesConverter;
 import java.util.*;
 import java.util.function.BiConsumer;
 import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
+/**
+ * Path or query params. A param may have several values, the single value getters return the first one.
+ * <p>
+ * The params extracted from a request are decoded on first access, most handlers never read them.
+ */
 public class HTTPParams {
-    private final Map<String, String> params;
+
+    static final HTTPParams EMPTY = new HTTPParams();
+
+    private final Supplier<Map<String, List<String>>> decoder;
+    // decoding twice gives the same params, concurrent first accesses may both decode them
+    private volatile Map<String, List<String>> params;
 
     public HTTPParams() {
         this(new HashMap<>());
     }
 
     public HTTPParams(Map<String, String> params) {
-        this.params = Collections.unmodifiableMap(params);
+        this.decoder = null;
+        this.params = Collections.unmodifiableMap(params.entrySet().stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, entry -> Collections.singletonList(entry.getValue()))));
+    }
+
+    private HTTPParams(Supplier<Map<String, List<String>>> decoder) {
+        this.decoder = decoder;
+    }
+
+    /**
+     * @param query The raw query string, without the leading '?'.
+     * @return The params decoded from the query on first access.
+     */
+    static HTTPParams ofQuery(String query) {
+        return ((query == null) || query.isEmpty()) ? EMPTY : new HTTPParams(() -> HTTPAddress.decodeQuery(query));
+    }
+
+    /**
+     * @param names     The names of the params.
+     * @param rawValues The values of the params, as they appear in the path.
+     * @return The params decoded on first access.
+     */
+    static HTTPParams ofPath(String[] names, String[] rawValues) {
+        return new HTTPParams(() -> {
+            Map<String, List<String>> result = new HashMap<>();
+
+            for (int i = 0; i < names.length; i++) {
+                result.put(names[i], Collections.singletonList(HTTPAddress.decode(rawValues[i], 0, rawValues[i].length())));
+            }
+            return Collections.unmodifiableMap(result);
+        });
     }
 
     public Set<String> keySet() {
-        return params.keySet();
+        return params().keySet();
     }
 
+    /**
+     * Call an action for each value of each param.
+     */
     public void forEach(BiConsumer<? super String, ? super String> action) {
-        params.forEach(action);
+        params().forEach((key, values) -> values.forEach(value -> action.accept(key, value)));
     }
 
     public <T> T getMandatory(String key, Class<T> parameterClass) {
@@ -47,13 +92,38 @@ public class HTTPParams {
     }
 
     public <T> Optional<T> get(String key, Function<String, T> converter) {
-        return Optional.ofNullable(params.get(key)).map(converter);
+        List<String> values = params().get(key);
+        return (values == null) ? Optional.empty() : Optional.ofNullable(values.get(0)).map(converter);
+    }
+
+    public <T> List<T> getAll(String key, Class<T> parameterClass) {
+        return getAll(key, value -> ValuesConverter.convert(key, value, parameterClass));
+    }
+
+    /**
+     * @return All the values of a param, in their order in the request, empty if the param is absent.
+     */
+    public <T> List<T> getAll(String key, Function<String, T> converter) {
+        return params().getOrDefault(key, Collections.emptyList()).stream()
+                .map(converter)
+                .collect(Collectors.toList());
+    }
+
+    private Map<String, List<String>> params() {
+        Map<String, List<String>> result = params;
+
+        if (result == null) {
+            result = decoder.get();
+            params = result;
+        }
+
+        return result;
     }
 
     @Override
     public String toString() {
         return "HTTPParams{" +
-                "params='" + params + '\'' +
+                "params='" + params() + '\'' +
                 '}';
     }
 }
@@ -6,50 +6,122 @@ import com.acs.wave.router.exception.UnexpectedContentTypeException;
 import com.acs.wave.router.functional.BodyReader;
 import com.acs.wave.utils.ExceptionUtils;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.util.Set;
+import java.util.concurrent.Flow;
+import java.util.function.Supplier;
 
 public class HTTPRequest extends HTTPItem {
 
     public final RequestMethod method;
-    final HTTPAddress address;
     public final String remoteAddress;
-    private final byte[] body;
+    private final String rawUri;
+    private final String path;
+    private final HTTPParams pathParams;
+    private final Supplier<byte[]> body;
+    private final Flow.Publisher<ByteBuffer> bodyPublisher;
+
+    // Extracted on first access and decoded on the first read, most requests never read their query params
+    private HTTPParams queryParams;
 
     public HTTPRequest(RequestMethod method, String uri, ProtocolVersion protocolVersion, HTTPHeaders headers, String remoteAddress, byte[] body) {
-        this(method, HTTPAddress.build(uri), protocolVersion, headers, remoteAddress, body);
+        this(method, uri, HTTPAddress.extractPath(uri), HTTPParams.EMPTY, null, protocolVersion, headers, remoteAddress, () -> body, null);
+    }
+
+    /**
+     * Create a request whose body is read the first time it is accessed, see {@link HTTPBodyPolicy#lazy()}.
+     *
+     * @param bodyLoader Reads the body, called once at most.
+     */
+    public static HTTPRequest ofLazyBody(RequestMethod method, String uri, ProtocolVersion protocolVersion, HTTPHeaders headers, String remoteAddress, Supplier<byte[]> bodyLoader) {
+        return new HTTPRequest(method, uri, HTTPAddress.extractPath(uri), HTTPParams.EMPTY, null, protocolVersion, headers, remoteAddress, new HTTPLazyBody(bodyLoader), null);
+    }
+
+    /**
+     * Create a request whose body is streamed, see {@link HTTPBodyPolicy}.
+     */
+    public static HTTPRequest ofStreamedBody(RequestMethod method, String uri, ProtocolVersion protocolVersion, HTTPHeaders headers, String remoteAddress, Flow.Publisher<ByteBuffer> bodyPublisher) {
+        return new HTTPRequest(method, uri, HTTPAddress.extractPath(uri), HTTPParams.EMPTY, null, protocolVersion, headers, remoteAddress, null, bodyPublisher);
     }
 
-    private HTTPRequest(RequestMethod method, HTTPAddress address, ProtocolVersion protocolVersion, HTTPHeaders headers, String remoteAddress, byte[] body) {
+    private HTTPRequest(RequestMethod method, String rawUri, String path, HTTPParams pathParams, HTTPParams queryParams, ProtocolVersion protocolVersion, HTTPHeaders headers, String remoteAddress, Supplier<byte[]> body, Flow.Publisher<ByteBuffer> bodyPublisher) {
         super(protocolVersion, headers);
         this.method = method;
-        this.address = address;
+        this.rawUri = rawUri;
+        this.path = path;
+        this.pathParams = pathParams;
+        this.queryParams = queryParams;
         this.remoteAddress = remoteAddress;
         this.body = body;
+        this.bodyPublisher = bodyPublisher;
     }
 
     public String uri() {
-        return address.uri.getPath();
+        return path;
     }
 
     public String fullUri() {
-        return address.uri.toString();
+        return rawUri;
     }
 
     public HTTPParams pathParams() {
-        return address.pathParams;
+        return pathParams;
     }
 
+    /**
+     * Get the query params, extracted from the uri on the first call and decoded on their first read. The query is
+     * not validated when the request is built: an uri rejected by {@link java.net.URI} only fails when its path has
+     * to be decoded, and a malformed escape in the query is kept as it is instead of failing.
+     *
+     * @return The query params.
+     */
     public HTTPParams queryParams() {
-        return address.queryParams;
+        HTTPParams result = queryParams;
+
+        if (result == null) {
+            result = HTTPParams.ofQuery(HTTPAddress.extractQuery(rawUri));
+            queryParams = result;
+        }
+
+        return result;
     }
 
     public byte[] body() {
-        return body;
+        if (bodyPublisher != null) {
+            throw new IllegalStateException("The body of " + method + " " + uri() + " is streamed, read it with bodyPublisher() or bodyStream()");
+        }
+        return body.get();
+    }
+
+    public boolean isBodyStreamed() {
+        return (bodyPublisher != null);
+    }
+
+    /**
+     * Get the body as a stream of chunks, available both for streamed and aggregated bodies. A streamed body can be
+     * subscribed to only once, and its subscriber is called from an I/O thread so it must not block.
+     *
+     * @return The body publisher.
+     */
+    public Flow.Publisher<ByteBuffer> bodyPublisher() {
+        return (bodyPublisher != null) ? bodyPublisher : new ByteArrayPublisher(body.get());
+    }
+
+    /**
+     * Get the body as a blocking input stream. Reading a streamed body blocks until it is received, so it should only
+     * be read from handlers that do not run on an I/O thread.
+     *
+     * @return The body stream.
+     */
+    public InputStream bodyStream() {
+        return (bodyPublisher != null) ? new HTTPBodyInputStream(bodyPublisher) : new ByteArrayInputStream(body.get());
     }
 
     public String bodyAsString() {
-        return bytesToString(body);
+        return bytesToString(body());
     }
 
     public <T> T body(BodyReader<T> reader) {
@@ -67,11 +139,20 @@ public class HTTPRequest extends HTTPItem {
 
 
     HTTPRequest ofUri(String uri) {
-        return new HTTPRequest(method, HTTPAddress.build(uri), protocolVersion, headers, remoteAddress, body);
+        return new HTTPRequest(method, uri, HTTPAddress.extractPath(uri), HTTPParams.EMPTY, null, protocolVersion, headers, remoteAddress, body, bodyPublisher);
     }
 
     HTTPRequest ofRoute(HTTPRoute<?> httpRoute) {
-        return new HTTPRequest(method, address.ofRoute(httpRoute.uri), protocolVersion, headers, remoteAddress, body);
+        return ofPathParams(httpRoute.matcher.match(uri()));
+    }
+
+    HTTPRequest ofPathParams(HTTPParams pathParams) {
+        HTTPParams params = (pathParams != null) ? pathParams : HTTPParams.EMPTY;
+
+        if ((params == this.pathParams) || (params.keySet().isEmpty() && this.pathParams.keySet().isEmpty())) {
+            return this;
+        }
+        return new HTTPRequest(method, rawUri, path, params, queryParams, protocolVersion, headers, remoteAddress, body, bodyPublisher);
     }
 
     @Override
@@ -2,15 +2,49 @@ package com.acs.wave.router;
 
 import com.acs.wave.router.constants.ProtocolVersion;
 import com.acs.wave.router.constants.ResponseStatus;
+import com.acs.wave.router.functional.BodyStreamWriter;
 
 public class HTTPResponse extends HTTPItem {
+
+    private static final byte[] NO_BODY = new byte[0];
+
     public final ResponseStatus responseStatus;
+    /**
+     * The body, empty when the body is streamed.
+     */
     public final byte[] body;
+    /**
+     * The writer of a streamed body, null when the body is in {@link #body}.
+     */
+    public final BodyStreamWriter bodyStream;
 
     HTTPResponse(ProtocolVersion protocolVersion, ResponseStatus responseStatus, HTTPHeaders headers, byte[] body) {
+        this(protocolVersion, responseStatus, headers, body, null);
+    }
+
+    HTTPResponse(ProtocolVersion protocolVersion, ResponseStatus responseStatus, HTTPHeaders headers, byte[] body, BodyStreamWriter bodyStream) {
         super(protocolVersion, headers);
         this.responseStatus = responseStatus;
-        this.body = body;
+        this.body = (bodyStream != null) ? NO_BODY : body;
+        this.bodyStream = bodyStream;
+    }
+
+    public boolean isBodyStreamed() {
+        return (bodyStream != null);
+    }
+
+    /**
+     * @return The file the streamed body is read from, null if the body does not come from a file.
+     */
+    public HTTPBodyFile bodyFile() {
+        return (bodyStream instanceof HTTPBodyFile) ? (HTTPBodyFile) bodyStream : null;
+    }
+
+    /**
+     * @return The buffer the streamed body is read from, null if the body is not held in a buffer.
+     */
+    public HTTPBodyBuffer bodyBuffer() {
+        return (bodyStream instanceof HTTPBodyBuffer) ? (HTTPBodyBuffer) bodyStream : null;
     }
 
     @Override
@@ -19,7 +53,7 @@ public class HTTPResponse extends HTTPItem {
                 "protocolVersion=" + protocolVersion +
                 ", responseStatus=" + responseStatus +
                 ", headers=" + headers +
-                ", body=" + body.getClass().getName() +
+                ", body=" + (isBodyStreamed() ? bodyStream : body.getClass().getName()) +
                 '}';
     }
 }
@@ -2,10 +2,15 @@ package com.acs.wave.router;
 
 import com.acs.wave.router.constants.ProtocolVersion;
 import com.acs.wave.router.constants.RedirectStatus;
+import com.acs.wave.router.functional.BodyStreamWriter;
 import com.acs.wave.router.functional.BodyWriter;
 import com.acs.wave.router.constants.ResponseStatus;
 import com.acs.wave.utils.ExceptionUtils;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Optional;
 
 import static com.acs.wave.router.constants.ResponseStatus.OK;
@@ -16,6 +21,7 @@ public class HTTPResponseBuilder {
     private ResponseStatus responseStatus;
     private HTTPHeaders headers;
     private byte[] body;
+    private BodyStreamWriter bodyStream;
 
     private final HTTPRequest request;
     private final HTTPRouter httpRouter;
@@ -34,7 +40,7 @@ public class HTTPResponseBuilder {
     }
 
     public HTTPResponse build() {
-        return new HTTPResponse(protocolVersion, responseStatus, headers, body);
+        return new HTTPResponse(protocolVersion, responseStatus, headers, body, bodyStream);
     }
 
     public Optional<HTTPResponse> buildOption() {
@@ -90,19 +96,105 @@ public class HTTPResponseBuilder {
         return this;
     }
 
+    /**
+     * Send an array as body. The provider sets the Content-Length header, one set by a previous body is removed.
+     *
+     * @param body The body.
+     * @return The builder.
+     */
     public HTTPResponseBuilder body(byte[] body) {
         this.body = body;
+        this.bodyStream = null;
+        headers.remove("Content-Length");
         return this;
     }
 
     public HTTPResponseBuilder body(String body) {
-        this.body = stringToBytes(body);
+        return body(stringToBytes(body));
+    }
+
+    /**
+     * Stream the body: the provider sends the response head, then calls the writer with the connection output. The
+     * body is sent chunked, a Content-Length header set by a previous body is removed.
+     *
+     * @param bodyStream The body writer.
+     * @return The builder.
+     */
+    public HTTPResponseBuilder body(BodyStreamWriter bodyStream) {
+        this.body = null;
+        this.bodyStream = bodyStream;
+        headers.remove("Content-Length");
+        return this;
+    }
+
+    /**
+     * Stream a body whose length is known, sent with a Content-Length header instead of chunked.
+     *
+     * @param bodyStream The body writer, writing exactly <code>length</code> bytes.
+     * @param length     The length of the body.
+     * @return The builder.
+     */
+    public HTTPResponseBuilder body(BodyStreamWriter bodyStream, long length) {
+        body(bodyStream);
+        header("Content-Length", length);
+        return this;
+    }
+
+    /**
+     * Send the remaining bytes of a buffer as body, without copying them when the provider allows it. Sets the
+     * Content-Length header.
+     *
+     * @param buffer The body, its position and limit are not changed.
+     * @return The builder.
+     */
+    public HTTPResponseBuilder body(ByteBuffer buffer) {
+        return body(new HTTPBodyBuffer(buffer), buffer.remaining());
+    }
+
+    /**
+     * Send a file as body, without loading it in memory. Sets the Content-Length header.
+     *
+     * @param file The file.
+     * @return The builder.
+     */
+    public HTTPResponseBuilder body(Path file) {
+        long length = 0L;
+        try {
+            length = Files.size(file);
+        } catch (IOException e) {
+            ExceptionUtils.throwRuntimeException(e);
+        }
+        return body(file, 0L, length);
+    }
+
+    /**
+     * Send a region of a file as body, without loading it in memory. Sets the Content-Length header.
+     *
+     * @param file     The file.
+     * @param position The position of the first byte to send.
+     * @param length   The number of bytes to send.
+     * @return The builder.
+     */
+    public HTTPResponseBuilder body(Path file, long position, long length) {
+        return body(new HTTPBodyFile(file, position, length), length);
+    }
+
+    /**
+     * Stream a body converted by a body writer, see {@link #body(BodyStreamWriter)}.
+     */
+    public <T> HTTPResponseBuilder streamBody(T body, BodyWriter<T> converter) {
+        body(output -> converter.write(body, output));
+
+        if (!headers.containsKey("Content-Type")) {
+            header("Content-Type", converter.contentType());
+        }
+
         return this;
     }
 
 
     public <T> HTTPResponseBuilder body(T body, BodyWriter<T> converter) {
-        this.body = converter.write(body);
+        body(converter.write(body));
 
         if (!headers.containsKey("Content-Type")) {
             header("Content-Type", converter.contentType());
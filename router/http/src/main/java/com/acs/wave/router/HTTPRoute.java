@@ -9,6 +9,7 @@ class HTTPRoute<T> {
     final String uri;
     final Set<RequestMethod> methods;
     final T handler;
+    final HTTPRouteMatcher matcher;
 
     HTTPRoute(String uri, Set<RequestMethod> methods, T handler) {
         CheckUtils.checkString("uri", uri);
@@ -18,6 +19,7 @@ class HTTPRoute<T> {
         this.uri = uri;
         this.methods = methods;
         this.handler = handler;
+        this.matcher = new HTTPRouteMatcher(uri);
     }
 
     @Override
@@ -40,11 +42,19 @@ class HTTPRoute<T> {
     }
 
     boolean canApply(HTTPRequest httpRequest) {
-        return validMethod(httpRequest) && httpRequest.address.matchUrl(this.uri);
+        return match(httpRequest) != null;
     }
 
-    private boolean validMethod(HTTPRequest httpRequest) {
-        return (methods.isEmpty()) || (methods.contains(httpRequest.method));
+    boolean canApply(RequestMethod method, String path) {
+        return validMethod(method) && matcher.matches(path);
+    }
+
+    HTTPParams match(HTTPRequest httpRequest) {
+        return validMethod(httpRequest.method) ? matcher.match(httpRequest.uri()) : null;
+    }
+
+    private boolean validMethod(RequestMethod method) {
+        return (methods.isEmpty()) || (methods.contains(method));
     }
 
     @Override
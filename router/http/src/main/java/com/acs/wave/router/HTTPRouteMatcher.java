@@ -0,0 +1,95 @@
+package com.acs.wave.router;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Immutable matcher of one route uri, compiled once when the route is registered.
+ * <p>
+ * It holds the compiled pattern, the name of the param captured by every group and the literal prefix of the route,
+ * used to reject most of the paths without running the pattern.
+ */
+final class HTTPRouteMatcher {
+
+    private static final Pattern TOKEN = Pattern.compile("\\*|\\{[^/{}+]*\\}|\\{[^/{}]*\\+\\}");
+
+    private final String prefix;
+    private final Pattern pattern;
+    private final String[] groupNames;
+
+    HTTPRouteMatcher(String routeUri) {
+        StringBuilder regex = new StringBuilder();
+        List<String> names = new ArrayList<>();
+
+        Matcher tokens = TOKEN.matcher(routeUri);
+        int last = 0;
+        int prefixEnd = -1;
+
+        while (tokens.find()) {
+            if (prefixEnd < 0) {
+                prefixEnd = tokens.start();
+            }
+            appendLiteral(regex, routeUri.substring(last, tokens.start()));
+
+            String token = tokens.group();
+            if (token.equals("*")) {
+                regex.append(".*");
+            } else if (token.endsWith("+}")) {
+                regex.append("([^{}]*)");
+                names.add(token.substring(1, token.length() - 2));
+            } else {
+                regex.append("([^/{}]*)");
+                names.add(token.substring(1, token.length() - 1));
+            }
+            last = tokens.end();
+        }
+        appendLiteral(regex, routeUri.substring(last));
+
+        this.prefix = (prefixEnd < 0) ? routeUri : routeUri.substring(0, prefixEnd);
+        this.pattern = (prefixEnd < 0) ? null : Pattern.compile(regex.toString());
+        this.groupNames = names.toArray(new String[0]);
+    }
+
+    boolean matches(String path) {
+        return match(path) != null;
+    }
+
+    /**
+     * Match a path against the route.
+     *
+     * @param path The request path.
+     * @return The path params extracted from the path, null if the path does not match the route.
+     */
+    HTTPParams match(String path) {
+        if ((path == null) || !path.startsWith(prefix)) {
+            return null;
+        }
+
+        if (pattern == null) {
+            return (path.length() == prefix.length()) ? HTTPParams.EMPTY : null;
+        }
+
+        Matcher matcher = pattern.matcher(path);
+        if (!matcher.matches()) {
+            return null;
+        }
+
+        if (groupNames.length == 0) {
+            return HTTPParams.EMPTY;
+        }
+
+        String[] values = new String[groupNames.length];
+        for (int i = 0; i < groupNames.length; i++) {
+            values[i] = matcher.group(i + 1);
+        }
+        return HTTPParams.ofPath(groupNames, values);
+    }
+
+    private static void appendLiteral(StringBuilder regex, String literal) {
+        if (!literal.isEmpty()) {
+            regex.append(Pattern.quote(literal));
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package com.acs.wave.router;
+
+import com.acs.wave.router.constants.RequestMethod;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Segment tree of routes compiled once when the router is built, so selecting a route depends on the depth of the
+ * requested path instead of on the number of registered routes.
+ * <p>
+ * Routes are split by '/' into static segments, <code>{param}</code> segments (any single segment),
+ * <code>{param+}</code> and <code>*</code> segments (the rest of the path). Routes whose segments mix literals and
+ * params, or that use a rest segment before the end, are kept aside and matched one by one. When several routes
+ * match, the last registered one wins.
+ */
+class HTTPRouteTree<T> {
+
+    private static final Pattern PARAM_SEGMENT = Pattern.compile("\\{[^/{}+]*\\}");
+    private static final Pattern PATH_PARAM_SEGMENT = Pattern.compile("\\{[^/{}]*\\+\\}");
+    private static final String WILDCARD_SEGMENT = "*";
+
+    private static final int ALL_METHODS = (1 << RequestMethod.values().length) - 1;
+
+    private final Node<T> root = new Node<>();
+    private final List<Entry<T>> unindexed = new ArrayList<>();
+
+    HTTPRouteTree(List<HTTPRoute<T>> routes) {
+        for (int i = 0; i < routes.size(); i++) {
+            add(new Entry<>(routes.get(i), i));
+        }
+    }
+
+    /**
+     * Find the route of a request.
+     *
+     * @param httpRequest The request.
+     * @return The last registered route matching the request, null if there is none.
+     */
+    HTTPRoute<T> find(HTTPRequest httpRequest) {
+        return find(httpRequest.method, httpRequest.uri());
+    }
+
+    /**
+     * Find the route of a request from its method and path, before the request itself is built.
+     *
+     * @param requestMethod The request method.
+     * @param path          The request path, without query string.
+     * @return The last registered route matching the request, null if there is none.
+     */
+    HTTPRoute<T> find(RequestMethod requestMethod, String path) {
+        int method = methodMask(requestMethod);
+
+        Entry<T> result = null;
+
+        if ((path != null) && path.startsWith("/")) {
+            result = root.find(path, 1, method, null);
+        }
+
+        for (Entry<T> entry : unindexed) {
+            if (entry.isBetterThan(result) && entry.route.canApply(requestMethod, path)) {
+                result = entry;
+            }
+        }
+
+        return (result != null) ? result.route : null;
+    }
+
+    private void add(Entry<T> entry) {
+        String uri = entry.route.uri;
+
+        if (!uri.startsWith("/")) {
+            unindexed.add(entry);
+            return;
+        }
+
+        String[] segments = uri.substring(1).split("/", -1);
+
+        for (int i = 0; i < segments.length; i++) {
+            String segment = segments[i];
+            boolean last = (i == segments.length - 1);
+
+            if (isRestSegment(segment) ? !last : (!isParamSegment(segment) && isComplexSegment(segment))) {
+                unindexed.add(entry);
+                return;
+            }
+        }
+
+        Node<T> node = root;
+        node.methods |= entry.methods;
+
+        for (int i = 0; i < segments.length; i++) {
+            String segment = segments[i];
+
+            if (isRestSegment(segment)) {
+                node.rest.add(entry);
+                return;
+            } else if (isParamSegment(segment)) {
+                if (node.param == null) {
+                    node.param = new Node<>();
+                }
+                node = node.param;
+            } else {
+                node = node.children.computeIfAbsent(segment, key -> new Node<>());
+            }
+            node.methods |= entry.methods;
+        }
+
+        node.routes.add(entry);
+    }
+
+    private static boolean isRestSegment(String segment) {
+        return WILDCARD_SEGMENT.equals(segment) || PATH_PARAM_SEGMENT.matcher(segment).matches();
+    }
+
+    private static boolean isParamSegment(String segment) {
+        return PARAM_SEGMENT.matcher(segment).matches();
+    }
+
+    private static boolean isComplexSegment(String segment) {
+        return (segment.indexOf('{') >= 0) || (segment.indexOf('}') >= 0) || (segment.indexOf('*') >= 0);
+    }
+
+    private static int methodMask(RequestMethod method) {
+        return (method != null) ? (1 << method.ordinal()) : 0;
+    }
+
+    private static final class Entry<T> {
+        final HTTPRoute<T> route;
+        final int index;
+        final int methods;
+
+        Entry(HTTPRoute<T> route, int index) {
+            this.route = route;
+            this.index = index;
+
+            int mask = 0;
+            for (RequestMethod method : route.methods) {
+                mask |= methodMask(method);
+            }
+            this.methods = route.methods.isEmpty() ? ALL_METHODS : mask;
+        }
+
+        boolean isBetterThan(Entry<T> other) {
+            return (other == null) || (index > other.index);
+        }
+
+        boolean accepts(int method) {
+            return (methods & method) != 0;
+        }
+    }
+
+    private static final class Node<T> {
+        final Map<String, Node<T>> children = new HashMap<>();
+        final List<Entry<T>> routes = new ArrayList<>();
+        final List<Entry<T>> rest = new ArrayList<>();
+        Node<T> param;
+        int methods;
+
+        /**
+         * Find the best route under this node.
+         *
+         * @param path   The requested path.
+         * @param start  The index where the current segment starts, -1 when the whole path has been consumed.
+         * @param method The request method mask.
+         * @param best   The best entry found so far.
+         * @return The best entry found after visiting this node.
+         */
+        Entry<T> find(String path, int start, int method, Entry<T> best) {
+            if ((methods & method) == 0) {
+                return best;
+            }
+
+            if (start < 0) {
+                return best(routes, method, best);
+            }
+
+            best = best(rest, method, best);
+
+            int end = path.indexOf('/', start);
+            if (end < 0) {
+                end = path.length();
+            }
+            int next = (end < path.length()) ? end + 1 : -1;
+
+            Node<T> child = children.get(path.substring(start, end));
+            if (child != null) {
+                best = child.find(path, next, method, best);
+            }
+
+            if (param != null) {
+                best = param.find(path, next, method, best);
+            }
+
+            return best;
+        }
+
+        private static <T> Entry<T> best(List<Entry<T>> entries, int method, Entry<T> best) {
+            for (Entry<T> entry : entries) {
+                if (entry.isBetterThan(best) && entry.accepts(method)) {
+                    best = entry;
+                }
+            }
+            return best;
+        }
+    }
+}
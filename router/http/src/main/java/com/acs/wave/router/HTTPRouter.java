@@ -1,11 +1,12 @@
 package com.acs.wave.router;
 
 
+import com.acs.wave.router.constants.RequestMethod;
 import com.acs.wave.router.constants.ResponseStatus;
+import com.acs.wave.router.exception.BodyTooLargeException;
 import com.acs.wave.router.exception.ParameterException;
 import com.acs.wave.router.functional.ErrorCodeHandler;
 import com.acs.wave.router.functional.ExceptionHandler;
-import com.acs.wave.router.functional.RequestFilter;
 import com.acs.wave.router.functional.RequestHandler;
 import com.acs.wave.utils.CheckUtils;
 import com.acs.wave.utils.LogLevel;
@@ -15,53 +16,115 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Collections;
-import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.function.Supplier;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 
 public class HTTPRouter {
 
     protected final Logger log = LoggerFactory.getLogger(getClass());
 
-    private final List<HTTPRoute<RequestFilter>> filters;
-    private final List<HTTPRoute<RequestHandler>> handlers;
+    private final HTTPFilterChainCache filters;
+    private final HTTPRouteTree<RequestHandler> handlers;
+    private final HTTPRouteTree<HTTPBodyPolicy> bodyPolicies;
+    private final HTTPBodyPolicy defaultBodyPolicy;
     private final Map<ResponseStatus, ErrorCodeHandler> errorCodeHandlers;
     private final ErrorCodeHandler defaultErrorCodeHandler;
     private final ExceptionHandler exceptionHandler;
+    private final boolean async;
 
-    HTTPRouter(List<HTTPRoute<RequestFilter>> filters, List<HTTPRoute<RequestHandler>> handlers, Map<ResponseStatus, ErrorCodeHandler> errorCodeHandlers, ErrorCodeHandler defaultErrorCodeHandler, ExceptionHandler exceptionHandler) {
+    HTTPRouter(HTTPFilterChainCache filters, HTTPRouteTree<RequestHandler> handlers, HTTPRouteTree<HTTPBodyPolicy> bodyPolicies, HTTPBodyPolicy defaultBodyPolicy, Map<ResponseStatus, ErrorCodeHandler> errorCodeHandlers, ErrorCodeHandler defaultErrorCodeHandler, ExceptionHandler exceptionHandler, boolean async) {
         CheckUtils.checkNull("filters", filters);
         CheckUtils.checkNull("handlers", handlers);
+        CheckUtils.checkNull("bodyPolicies", bodyPolicies);
+        CheckUtils.checkNull("defaultBodyPolicy", defaultBodyPolicy);
         CheckUtils.checkNull("errorCodeHandlers", errorCodeHandlers);
         CheckUtils.checkNull("defaultErrorCodeHandler", defaultErrorCodeHandler);
         CheckUtils.checkNull("exceptionHandler", exceptionHandler);
 
-        this.filters = Collections.unmodifiableList(filters);
-        this.handlers = Collections.unmodifiableList(handlers);
+        this.filters = filters;
+        this.handlers = handlers;
+        this.bodyPolicies = bodyPolicies;
+        this.defaultBodyPolicy = defaultBodyPolicy;
         this.errorCodeHandlers = Collections.unmodifiableMap(errorCodeHandlers);
         this.defaultErrorCodeHandler = defaultErrorCodeHandler;
         this.exceptionHandler = exceptionHandler;
+        this.async = async;
     }
 
     public HTTPResponse process(HTTPRequest httpRequest) {
         HTTPResponseBuilder responseBuilder = new HTTPResponseBuilder(httpRequest, this);
         log.debug("Request {} {}", httpRequest.method, httpRequest.uri());
-        StopWatch stopWatch = new StopWatch().start();
+        StopWatch stopWatch = log.isDebugEnabled() ? new StopWatch().start() : null;
         try {
-            return processFilters(httpRequest, responseBuilder)
-                    .orElse(processHandler(httpRequest, responseBuilder)
-                            .orElse(getErrorResponse(httpRequest, responseBuilder, ResponseStatus.NOT_FOUND)));
-        } catch (ParameterException | InvalidParameterFormatException e) {
-            log.debug("Invalid Parameter", e);
-            return getErrorResponse(httpRequest, responseBuilder, ResponseStatus.BAD_REQUEST);
+            Optional<HTTPResponse> response = processFilters(httpRequest, responseBuilder);
+
+            if (!response.isPresent()) {
+                response = processHandler(httpRequest, responseBuilder);
+            }
+
+            return response.isPresent() ? response.get() : getErrorResponse(httpRequest, responseBuilder, ResponseStatus.NOT_FOUND);
         } catch (Exception e) {
-            log.error("Error during request", e);
-            return exceptionHandler.handle(httpRequest, responseBuilder, e);
+            return getExceptionResponse(httpRequest, responseBuilder, e);
         } finally {
-            stopWatch.printElapseTime("Request " + httpRequest.method + " " + httpRequest.uri(), log, LogLevel.DEBUG);
+            if (stopWatch != null) {
+                stopWatch.printElapseTime("Request " + httpRequest.method + " " + httpRequest.uri(), log, LogLevel.DEBUG);
+            }
+        }
+    }
+
+    /**
+     * Process a request without blocking on asynchronous filters and handlers. Synchronous ones still run on the
+     * calling thread, or on the thread completing the stage they follow.
+     *
+     * @param httpRequest The request.
+     * @return The stage completed with the response.
+     */
+    public CompletionStage<HTTPResponse> processAsync(HTTPRequest httpRequest) {
+        if (!async) {
+            return CompletableFuture.completedFuture(process(httpRequest));
+        }
+
+        HTTPResponseBuilder responseBuilder = new HTTPResponseBuilder(httpRequest, this);
+        log.debug("Request {} {}", httpRequest.method, httpRequest.uri());
+        StopWatch stopWatch = log.isDebugEnabled() ? new StopWatch().start() : null;
+
+        CompletionStage<HTTPResponse> response = HTTPAsync.call(() -> filters.processAsync(httpRequest, responseBuilder))
+                .thenCompose(filterResponse -> filterResponse.isPresent() ? CompletableFuture.completedFuture(filterResponse) : processHandlerAsync(httpRequest, responseBuilder))
+                .thenApply(handlerResponse -> handlerResponse.isPresent() ? handlerResponse.get() : getErrorResponse(httpRequest, responseBuilder, ResponseStatus.NOT_FOUND))
+                .exceptionally(e -> getExceptionResponse(httpRequest, responseBuilder, HTTPAsync.unwrap(e)));
+
+        if (stopWatch != null) {
+            response = response.whenComplete((result, e) -> stopWatch.printElapseTime("Request " + httpRequest.method + " " + httpRequest.uri(), log, LogLevel.DEBUG));
         }
+
+        return response;
+    }
+
+    /**
+     * Get how the body of a request should be received. Providers call it once the request head is parsed, before
+     * reading the body.
+     *
+     * @param method The request method.
+     * @param uri    The request uri, with or without query string.
+     * @return The body policy of the last registered route matching the request, the default one if there is none.
+     */
+    public HTTPBodyPolicy bodyPolicy(RequestMethod method, String uri) {
+        HTTPRoute<HTTPBodyPolicy> httpRoute = bodyPolicies.find(method, HTTPAddress.extractPath(uri));
+        return (httpRoute != null) ? httpRoute.handler : defaultBodyPolicy;
+    }
+
+    /**
+     * Build the response of an error detected outside the router, for example by a server provider refusing a
+     * request, with the registered error code handlers.
+     *
+     * @param httpRequest    The refused request.
+     * @param responseStatus The error status.
+     * @return The error response.
+     */
+    public HTTPResponse processError(HTTPRequest httpRequest, ResponseStatus responseStatus) {
+        return getErrorResponse(httpRequest, new HTTPResponseBuilder(httpRequest, this), responseStatus);
     }
 
     HTTPResponse getErrorResponse(HTTPRequest httpRequest, HTTPResponseBuilder responseBuilder, ResponseStatus responseStatus) {
@@ -69,50 +132,61 @@ public class HTTPRouter {
         return errorCodeHandler.handle(httpRequest, responseBuilder, responseStatus);
     }
 
-    private Optional<HTTPResponse> processFilters(HTTPRequest httpRequest, HTTPResponseBuilder responseBuilder) {
-        List<HTTPRoute<RequestFilter>> httpRoutes = filters.stream()
-                .filter(httpRoute -> httpRoute.canApply(httpRequest))
-                .collect(Collectors.toList());
-
-        return getSupplier(httpRequest, responseBuilder, httpRoutes, 0).get();
-    }
+    private HTTPResponse getExceptionResponse(HTTPRequest httpRequest, HTTPResponseBuilder responseBuilder, Throwable e) {
+        if (e instanceof BodyTooLargeException) {
+            log.debug("Request body too large", e);
+            return getErrorResponse(httpRequest, responseBuilder, ResponseStatus.REQUEST_ENTITY_TOO_LARGE);
+        }
 
-    private Supplier<Optional<HTTPResponse>> getSupplier(HTTPRequest httpRequest, HTTPResponseBuilder responseBuilder, List<HTTPRoute<RequestFilter>> httpRoutes, int index) {
-        if (index < httpRoutes.size()) {
-            HTTPRoute<RequestFilter> httpRoute = httpRoutes.get(index);
-            return () -> {
-                log.trace("Filter {} {}", httpRoute.methods, httpRoute.uri);
-                StopWatch stopWatch = new StopWatch().start();
-                try {
-                    return httpRoute.handler.handle(httpRequest.ofRoute(httpRoute), responseBuilder, getSupplier(httpRequest, responseBuilder, httpRoutes, index + 1));
-                } finally {
-                    stopWatch.printElapseTime("Filter " + httpRoute.methods + " " + httpRoute.uri, log, LogLevel.TRACE);
-                }
-            };
-        } else {
-            return Optional::empty;
+        if ((e instanceof ParameterException) || (e instanceof InvalidParameterFormatException)) {
+            log.debug("Invalid Parameter", e);
+            return getErrorResponse(httpRequest, responseBuilder, ResponseStatus.BAD_REQUEST);
         }
+
+        log.error("Error during request", e);
+        return exceptionHandler.handle(httpRequest, responseBuilder, e);
     }
 
+    private Optional<HTTPResponse> processFilters(HTTPRequest httpRequest, HTTPResponseBuilder responseBuilder) {
+        return filters.process(httpRequest, responseBuilder);
+    }
 
     private Optional<HTTPResponse> processHandler(HTTPRequest httpRequest, HTTPResponseBuilder responseBuilder) {
-        Optional<HTTPRoute<RequestHandler>> handleRoute = getRequestHandler(httpRequest);
-
-        return handleRoute.flatMap(httpRoute -> {
-            log.trace("Handler {} {}", httpRoute.methods, httpRoute.uri);
-            StopWatch stopWatch = new StopWatch().start();
-            try {
-                return httpRoute.handler.handle(httpRequest.ofRoute(httpRoute), responseBuilder);
-            } finally {
-                stopWatch.printElapseTime("Handler " + httpRoute.methods + " " + httpRoute.uri, log, LogLevel.TRACE);
-            }
-        });
+        HTTPRoute<RequestHandler> httpRoute = handlers.find(httpRequest);
+
+        if (httpRoute == null) {
+            return Optional.empty();
+        }
+
+        HTTPRequest handlerRequest = httpRequest.ofRoute(httpRoute);
+
+        if (!log.isTraceEnabled()) {
+            return httpRoute.handler.handle(handlerRequest, responseBuilder);
+        }
+
+        log.trace("Handler {} {}", httpRoute.methods, httpRoute.uri);
+        StopWatch stopWatch = new StopWatch().start();
+        try {
+            return httpRoute.handler.handle(handlerRequest, responseBuilder);
+        } finally {
+            stopWatch.printElapseTime("Handler " + httpRoute.methods + " " + httpRoute.uri, log, LogLevel.TRACE);
+        }
     }
 
-    private Optional<HTTPRoute<RequestHandler>> getRequestHandler(HTTPRequest httpRequest) {
-        return handlers.stream()
-                .filter(httpRoute -> httpRoute.canApply(httpRequest))
-                .map(Optional::of)
-                .reduce(Optional.empty(), (a, b) -> b);
+    private CompletionStage<Optional<HTTPResponse>> processHandlerAsync(HTTPRequest httpRequest, HTTPResponseBuilder responseBuilder) {
+        HTTPRoute<RequestHandler> httpRoute = handlers.find(httpRequest);
+
+        if (httpRoute == null) {
+            return CompletableFuture.completedFuture(Optional.empty());
+        }
+
+        HTTPRequest handlerRequest = httpRequest.ofRoute(httpRoute);
+        log.trace("Handler {} {}", httpRoute.methods, httpRoute.uri);
+
+        if (httpRoute.handler instanceof AsyncRequestHandlerAdapter) {
+            return ((AsyncRequestHandlerAdapter) httpRoute.handler).handler.handle(handlerRequest, responseBuilder);
+        }
+
+        return CompletableFuture.completedFuture(httpRoute.handler.handle(handlerRequest, responseBuilder));
     }
-}
\ No newline at end of file
+}
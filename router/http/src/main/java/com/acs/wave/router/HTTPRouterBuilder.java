@@ -2,6 +2,8 @@ package com.acs.wave.router;
 
 import com.acs.wave.router.constants.RequestMethod;
 import com.acs.wave.router.constants.ResponseStatus;
+import com.acs.wave.router.functional.AsyncRequestFilter;
+import com.acs.wave.router.functional.AsyncRequestHandler;
 import com.acs.wave.router.functional.ErrorCodeHandler;
 import com.acs.wave.router.functional.ExceptionHandler;
 import com.acs.wave.router.functional.RequestFilter;
@@ -15,6 +17,8 @@ public class HTTPRouterBuilder {
 
     protected final List<HTTPRoute<RequestFilter>> filters = new ArrayList<>();
     protected final List<HTTPRoute<RequestHandler>> handlers = new ArrayList<>();
+    protected final List<HTTPRoute<HTTPBodyPolicy>> bodyPolicies = new ArrayList<>();
+    protected HTTPBodyPolicy defaultBodyPolicy;
     protected final Map<ResponseStatus, ErrorCodeHandler> errorCodeHandlers = new HashMap<>();
     protected ErrorCodeHandler defaultErrorCodeHandler;
     protected ExceptionHandler exceptionHandler;
@@ -22,10 +26,13 @@ public class HTTPRouterBuilder {
     public HTTPRouterBuilder() {
         exceptionHandler(null);
         defaultErrorCodeHandler(null);
+        defaultBodyPolicy(null);
     }
 
     public HTTPRouter build() {
-        return new HTTPRouter(filters, handlers, errorCodeHandlers, defaultErrorCodeHandler, exceptionHandler);
+        boolean async = filters.stream().anyMatch(route -> route.handler instanceof AsyncRequestFilterAdapter)
+                || handlers.stream().anyMatch(route -> route.handler instanceof AsyncRequestHandlerAdapter);
+        return new HTTPRouter(new HTTPFilterChainCache(filters), new HTTPRouteTree<>(handlers), new HTTPRouteTree<>(bodyPolicies), defaultBodyPolicy, errorCodeHandlers, defaultErrorCodeHandler, exceptionHandler, async);
     }
 
     public HTTPRouterBuilder exceptionHandler(ExceptionHandler exceptionHandler) {
@@ -46,6 +53,33 @@ public class HTTPRouterBuilder {
         return this;
     }
 
+    /**
+     * Set how request bodies are received when no body policy route matches. Bodies are aggregated up to
+     * {@link HTTPBodyPolicy#DEFAULT_MAX_SIZE} bytes by default.
+     *
+     * @param defaultBodyPolicy The body policy, null for the default one.
+     * @return The builder.
+     */
+    public HTTPRouterBuilder defaultBodyPolicy(HTTPBodyPolicy defaultBodyPolicy) {
+        this.defaultBodyPolicy = (defaultBodyPolicy != null) ? defaultBodyPolicy : HTTPBodyPolicy.aggregated();
+        return this;
+    }
+
+    /**
+     * Set how the bodies of the requests matching a route are received, for example to stream large uploads or to
+     * lower the size limit of an endpoint. When several routes match, the last registered one wins.
+     *
+     * @param url        The route.
+     * @param bodyPolicy The body policy.
+     * @param methods    The methods the policy applies to, all of them if none is given.
+     * @return The builder.
+     */
+    public HTTPRouterBuilder bodyPolicy(String url, HTTPBodyPolicy bodyPolicy, RequestMethod... methods) {
+        HTTPRoute<HTTPBodyPolicy> httpRoute = new HTTPRoute<>(url, toSet(methods), bodyPolicy);
+        bodyPolicies.remove(httpRoute);
+        bodyPolicies.add(httpRoute);
+        return this;
+    }
 
     public HTTPRouterBuilder options(String url, RequestFilter filter) {
         return filter(url, filter, RequestMethod.OPTIONS);
@@ -132,6 +166,86 @@ public class HTTPRouterBuilder {
         return this;
     }
 
+    public HTTPRouterBuilder optionsAsync(String url, AsyncRequestFilter filter) {
+        return filterAsync(url, filter, RequestMethod.OPTIONS);
+    }
+
+    public HTTPRouterBuilder optionsAsync(String url, AsyncRequestHandler handler) {
+        return handlerAsync(url, handler, RequestMethod.OPTIONS);
+    }
+
+    public HTTPRouterBuilder getAsync(String url, AsyncRequestFilter filter) {
+        return filterAsync(url, filter, RequestMethod.GET);
+    }
+
+    public HTTPRouterBuilder getAsync(String url, AsyncRequestHandler handler) {
+        return handlerAsync(url, handler, RequestMethod.GET);
+    }
+
+    public HTTPRouterBuilder headAsync(String url, AsyncRequestFilter filter) {
+        return filterAsync(url, filter, RequestMethod.HEAD);
+    }
+
+    public HTTPRouterBuilder headAsync(String url, AsyncRequestHandler handler) {
+        return handlerAsync(url, handler, RequestMethod.HEAD);
+    }
+
+    public HTTPRouterBuilder postAsync(String url, AsyncRequestFilter filter) {
+        return filterAsync(url, filter, RequestMethod.POST);
+    }
+
+    public HTTPRouterBuilder postAsync(String url, AsyncRequestHandler handler) {
+        return handlerAsync(url, handler, RequestMethod.POST);
+    }
+
+    public HTTPRouterBuilder putAsync(String url, AsyncRequestFilter filter) {
+        return filterAsync(url, filter, RequestMethod.PUT);
+    }
+
+    public HTTPRouterBuilder putAsync(String url, AsyncRequestHandler handler) {
+        return handlerAsync(url, handler, RequestMethod.PUT);
+    }
+
+    public HTTPRouterBuilder patchAsync(String url, AsyncRequestFilter filter) {
+        return filterAsync(url, filter, RequestMethod.PATCH);
+    }
+
+    public HTTPRouterBuilder patchAsync(String url, AsyncRequestHandler handler) {
+        return handlerAsync(url, handler, RequestMethod.PATCH);
+    }
+
+    public HTTPRouterBuilder deleteAsync(String url, AsyncRequestFilter filter) {
+        return filterAsync(url, filter, RequestMethod.DELETE);
+    }
+
+    public HTTPRouterBuilder deleteAsync(String url, AsyncRequestHandler handler) {
+        return handlerAsync(url, handler, RequestMethod.DELETE);
+    }
+
+    public HTTPRouterBuilder traceAsync(String url, AsyncRequestFilter filter) {
+        return filterAsync(url, filter, RequestMethod.TRACE);
+    }
+
+    public HTTPRouterBuilder traceAsync(String url, AsyncRequestHandler handler) {
+        return handlerAsync(url, handler, RequestMethod.TRACE);
+    }
+
+    public HTTPRouterBuilder connectAsync(String url, AsyncRequestFilter filter) {
+        return filterAsync(url, filter, RequestMethod.CONNECT);
+    }
+
+    public HTTPRouterBuilder connectAsync(String url, AsyncRequestHandler handler) {
+        return handlerAsync(url, handler, RequestMethod.CONNECT);
+    }
+
+    public HTTPRouterBuilder filterAsync(String url, AsyncRequestFilter filter, RequestMethod... methods) {
+        return filter(url, new AsyncRequestFilterAdapter(filter), methods);
+    }
+
+    public HTTPRouterBuilder handlerAsync(String url, AsyncRequestHandler handler, RequestMethod... methods) {
+        return handler(url, new AsyncRequestHandlerAdapter(handler), methods);
+    }
+
     public HTTPRouterBuilder removeFilter(String url, RequestMethod method) {
         List<HTTPRoute<RequestFilter>> toRemove = filters.stream()
                 .filter(httpRoute -> httpRoute.uri.equalsIgnoreCase(url) && httpRoute.methods.contains(method))
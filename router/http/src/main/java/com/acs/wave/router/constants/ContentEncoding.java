@@ -0,0 +1,68 @@
+package com.acs.wave.router.constants;
+
+import com.acs.wave.router.HTTPHeaders;
+
+import java.util.List;
+
+/**
+ * Content codings the router can send, in order of preference.
+ */
+public enum ContentEncoding {
+    BROTLI("br", ".br"),
+    GZIP("gzip", ".gz");
+
+    /**
+     * The token of the Accept-Encoding and Content-Encoding headers.
+     */
+    public final String token;
+    /**
+     * The extension of precompressed sibling files.
+     */
+    public final String extension;
+
+    ContentEncoding(String token, String extension) {
+        this.token = token;
+        this.extension = extension;
+    }
+
+    /**
+     * Check whether a request accepts this coding: listed with a non-zero quality, or covered by <code>*</code>.
+     *
+     * @param headers The request headers.
+     * @return True if the coding is accepted.
+     */
+    public boolean isAccepted(HTTPHeaders headers) {
+        List<String> acceptEncodings = headers.get("Accept-Encoding", String.class);
+        Boolean wildcard = null;
+
+        for (String acceptEncoding : acceptEncodings) {
+            for (String coding : acceptEncoding.split(",")) {
+                String[] parts = coding.split(";");
+                String name = parts[0].trim();
+
+                if (name.equalsIgnoreCase(token)) {
+                    return getQuality(parts) > 0;
+                } else if ("*".equals(name)) {
+                    wildcard = getQuality(parts) > 0;
+                }
+            }
+        }
+
+        return Boolean.TRUE.equals(wildcard);
+    }
+
+    private static double getQuality(String[] parts) {
+        for (int i = 1; i < parts.length; i++) {
+            String parameter = parts[i].trim();
+
+            if (parameter.startsWith("q=")) {
+                try {
+                    return Double.parseDouble(parameter.substring(2));
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+}
@@ -0,0 +1,8 @@
+package com.acs.wave.router.exception;
+
+public class BodyTooLargeException extends BadRequestException {
+
+    public BodyTooLargeException(long maxSize) {
+        super("Request body larger than " + maxSize + " bytes");
+    }
+}
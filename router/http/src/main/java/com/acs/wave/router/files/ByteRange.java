@@ -0,0 +1,91 @@
+package com.acs.wave.router.files;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Range of bytes requested with a <code>Range</code> header, bounds included.
+ */
+final class ByteRange {
+
+    static final int MAX_RANGES = 16;
+
+    private static final String BYTES_UNIT = "bytes=";
+
+    final long start;
+    final long end;
+
+    ByteRange(long start, long end) {
+        this.start = start;
+        this.end = end;
+    }
+
+    long length() {
+        return end - start + 1;
+    }
+
+    String contentRange(long totalLength) {
+        return "bytes " + start + "-" + end + "/" + totalLength;
+    }
+
+    /**
+     * Parse a <code>Range</code> header.
+     *
+     * @param header      The header value.
+     * @param totalLength The length of the file.
+     * @return The satisfiable ranges, empty if there is none. Null if the header is invalid or asks for more than
+     * {@link #MAX_RANGES} ranges, the whole file is then sent.
+     */
+    static List<ByteRange> parse(String header, long totalLength) {
+        if (!header.regionMatches(true, 0, BYTES_UNIT, 0, BYTES_UNIT.length())) {
+            return null;
+        }
+
+        String[] specs = header.substring(BYTES_UNIT.length()).split(",");
+        if (specs.length > MAX_RANGES) {
+            return null;
+        }
+
+        List<ByteRange> result = new ArrayList<>(specs.length);
+        for (String spec : specs) {
+            spec = spec.trim();
+            int dash = spec.indexOf('-');
+
+            if (dash < 0) {
+                return null;
+            }
+
+            try {
+                if (dash == 0) {
+                    // suffix: the last n bytes
+                    long suffixLength = Long.parseLong(spec.substring(1));
+
+                    if ((suffixLength > 0) && (totalLength > 0)) {
+                        result.add(new ByteRange(Math.max(0, totalLength - suffixLength), totalLength - 1));
+                    }
+                } else {
+                    long start = Long.parseLong(spec.substring(0, dash));
+                    long end = (dash == spec.length() - 1) ? Long.MAX_VALUE : Long.parseLong(spec.substring(dash + 1));
+
+                    if ((start < 0) || (end < start)) {
+                        return null;
+                    }
+
+                    if (start < totalLength) {
+                        result.add(new ByteRange(start, Math.min(end, totalLength - 1)));
+                    }
+                }
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+
+        return result.isEmpty() ? Collections.emptyList() : result;
+    }
+
+    @Override
+    public String toString() {
+        return start + "-" + end;
+    }
+}
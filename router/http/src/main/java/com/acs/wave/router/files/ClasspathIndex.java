@@ -0,0 +1,193 @@
+package com.acs.wave.router.files;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.stream.Stream;
+
+/**
+ * Index of the files of a classpath folder, listed once so that looking a file up, or answering that it does not
+ * exist, does not go through the class loader. Files added to the classpath afterwards are not seen.
+ */
+public final class ClasspathIndex {
+
+    private final Map<String, Long> sizes;
+
+    private ClasspathIndex(Map<String, Long> sizes) {
+        this.sizes = sizes;
+    }
+
+    /**
+     * List the files of a folder, in the directories and jars of a class loader. When a file is in several of them,
+     * the one found first is indexed, as {@link ClassLoader#getResource(String)} does.
+     * <p>
+     * Jars do not always hold entries for their directories, and {@link ClassLoader#getResources(String)} does not
+     * find the folder in those. The roots of the class loader are therefore listed from its class path, the URLs of
+     * the {@link URLClassLoader}s of its hierarchy, the directory entries of the folder and the manifests of its jars,
+     * and each root is searched for the files of the folder.
+     *
+     * @param classLoader The class loader.
+     * @param baseFolder  The folder, without leading or trailing slash.
+     * @return The index.
+     */
+    public static ClasspathIndex scan(ClassLoader classLoader, String baseFolder) {
+        Map<String, Long> sizes = new HashMap<>();
+
+        try {
+            for (URL root : getRoots(classLoader, baseFolder)) {
+                if (root.getProtocol().equals("jar")) {
+                    scanJar(root, baseFolder, sizes);
+                } else {
+                    Path folder = Paths.get(root.toURI()).resolve(baseFolder);
+                    if (Files.isDirectory(folder)) {
+                        scanDirectory(folder, baseFolder, sizes);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to index classpath folder " + baseFolder, e);
+        } catch (URISyntaxException e) {
+            throw new IllegalArgumentException("Invalid classpath folder " + baseFolder, e);
+        }
+
+        return new ClasspathIndex(sizes);
+    }
+
+    /**
+     * @param resource The resource name, as passed to {@link ClassLoader#getResource(String)}.
+     */
+    public boolean contains(String resource) {
+        return sizes.containsKey(resource);
+    }
+
+    /**
+     * @return The size of the resource, -1 if it is not indexed.
+     */
+    public long size(String resource) {
+        return sizes.getOrDefault(resource, -1L);
+    }
+
+    /**
+     * @return The number of indexed files.
+     */
+    public int size() {
+        return sizes.size();
+    }
+
+    /**
+     * @return The directories and jars of the class loader, as <code>file:</code> and <code>jar:...!/</code> URLs,
+     * the ones searched first by the class loader first as far as it can be told.
+     */
+    private static Collection<URL> getRoots(ClassLoader classLoader, String baseFolder) throws IOException, URISyntaxException {
+        Map<String, URL> roots = new LinkedHashMap<>();
+
+        // parents are searched first
+        Deque<ClassLoader> hierarchy = new ArrayDeque<>();
+        for (ClassLoader loader = classLoader; loader != null; loader = loader.getParent()) {
+            hierarchy.push(loader);
+        }
+
+        for (ClassLoader loader : hierarchy) {
+            if (loader == ClassLoader.getSystemClassLoader()) {
+                for (String entry : System.getProperty("java.class.path", "").split(File.pathSeparator)) {
+                    if (!entry.isEmpty()) {
+                        addRoot(Paths.get(entry), roots);
+                    }
+                }
+            }
+            if (loader instanceof URLClassLoader) {
+                for (URL url : ((URLClassLoader) loader).getURLs()) {
+                    if (url.getProtocol().equals("file")) {
+                        addRoot(Paths.get(url.toURI()), roots);
+                    }
+                }
+            }
+        }
+
+        // roots of other class loaders, found through the folder when it has a directory entry, or through manifests
+        String[] segments = baseFolder.split("/");
+        addResourceRoots(classLoader.getResources(baseFolder), segments.length, roots);
+        addResourceRoots(classLoader.getResources(JarFile.MANIFEST_NAME), 2, roots);
+
+        return roots.values();
+    }
+
+    private static void addResourceRoots(Enumeration<URL> resources, int depth, Map<String, URL> roots) throws IOException, URISyntaxException {
+        while (resources.hasMoreElements()) {
+            URL resource = resources.nextElement();
+
+            if (resource.getProtocol().equals("jar")) {
+                URL jar = ((JarURLConnection) resource.openConnection()).getJarFileURL();
+                if (jar.getProtocol().equals("file")) {
+                    addRoot(Paths.get(jar.toURI()), roots);
+                } else {
+                    String url = resource.toString();
+                    String root = url.substring(0, url.lastIndexOf("!/") + 2);
+                    roots.putIfAbsent(root, new URL(root));
+                }
+            } else if (resource.getProtocol().equals("file")) {
+                Path root = Paths.get(resource.toURI());
+                for (int i = 0; (i < depth) && (root != null); i++) {
+                    root = root.getParent();
+                }
+                if (root != null) {
+                    addRoot(root, roots);
+                }
+            }
+        }
+    }
+
+    private static void addRoot(Path path, Map<String, URL> roots) throws IOException {
+        Path root = path.toAbsolutePath().normalize();
+
+        if (Files.isDirectory(root)) {
+            URL url = root.toUri().toURL();
+            roots.putIfAbsent(url.toString(), url);
+        } else if (Files.isRegularFile(root)) {
+            URL url = new URL("jar:" + root.toUri().toURL() + "!/");
+            roots.putIfAbsent(url.toString(), url);
+        }
+    }
+
+    private static void scanJar(URL root, String baseFolder, Map<String, Long> sizes) throws IOException {
+        JarURLConnection connection = (JarURLConnection) root.openConnection();
+        connection.setUseCaches(false);
+        String prefix = baseFolder + "/";
+
+        try (JarFile jar = connection.getJarFile()) {
+            Enumeration<JarEntry> entries = jar.entries();
+            while (entries.hasMoreElements()) {
+                JarEntry entry = entries.nextElement();
+
+                if (!entry.isDirectory() && entry.getName().startsWith(prefix)) {
+                    sizes.putIfAbsent(entry.getName(), entry.getSize());
+                }
+            }
+        }
+    }
+
+    private static void scanDirectory(Path folder, String baseFolder, Map<String, Long> sizes) throws IOException {
+        try (Stream<Path> files = Files.walk(folder)) {
+            files.filter(Files::isRegularFile).forEach(file -> {
+                String resource = baseFolder + "/" + folder.relativize(file).toString().replace(File.separatorChar, '/');
+                sizes.putIfAbsent(resource, file.toFile().length());
+            });
+        }
+    }
+}
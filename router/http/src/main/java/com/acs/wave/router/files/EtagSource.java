@@ -0,0 +1,102 @@
+package com.acs.wave.router.files;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.attribute.BasicFileAttributes;
+
+/**
+ * What an {@link EtagStrategy} knows about a file: its attributes, read once, and a way to read its content for the
+ * strategies hashing it.
+ */
+public final class EtagSource {
+
+    /**
+     * The path of the file: relative to the served folder for the filesystem, the resource name for the classpath.
+     */
+    public final String name;
+    /**
+     * The size of the file, -1 if unknown.
+     */
+    public final long length;
+    /**
+     * The last modification time of the file in milliseconds, 0 if unknown.
+     */
+    public final long lastModified;
+    /**
+     * An object identifying the file on its file system, its inode on Unix, null if unknown.
+     */
+    public final Object fileKey;
+
+    private final Opener opener;
+
+    EtagSource(String name, long length, long lastModified, Object fileKey, Opener opener) {
+        this.name = name;
+        this.length = length;
+        this.lastModified = lastModified;
+        this.fileKey = fileKey;
+        this.opener = opener;
+    }
+
+    /**
+     * @return A stream on the content of the file, closed by the caller.
+     */
+    public InputStream open() throws IOException {
+        return opener.open();
+    }
+
+    /**
+     * Source of a file of the filesystem, its attributes read in a single call.
+     *
+     * @param content The content of the file if it is held in memory, hashed without reading the file again.
+     */
+    static EtagSource of(String name, File file, FileContent content) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(file.toPath(), BasicFileAttributes.class);
+        Opener opener = (content != null) ? () -> new BufferInputStream(content.content()) : () -> new FileInputStream(file);
+        return new EtagSource(name, attributes.size(), attributes.lastModifiedTime().toMillis(), attributes.fileKey(), opener);
+    }
+
+    /**
+     * Source of a classpath resource, whose modification time is unknown.
+     *
+     * @param length The size of the resource if it is indexed, -1 otherwise.
+     */
+    static EtagSource of(String resource, ClassLoader classLoader, FileContent content, long length) {
+        if (content != null) {
+            return new EtagSource(resource, content.size(), 0L, null, () -> new BufferInputStream(content.content()));
+        }
+        return new EtagSource(resource, length, 0L, null, () -> classLoader.getResourceAsStream(resource));
+    }
+
+    @FunctionalInterface
+    interface Opener {
+        InputStream open() throws IOException;
+    }
+
+    private static final class BufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        private BufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? (buffer.get() & 0xFF) : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int read = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, read);
+            return read;
+        }
+    }
+}
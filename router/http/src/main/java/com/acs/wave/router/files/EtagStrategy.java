@@ -0,0 +1,50 @@
+package com.acs.wave.router.files;
+
+import java.io.IOException;
+
+/**
+ * How the ETag of a static file is computed, once per file info load. The ETag is returned as sent in the header,
+ * quoted and prefixed with <code>W/</code> when weak.
+ */
+@FunctionalInterface
+public interface EtagStrategy {
+
+    /**
+     * Resource listing the content hashes of classpath resources, computed when the application is built: one
+     * <code>resource=hash</code> line per resource, the resource named as passed to
+     * {@link ClassLoader#getResource(String)}. The <code>gradle/asset-manifest.gradle</code> script of the project
+     * writes it.
+     */
+    String MANIFEST = "META-INF/wave/etags.properties";
+
+    /**
+     * @param source The file.
+     * @return The ETag, null to send none.
+     */
+    String etag(EtagSource source) throws IOException;
+
+    /**
+     * Weak ETag built from the size, the modification time and the inode of the file, without reading it. Files
+     * whose size or modification time is unknown, as classpath resources, get no ETag.
+     */
+    static EtagStrategy weak() {
+        return WeakEtagStrategy.INSTANCE;
+    }
+
+    /**
+     * Strong ETag built from the MD5 of the content, which is read entirely on every file info load.
+     */
+    static EtagStrategy md5() {
+        return Md5EtagStrategy.INSTANCE;
+    }
+
+    /**
+     * Strong ETag read from the {@link #MANIFEST} of a class loader, loaded once.
+     *
+     * @param classLoader The class loader holding the manifest.
+     * @param fallback    The strategy of the resources missing from the manifest.
+     */
+    static EtagStrategy manifest(ClassLoader classLoader, EtagStrategy fallback) {
+        return new ManifestEtagStrategy(classLoader, MANIFEST, fallback);
+    }
+}
@@ -0,0 +1,98 @@
+package com.acs.wave.router.files;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Content of a static file held by a {@link FileContentCache}.
+ */
+final class FileContent {
+
+    private final ByteBuffer buffer;
+    private final long lastModified;
+    private final long fileLength;
+    private final boolean mapped;
+
+    private FileContent(ByteBuffer buffer, long lastModified, long fileLength, boolean mapped) {
+        this.buffer = buffer.asReadOnlyBuffer();
+        this.lastModified = lastModified;
+        this.fileLength = fileLength;
+        this.mapped = mapped;
+    }
+
+    /**
+     * @return A view of the content, whose position and limit can be changed freely.
+     */
+    ByteBuffer content() {
+        return buffer.duplicate();
+    }
+
+    long size() {
+        return buffer.capacity();
+    }
+
+    /**
+     * @return True if the file is mapped in memory, false if it was copied to a direct buffer.
+     */
+    boolean isMapped() {
+        return mapped;
+    }
+
+    /**
+     * @return True if the file changed since it was read.
+     */
+    boolean isStale(File file) {
+        return (lastModified != file.lastModified()) || (fileLength != file.length());
+    }
+
+    /**
+     * Read a file in a direct buffer, or map it in memory when it has at least <code>mappedThreshold</code> bytes.
+     */
+    static FileContent read(File file, long mappedThreshold) throws IOException {
+        long lastModified = file.lastModified();
+        Path path = file.toPath();
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long length = channel.size();
+            ByteBuffer buffer;
+            boolean mapped = (length >= mappedThreshold);
+
+            if (mapped) {
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0L, length);
+            } else {
+                buffer = ByteBuffer.allocateDirect((int) length);
+                while (buffer.hasRemaining() && (channel.read(buffer) > -1)) {
+                    // read until the end of the file
+                }
+                buffer.flip();
+            }
+
+            return new FileContent(buffer, lastModified, length, mapped);
+        }
+    }
+
+    /**
+     * Read a classpath resource in a direct buffer.
+     */
+    static FileContent read(InputStream input) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        byte[] chunk = new byte[8192];
+        int read;
+
+        while ((read = input.read(chunk)) > -1) {
+            out.write(chunk, 0, read);
+        }
+
+        byte[] bytes = out.toByteArray();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length);
+        buffer.put(bytes).flip();
+        return new FileContent(buffer, 0L, bytes.length, false);
+    }
+}
@@ -0,0 +1,142 @@
+package com.acs.wave.router.files;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Content of static files kept in memory within a byte budget, least recently used files being evicted first. Files
+ * are held in direct buffers, or memory-mapped from a size threshold, so that cached content stays off the Java heap.
+ * Files larger than the budget are never cached. One cache can be shared by several file filters, they then share
+ * its budget.
+ */
+public final class FileContentCache {
+
+    public static final long DEFAULT_MAPPED_THRESHOLD = 256L * 1024L;
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    private final long maxSize;
+    private final long mappedThreshold;
+
+    private final Map<String, FileContent> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long size;
+
+    public FileContentCache(long maxSize) {
+        this(maxSize, DEFAULT_MAPPED_THRESHOLD);
+    }
+
+    /**
+     * @param maxSize         The budget in bytes.
+     * @param mappedThreshold The size from which files are memory-mapped instead of copied to a direct buffer.
+     */
+    public FileContentCache(long maxSize, long mappedThreshold) {
+        if (maxSize < 0) {
+            throw new IllegalArgumentException("maxSize must not be negative");
+        }
+        if (mappedThreshold < 0) {
+            throw new IllegalArgumentException("mappedThreshold must not be negative");
+        }
+
+        this.maxSize = maxSize;
+        this.mappedThreshold = mappedThreshold;
+    }
+
+    /**
+     * @return The number of bytes held.
+     */
+    public synchronized long size() {
+        return size;
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        size = 0L;
+    }
+
+    /**
+     * Get the content of a file, read again if it changed since it was cached.
+     *
+     * @return The content, null if the file is too large to be cached or cannot be read.
+     */
+    FileContent get(File file) {
+        String key = file.getAbsolutePath();
+        FileContent content = get(key);
+
+        if ((content != null) && !content.isStale(file)) {
+            return content;
+        }
+
+        if (file.length() > maxSize) {
+            remove(key);
+            return null;
+        }
+
+        try {
+            return put(key, FileContent.read(file, mappedThreshold));
+        } catch (IOException e) {
+            log.info("Unable to read file", e);
+            remove(key);
+            return null;
+        }
+    }
+
+    /**
+     * Get the content of a classpath resource, which is never read again once cached.
+     *
+     * @return The content, not cached if it is too large. Null if the resource cannot be read.
+     */
+    FileContent get(String resource, ClassLoader classLoader) {
+        String key = "classpath:" + resource;
+        FileContent content = get(key);
+
+        if (content != null) {
+            return content;
+        }
+
+        try (InputStream input = classLoader.getResourceAsStream(resource)) {
+            if (input == null) {
+                return null;
+            }
+
+            content = FileContent.read(input);
+        } catch (IOException e) {
+            log.info("Unable to read file", e);
+            return null;
+        }
+
+        return (content.size() <= maxSize) ? put(key, content) : content;
+    }
+
+    synchronized void remove(String key) {
+        FileContent previous = entries.remove(key);
+
+        if (previous != null) {
+            size -= previous.size();
+        }
+    }
+
+    private synchronized FileContent get(String key) {
+        return entries.get(key);
+    }
+
+    private synchronized FileContent put(String key, FileContent content) {
+        remove(key);
+
+        Iterator<FileContent> eldest = entries.values().iterator();
+        while ((size + content.size() > maxSize) && eldest.hasNext()) {
+            size -= eldest.next().size();
+            eldest.remove();
+        }
+
+        entries.put(key, content);
+        size += content.size();
+        return content;
+    }
+}
@@ -1,10 +1,13 @@
 package com.acs.wave.router.files;
 
+import com.acs.wave.router.HTTPHeaders;
 import com.acs.wave.router.HTTPRequest;
 import com.acs.wave.router.HTTPResponse;
 import com.acs.wave.router.HTTPResponseBuilder;
+import com.acs.wave.router.constants.ContentEncoding;
 import com.acs.wave.router.constants.ResponseStatus;
 import com.acs.wave.router.functional.RequestFilter;
+import com.acs.wave.utils.CheckUtils;
 import com.acs.wave.utils.cache.CacheMap;
 import com.acs.wave.utils.cache.CacheMapBuilder;
 import org.slf4j.Logger;
@@ -13,11 +16,14 @@ import org.slf4j.LoggerFactory;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.math.BigInteger;
 import java.net.URLConnection;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
-import java.text.SimpleDateFormat;
+import java.nio.ByteBuffer;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
@@ -26,17 +32,66 @@ abstract class FileFilter implements RequestFilter {
 
     protected final Logger log = LoggerFactory.getLogger(getClass());
 
-    public static final SimpleDateFormat DATE_FORMATTER = new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss zzz");
+    // HTTP-date of the Last-Modified header, always in GMT and thread safe, RFC_1123_DATE_TIME would not pad the day
+    static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("EEE, dd MMM yyyy HH:mm:ss 'GMT'", Locale.ENGLISH).withZone(ZoneOffset.UTC);
 
     private final boolean cache;
+    protected final FileContentCache contentCache;
+    protected final EtagStrategy etagStrategy;
 
-    private final CacheMap<String, FileInfo> fileInfoCache = new CacheMapBuilder<String, FileInfo>()
-            .withTimeout(1L, TimeUnit.MINUTES)
-            .withProvider(key -> getFileInfo(key).orElse(null))
-            .build();
+    // replaced by an expiring cache when changes cannot be watched anymore
+    private volatile CacheMap<String, FileInfo> fileInfoCache;
 
     protected FileFilter(boolean cache) {
+        this(cache, null);
+    }
+
+    /**
+     * @param cache        True to answer conditional requests with 304 Not Modified.
+     * @param contentCache The cache holding file contents in memory, null to read them on every request.
+     */
+    protected FileFilter(boolean cache, FileContentCache contentCache) {
+        this(cache, contentCache, true);
+    }
+
+    /**
+     * @param cache        True to answer conditional requests with 304 Not Modified.
+     * @param contentCache The cache holding file contents in memory, null to read them on every request.
+     * @param expire       True to load file infos again after a minute, false to keep them until they are
+     *                     invalidated.
+     */
+    protected FileFilter(boolean cache, FileContentCache contentCache, boolean expire) {
+        this(cache, contentCache, expire, EtagStrategy.weak());
+    }
+
+    /**
+     * @param cache        True to answer conditional requests with 304 Not Modified.
+     * @param contentCache The cache holding file contents in memory, null to read them on every request.
+     * @param expire       True to load file infos again after a minute, false to keep them until they are
+     *                     invalidated.
+     * @param etagStrategy How ETags are computed when file infos are loaded.
+     */
+    protected FileFilter(boolean cache, FileContentCache contentCache, boolean expire, EtagStrategy etagStrategy) {
+        CheckUtils.checkNull("etagStrategy", etagStrategy);
+
         this.cache = cache;
+        this.contentCache = contentCache;
+        this.etagStrategy = etagStrategy;
+        this.fileInfoCache = buildFileInfoCache(expire);
+    }
+
+    private CacheMap<String, FileInfo> buildFileInfoCache(boolean expire) {
+        CacheMapBuilder<String, FileInfo> fileInfoCacheBuilder = new CacheMapBuilder<String, FileInfo>()
+                .withProvider(key -> getFileInfo(key).map(fileInfo -> addEncodings(key, fileInfo)).orElse(null))
+                // probes of missing files are answered without looking for them again for a minute, unless the
+                // file is created in a watched folder
+                .withMissTimeout(1L, TimeUnit.MINUTES);
+
+        if (expire) {
+            fileInfoCacheBuilder.withTimeout(1L, TimeUnit.MINUTES);
+        }
+
+        return fileInfoCacheBuilder.build();
     }
 
     @Override
@@ -46,20 +101,25 @@ abstract class FileFilter implements RequestFilter {
         FileInfo fileInfo = fileInfoCache.get(uri);
 
         if (fileInfo != null) {
-            responseBuilder.header("Content-Type", fileInfo.contentType);
+            responseBuilder.header("Accept-Ranges", "bytes");
+
+            if (!fileInfo.encodings.isEmpty()) {
+                responseBuilder.header("Vary", "Accept-Encoding");
+                fileInfo = getEncoded(request, responseBuilder, fileInfo);
+            }
 
             if (fileInfo.etag != null) {
                 responseBuilder.header("ETag", fileInfo.etag);
             }
 
             if (fileInfo.lastModified != null) {
-                responseBuilder.header("Last-Modified", DATE_FORMATTER.format(fileInfo.lastModified));
+                responseBuilder.header("Last-Modified", DATE_FORMATTER.format(fileInfo.lastModified.toInstant()));
             }
 
             if ((!cache) || fileInfo.isModified(request.headers)) {
-                responseBuilder.body(fileInfo.content());
-                return responseBuilder.buildOption();
+                return getContentResponse(request, responseBuilder, fileInfo);
             } else {
+                responseBuilder.header("Content-Type", fileInfo.contentType);
                 return responseBuilder.errorOption(ResponseStatus.NOT_MODIFIED);
             }
 
@@ -67,8 +127,137 @@ abstract class FileFilter implements RequestFilter {
         return nextJump.get();
     }
 
+    /**
+     * Look for precompressed siblings of a file, <code>app.js.br</code> or <code>app.js.gz</code> for
+     * <code>app.js</code>, once when the file info is loaded.
+     */
+    private FileInfo addEncodings(String uri, FileInfo fileInfo) {
+        for (ContentEncoding encoding : ContentEncoding.values()) {
+            getFileInfo(uri + encoding.extension).ifPresent(encoded -> fileInfo.encodings.put(encoding, encoded));
+        }
+        return fileInfo;
+    }
+
+    /**
+     * @return The precompressed sibling preferred by the client, sent with the content type of the file, or the file
+     * itself if there is none.
+     */
+    private FileInfo getEncoded(HTTPRequest request, HTTPResponseBuilder responseBuilder, FileInfo fileInfo) {
+        for (Map.Entry<ContentEncoding, FileInfo> encoded : fileInfo.encodings.entrySet()) {
+            if (encoded.getKey().isAccepted(request.headers)) {
+                responseBuilder.header("Content-Encoding", encoded.getKey().token);
+                return encoded.getValue().withContentType(fileInfo.contentType);
+            }
+        }
+        return fileInfo;
+    }
+
+    /**
+     * Send the whole file, or the ranges requested by a <code>Range</code> header. Only the requested ranges are
+     * read when the file is sent from the filesystem.
+     */
+    private Optional<HTTPResponse> getContentResponse(HTTPRequest request, HTTPResponseBuilder responseBuilder, FileInfo fileInfo) {
+        FileContent cachedContent = fileInfo.cachedContent();
+        ByteBuffer buffer = (cachedContent != null) ? cachedContent.content() : null;
+        byte[] content = ((buffer == null) && (fileInfo.file == null)) ? fileInfo.content() : null;
+        long length;
+
+        if (buffer != null) {
+            length = buffer.remaining();
+        } else if (content != null) {
+            length = content.length;
+        } else {
+            length = fileInfo.length;
+        }
+
+        List<ByteRange> ranges = getRanges(request.headers, fileInfo, length);
+
+        if (ranges == null) {
+            responseBuilder.header("Content-Type", fileInfo.contentType);
+
+            if (buffer != null) {
+                responseBuilder.body(buffer);
+            } else if (content != null) {
+                responseBuilder.body(content);
+            } else {
+                responseBuilder.body(fileInfo.file, 0L, length);
+            }
+            return responseBuilder.buildOption();
+        }
+
+        if (ranges.isEmpty()) {
+            responseBuilder.header("Content-Range", "bytes */" + length);
+            return responseBuilder.errorOption(ResponseStatus.REQUESTED_RANGE_NOT_SATISFIABLE);
+        }
+
+        responseBuilder.status(ResponseStatus.PARTIAL_CONTENT);
+
+        if (ranges.size() == 1) {
+            ByteRange range = ranges.get(0);
+            responseBuilder.header("Content-Type", fileInfo.contentType);
+            responseBuilder.header("Content-Range", range.contentRange(length));
+
+            if (buffer != null) {
+                buffer.position((int) range.start).limit((int) range.end + 1);
+                responseBuilder.body(buffer);
+            } else if (content != null) {
+                responseBuilder.body(Arrays.copyOfRange(content, (int) range.start, (int) range.end + 1));
+            } else {
+                responseBuilder.body(fileInfo.file, range.start, range.length());
+            }
+        } else {
+            ByteBuffer source = (content != null) ? ByteBuffer.wrap(content) : buffer;
+            MultipartByteRanges body = new MultipartByteRanges(fileInfo.file, source, fileInfo.contentType, length, ranges);
+            responseBuilder.header("Content-Type", body.contentType());
+            responseBuilder.body(body, body.length());
+        }
+
+        return responseBuilder.buildOption();
+    }
+
+    /**
+     * @return The ranges to send, null to send the whole file.
+     */
+    private List<ByteRange> getRanges(HTTPHeaders headers, FileInfo fileInfo, long length) {
+        Optional<String> range = headers.getSingle("Range", String.class);
+
+        if (!range.isPresent() || !fileInfo.isRangeValid(headers)) {
+            return null;
+        }
+
+        return ByteRange.parse(range.get(), length);
+    }
+
     protected abstract Optional<FileInfo> getFileInfo(String uri);
 
+    /**
+     * Forget the info of a file, loaded again on its next request, and the one of the file it is a precompressed
+     * sibling of.
+     *
+     * @param uri The uri of the file, as requested.
+     */
+    protected void invalidate(String uri) {
+        fileInfoCache.remove(uri);
+
+        for (ContentEncoding encoding : ContentEncoding.values()) {
+            if (uri.endsWith(encoding.extension)) {
+                fileInfoCache.remove(uri.substring(0, uri.length() - encoding.extension.length()));
+            }
+        }
+    }
+
+    protected void invalidateAll() {
+        fileInfoCache.clear();
+    }
+
+    /**
+     * Forget every file info, and load them again after a minute from now on, as when the filter is not watching its
+     * files.
+     */
+    protected void expireAll() {
+        fileInfoCache = buildFileInfoCache(true);
+    }
+
     protected String addTradingSlash(String uri) {
         String result = uri;
 
@@ -99,22 +288,13 @@ abstract class FileFilter implements RequestFilter {
         return result;
     }
 
-
-    protected String getEtag(byte[] bytes) {
-        String result = null;
+    protected String getEtag(EtagSource source) {
         try {
-            MessageDigest md = MessageDigest.getInstance("MD5");
-            byte[] digest = md.digest(bytes);
-            BigInteger bigInt = new BigInteger(1, digest);
-
-            result = bigInt.toString(16).toUpperCase();
-            while (result.length() < 32) {
-                result = "0" + result;
-            }
-        } catch (NoSuchAlgorithmException e) {
-            log.debug("Unable to create MD5", e);
+            return etagStrategy.etag(source);
+        } catch (Exception e) {
+            log.info("Unable to compute ETag of {}", source.name, e);
+            return null;
         }
-        return result;
     }
 
     protected String getContentType(String filename) {
@@ -1,11 +1,17 @@
 package com.acs.wave.router.files;
 
 import com.acs.wave.router.HTTPHeaders;
+import com.acs.wave.router.constants.ContentEncoding;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.text.ParseException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.Date;
+import java.util.EnumMap;
+import java.util.Map;
 import java.util.Optional;
 import java.util.function.Supplier;
 
@@ -15,21 +21,65 @@ class FileInfo {
     final String contentType;
     final String etag;
     final Date lastModified;
+    final Path file;
+    // length of the file sent from the filesystem, read when the info is loaded
+    final long length;
+    // looks the content up in a FileContentCache on each request, so that the cache sees every hit
+    private final Supplier<FileContent> cachedContent;
     private final Supplier<byte[]> contentSupplier;
+    // precompressed siblings, in order of preference, filled before the info is cached
+    final Map<ContentEncoding, FileInfo> encodings = new EnumMap<>(ContentEncoding.class);
 
     FileInfo(String contentType, String etag, Date lastModified, Supplier<byte[]> contentSupplier) {
+        this(contentType, etag, lastModified, null, -1L, null, contentSupplier);
+    }
+
+    /**
+     * Info of a file whose content is held by a {@link FileContentCache} when it fits, loaded by
+     * <code>contentSupplier</code> otherwise.
+     */
+    FileInfo(String contentType, String etag, Date lastModified, Supplier<byte[]> contentSupplier, Supplier<FileContent> cachedContent) {
+        this(contentType, etag, lastModified, null, -1L, cachedContent, contentSupplier);
+    }
+
+    /**
+     * Info of a file sent from the filesystem, without being loaded in memory.
+     */
+    FileInfo(String contentType, String etag, Date lastModified, Path file, long length) {
+        this(contentType, etag, lastModified, file, length, null, null);
+    }
+
+    /**
+     * Info of a file whose content is held by a {@link FileContentCache} when it fits, sent from the filesystem
+     * otherwise.
+     */
+    FileInfo(String contentType, String etag, Date lastModified, Path file, long length, Supplier<FileContent> cachedContent) {
+        this(contentType, etag, lastModified, file, length, cachedContent, null);
+    }
+
+    private FileInfo(String contentType, String etag, Date lastModified, Path file, long length, Supplier<FileContent> cachedContent, Supplier<byte[]> contentSupplier) {
         this.contentType = contentType;
         this.etag = etag;
         this.lastModified = lastModified;
+        this.file = file;
+        this.length = length;
+        this.cachedContent = cachedContent;
         this.contentSupplier = contentSupplier;
     }
 
+    /**
+     * @return A copy of this info sent with another content type, without encodings.
+     */
+    FileInfo withContentType(String contentType) {
+        return new FileInfo(contentType, etag, lastModified, file, length, cachedContent, contentSupplier);
+    }
+
     boolean isModified(HTTPHeaders headers) {
         boolean result;
 
         Optional<String> expectedEtag = headers.getSingle("If-None-Match", String.class);
         if (expectedEtag.isPresent() && (etag != null)) {
-            result = !etag.equalsIgnoreCase(expectedEtag.get());
+            result = !matchesAny(expectedEtag.get());
         } else {
             result = true;
         }
@@ -37,13 +87,9 @@ class FileInfo {
         Optional<String> expectedDate = headers.getSingle("If-Modified-Since", String.class);
         if (result) {
             if (expectedDate.isPresent() && (lastModified != null)) {
-                try {
-                    Date lastModifiedClient = FileFilter.DATE_FORMATTER.parse(expectedDate.get());
-                    result = lastModified.after(lastModifiedClient);
-                } catch (ParseException e) {
-                    log.debug("Unable to parse date", e);
-                    result = true;
-                }
+                Instant lastModifiedClient = parseDate(expectedDate.get());
+                // HTTP dates have no milliseconds
+                result = (lastModifiedClient == null) || (lastModified.getTime() / 1000L > lastModifiedClient.getEpochSecond());
             } else {
                 result = true;
             }
@@ -52,6 +98,84 @@ class FileInfo {
         return result;
     }
 
+    /**
+     * Check an <code>If-Range</code> header: ranges only apply to the representation the client already has part of,
+     * identified by a strong ETag or the exact last modification date.
+     *
+     * @param headers The request headers.
+     * @return False if the whole file must be sent instead of the requested ranges.
+     */
+    boolean isRangeValid(HTTPHeaders headers) {
+        Optional<String> ifRange = headers.getSingle("If-Range", String.class);
+
+        if (!ifRange.isPresent()) {
+            return true;
+        }
+
+        String value = ifRange.get().trim();
+
+        // a weak ETag never validates ranges, the content may differ byte wise
+        if (value.startsWith("W/")) {
+            return false;
+        }
+
+        boolean etagMatches = (etag != null) && !etag.startsWith("W/") && unquote(etag).equals(unquote(value));
+        if (etagMatches || (lastModified == null)) {
+            return etagMatches;
+        }
+
+        Instant date = parseDate(value);
+        return (date != null) && (date.getEpochSecond() == lastModified.getTime() / 1000L);
+    }
+
+    /**
+     * @return The instant of an HTTP-date, null if it cannot be parsed.
+     */
+    private Instant parseDate(String value) {
+        try {
+            return DateTimeFormatter.RFC_1123_DATE_TIME.parse(value.trim(), Instant::from);
+        } catch (DateTimeParseException e) {
+            log.debug("Unable to parse date", e);
+            return null;
+        }
+    }
+
+    /**
+     * Weak comparison of the ETag with an <code>If-None-Match</code> list, accepting the suffixed ETag of the variant
+     * compressed on the fly by the compression filter.
+     */
+    private boolean matchesAny(String expected) {
+        String opaque = unquote(etag);
+        String gzipOpaque = opaque + "-" + ContentEncoding.GZIP.token;
+
+        for (String candidate : expected.split(",")) {
+            String value = unquote(candidate);
+            if (value.equals("*") || value.equals(opaque) || value.equals(gzipOpaque)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String unquote(String etag) {
+        String result = etag.trim();
+
+        if (result.startsWith("W/")) {
+            result = result.substring(2);
+        }
+        if ((result.length() > 1) && result.startsWith("\"") && result.endsWith("\"")) {
+            result = result.substring(1, result.length() - 1);
+        }
+        return result;
+    }
+
+    /**
+     * @return The content held by the cache, null if the file is not cached, e.g. evicted or too large.
+     */
+    FileContent cachedContent() {
+        return (cachedContent != null) ? cachedContent.get() : null;
+    }
+
     byte[] content() {
         return contentSupplier.get();
     }
@@ -0,0 +1,126 @@
+package com.acs.wave.router.files;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Watch a folder and its sub folders from a daemon thread, reporting every created, modified or deleted path.
+ * Folders created later are watched as well.
+ */
+final class FolderWatcher implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(FolderWatcher.class);
+    private static final AtomicInteger COUNTER = new AtomicInteger();
+
+    private final WatchService watchService;
+    private final Consumer<Path> onChange;
+    private final Runnable onOverflow;
+    private final Runnable onFailure;
+    private final Thread thread;
+    // only accessed by the watcher thread once started
+    private final Set<Path> folders = new HashSet<>();
+
+    /**
+     * @param folder     The watched folder.
+     * @param onChange   Called with the absolute path of every changed file or folder.
+     * @param onOverflow Called when events have been lost, every path may have changed.
+     * @param onFailure  Called when the watch service fails, no change is reported anymore.
+     */
+    FolderWatcher(Path folder, Consumer<Path> onChange, Runnable onOverflow, Runnable onFailure) throws IOException {
+        this.watchService = FileSystems.getDefault().newWatchService();
+        this.onChange = onChange;
+        this.onOverflow = onOverflow;
+        this.onFailure = onFailure;
+
+        register(folder);
+
+        this.thread = new Thread(this::run, "wave-file-watcher-" + COUNTER.incrementAndGet());
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+    }
+
+    private void run() {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                Path folder = (Path) key.watchable();
+
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        onOverflow.run();
+                        continue;
+                    }
+
+                    Path path = folder.resolve((Path) event.context());
+
+                    if ((event.kind() == StandardWatchEventKinds.ENTRY_DELETE) && folders.remove(path)) {
+                        // no event is sent for the files of a deleted folder
+                        onOverflow.run();
+                        continue;
+                    }
+
+                    if ((event.kind() == StandardWatchEventKinds.ENTRY_CREATE) && Files.isDirectory(path)) {
+                        registerCreated(path);
+                    }
+
+                    onChange.accept(path);
+                }
+
+                key.reset();
+            }
+        } catch (ClosedWatchServiceException | InterruptedException e) {
+            log.debug("File watcher stopped");
+        } catch (Exception e) {
+            // without the watcher nothing would be invalidated anymore
+            log.error("File watcher failed", e);
+            onFailure.run();
+        }
+    }
+
+    /**
+     * Watch a folder created in a watched folder. The folder may already be gone, or not be readable: the changes
+     * in it are then missed, the other folders are still watched.
+     */
+    private void registerCreated(Path folder) {
+        try {
+            register(folder);
+        } catch (IOException | SecurityException e) {
+            log.warn("Unable to watch folder {}", folder, e);
+            onOverflow.run();
+        }
+    }
+
+    private void register(Path folder) throws IOException {
+        Files.walkFileTree(folder, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                folders.add(dir);
+                dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY,
+                        StandardWatchEventKinds.ENTRY_DELETE);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+}
@@ -0,0 +1,46 @@
+package com.acs.wave.router.files;
+
+import com.acs.wave.utils.CheckUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+
+final class ManifestEtagStrategy implements EtagStrategy {
+
+    private static final Logger log = LoggerFactory.getLogger(ManifestEtagStrategy.class);
+
+    private final Properties hashes;
+    private final EtagStrategy fallback;
+
+    ManifestEtagStrategy(ClassLoader classLoader, String manifest, EtagStrategy fallback) {
+        CheckUtils.checkNull("classLoader", classLoader);
+        CheckUtils.checkNull("fallback", fallback);
+
+        this.hashes = load(classLoader, manifest);
+        this.fallback = fallback;
+    }
+
+    @Override
+    public String etag(EtagSource source) throws IOException {
+        String hash = hashes.getProperty(source.name);
+        return (hash != null) ? '"' + hash + '"' : fallback.etag(source);
+    }
+
+    private static Properties load(ClassLoader classLoader, String manifest) {
+        Properties result = new Properties();
+
+        try (InputStream input = classLoader.getResourceAsStream(manifest)) {
+            if (input != null) {
+                result.load(input);
+                log.debug("{} ETags loaded from {}", result.size(), manifest);
+            }
+        } catch (IOException e) {
+            log.warn("Unable to read ETag manifest {}", manifest, e);
+        }
+
+        return result;
+    }
+}
@@ -0,0 +1,51 @@
+package com.acs.wave.router.files;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+final class Md5EtagStrategy implements EtagStrategy {
+
+    static final Md5EtagStrategy INSTANCE = new Md5EtagStrategy();
+
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+    private Md5EtagStrategy() {
+    }
+
+    @Override
+    public String etag(EtagSource source) throws IOException {
+        try (InputStream input = source.open()) {
+            if (input == null) {
+                return null;
+            }
+
+            MessageDigest md = newDigest();
+            byte[] buffer = new byte[8192];
+            int read;
+
+            while ((read = input.read(buffer)) > -1) {
+                md.update(buffer, 0, read);
+            }
+            return '"' + toHex(md.digest()) + '"';
+        }
+    }
+
+    static String toHex(byte[] bytes) {
+        char[] result = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            result[i * 2] = HEX[(bytes[i] >> 4) & 0x0F];
+            result[i * 2 + 1] = HEX[bytes[i] & 0x0F];
+        }
+        return new String(result);
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5 not available", e);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.acs.wave.router.files;
+
+import com.acs.wave.router.functional.BodyStreamWriter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * <code>multipart/byteranges</code> body, reading only the requested ranges of the file.
+ */
+final class MultipartByteRanges implements BodyStreamWriter {
+
+    private final Path file;
+    private final ByteBuffer content;
+    private final List<ByteRange> ranges;
+    private final List<byte[]> partHeads;
+    private final byte[] end;
+    private final String boundary;
+
+    /**
+     * @param file        The file to read the ranges from, null if the content is in memory.
+     * @param content     The content, from position 0, null if it is read from the file.
+     * @param contentType The content type of the file.
+     * @param totalLength The length of the file.
+     * @param ranges      The ranges to send.
+     */
+    MultipartByteRanges(Path file, ByteBuffer content, String contentType, long totalLength, List<ByteRange> ranges) {
+        this.file = file;
+        this.content = content;
+        this.ranges = ranges;
+        this.boundary = UUID.randomUUID().toString().replace("-", "");
+        this.partHeads = new ArrayList<>(ranges.size());
+
+        for (ByteRange range : ranges) {
+            String partHead = "\r\n--" + boundary + "\r\n" +
+                    "Content-Type: " + contentType + "\r\n" +
+                    "Content-Range: " + range.contentRange(totalLength) + "\r\n\r\n";
+            partHeads.add(partHead.getBytes(StandardCharsets.ISO_8859_1));
+        }
+
+        this.end = ("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    String contentType() {
+        return "multipart/byteranges; boundary=" + boundary;
+    }
+
+    long length() {
+        long result = end.length;
+
+        for (int i = 0; i < ranges.size(); i++) {
+            result += partHeads.get(i).length + ranges.get(i).length();
+        }
+
+        return result;
+    }
+
+    @Override
+    public void write(OutputStream output) throws IOException {
+        if (file == null) {
+            WritableByteChannel target = Channels.newChannel(output);
+
+            for (int i = 0; i < ranges.size(); i++) {
+                ByteRange range = ranges.get(i);
+                ByteBuffer part = content.duplicate();
+                part.position((int) range.start).limit((int) range.end + 1);
+
+                output.write(partHeads.get(i));
+                while (part.hasRemaining()) {
+                    target.write(part);
+                }
+            }
+        } else {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                WritableByteChannel target = Channels.newChannel(output);
+
+                for (int i = 0; i < ranges.size(); i++) {
+                    output.write(partHeads.get(i));
+                    transfer(channel, ranges.get(i), target);
+                }
+            }
+        }
+
+        output.write(end);
+    }
+
+    private void transfer(FileChannel channel, ByteRange range, WritableByteChannel target) throws IOException {
+        long written = 0;
+
+        while (written < range.length()) {
+            long transferred = channel.transferTo(range.start + written, range.length() - written, target);
+
+            if (transferred <= 0) {
+                throw new IOException("File " + file + " is shorter than expected");
+            }
+
+            written += transferred;
+        }
+    }
+}
@@ -1,7 +1,6 @@
 package com.acs.wave.router.files;
 
 import java.io.InputStream;
-import java.net.URL;
 import java.util.Optional;
 import java.util.function.Supplier;
 
@@ -9,30 +8,91 @@ public class StaticClasspathFolderFilter extends FileFilter {
 
     private final String baseFolder;
     private final ClassLoader classLoader;
+    private final ClasspathIndex index;
 
     public StaticClasspathFolderFilter(String baseFolder, boolean cache) {
         this(baseFolder, cache, Thread.currentThread().getContextClassLoader());
     }
 
     public StaticClasspathFolderFilter(String baseFolder, boolean cache, ClassLoader classLoader) {
-        super(cache);
+        this(baseFolder, cache, classLoader, null);
+    }
+
+    public StaticClasspathFolderFilter(String baseFolder, boolean cache, FileContentCache contentCache) {
+        this(baseFolder, cache, Thread.currentThread().getContextClassLoader(), contentCache);
+    }
+
+    public StaticClasspathFolderFilter(String baseFolder, boolean cache, ClassLoader classLoader, FileContentCache contentCache) {
+        this(baseFolder, cache, classLoader, contentCache, EtagStrategy.manifest(classLoader, EtagStrategy.md5()));
+    }
+
+    /**
+     * @param baseFolder   The served folder of the classpath.
+     * @param cache        True to answer conditional requests with 304 Not Modified.
+     * @param classLoader  The class loader the files are read from.
+     * @param contentCache The cache holding file contents in memory, null to read them on every request.
+     * @param etagStrategy How ETags are computed, by default read from the {@link EtagStrategy#MANIFEST} of the class
+     *                     loader, or computed from the content of the resources missing from it.
+     */
+    public StaticClasspathFolderFilter(String baseFolder, boolean cache, ClassLoader classLoader, FileContentCache contentCache, EtagStrategy etagStrategy) {
+        this(baseFolder, cache, classLoader, contentCache, etagStrategy, false);
+    }
+
+    /**
+     * @param baseFolder   The served folder of the classpath.
+     * @param cache        True to answer conditional requests with 304 Not Modified.
+     * @param classLoader  The class loader the files are read from.
+     * @param contentCache The cache holding file contents in memory, null to read them on every request.
+     * @param etagStrategy How ETags are computed, by default read from the {@link EtagStrategy#MANIFEST} of the class
+     *                     loader, or computed from the content of the resources missing from it.
+     * @param indexed      True to list the files of the folder once, with a {@link ClasspathIndex}, and keep their
+     *                     infos without expiration. Files missing from the index are not found without asking the
+     *                     class loader, unless no file is indexed, in which case they are all looked up through it.
+     */
+    public StaticClasspathFolderFilter(String baseFolder, boolean cache, ClassLoader classLoader, FileContentCache contentCache, EtagStrategy etagStrategy, boolean indexed) {
+        super(cache, contentCache, !indexed, etagStrategy);
         this.baseFolder = removeTradingSlash(removeEndingSlash(addTradingSlash(baseFolder)));
         this.classLoader = classLoader;
+        this.index = indexed ? scanIndex(classLoader) : null;
+    }
+
+    // an empty index most likely means the folder was not found, every file would then be missing
+    private ClasspathIndex scanIndex(ClassLoader classLoader) {
+        ClasspathIndex scanned = ClasspathIndex.scan(classLoader, baseFolder);
+
+        if (scanned.size() == 0) {
+            log.warn("No file indexed in {}, files are looked up through the class loader", baseFolder);
+            return null;
+        }
+
+        log.debug("{} files indexed in {}", scanned.size(), baseFolder);
+        return scanned;
     }
 
     public Optional<FileInfo> getFileInfo(String fileName) {
         String file = baseFolder + addTradingSlash(fileName);
 
-        URL url = classLoader.getResource(file);
-
         Optional<FileInfo> result = Optional.empty();
-        if ((url != null) && (!file.endsWith("/"))) {
+        if (exists(file) && (!file.endsWith("/"))) {
+            FileContent content = (contentCache != null) ? contentCache.get(file, classLoader) : null;
+            long length = (index != null) ? index.size(file) : -1L;
+            String etag = getEtag(EtagSource.of(file, classLoader, content, length));
+
             Supplier<byte[]> contentSupplier = () -> loadFileContent(file);
-            result = Optional.of(new FileInfo(getContentType(fileName), getEtag(contentSupplier.get()), null, contentSupplier));
+
+            if (contentCache != null) {
+                result = Optional.of(new FileInfo(getContentType(fileName), etag, null, contentSupplier, () -> contentCache.get(file, classLoader)));
+            } else {
+                result = Optional.of(new FileInfo(getContentType(fileName), etag, null, contentSupplier));
+            }
         }
         return result;
     }
 
+    private boolean exists(String file) {
+        return (index != null) ? index.contains(file) : (classLoader.getResource(file) != null);
+    }
+
     private byte[] loadFileContent(String file) {
         try (InputStream input = classLoader.getResourceAsStream(file)) {
             return getBytes(input);
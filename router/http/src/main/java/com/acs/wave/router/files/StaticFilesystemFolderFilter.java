@@ -1,25 +1,70 @@
 package com.acs.wave.router.files;
 
+import java.io.Closeable;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
 import java.time.Instant;
 import java.util.Date;
 import java.util.Optional;
-import java.util.function.Supplier;
 
-public class StaticFilesystemFolderFilter extends FileFilter {
+public class StaticFilesystemFolderFilter extends FileFilter implements Closeable {
 
     private final File baseFolder;
+    private final FolderWatcher watcher;
 
     public StaticFilesystemFolderFilter(File baseFolder, boolean cache) throws FileNotFoundException {
-        super(cache);
+        this(baseFolder, cache, null);
+    }
+
+    public StaticFilesystemFolderFilter(File baseFolder, boolean cache, FileContentCache contentCache) throws FileNotFoundException {
+        this(baseFolder, cache, contentCache, false);
+    }
+
+    /**
+     * @param baseFolder   The served folder.
+     * @param cache        True to answer conditional requests with 304 Not Modified.
+     * @param contentCache The cache holding file contents in memory, null to read them on every request.
+     * @param watch        True to watch the folder and forget exactly the files that change, instead of loading every
+     *                     file info again after a minute, which is done again if the watcher fails. The watcher is
+     *                     stopped by {@link #close()}.
+     */
+    public StaticFilesystemFolderFilter(File baseFolder, boolean cache, FileContentCache contentCache, boolean watch) throws FileNotFoundException {
+        this(baseFolder, cache, contentCache, watch, EtagStrategy.weak());
+    }
+
+    /**
+     * @param baseFolder   The served folder.
+     * @param cache        True to answer conditional requests with 304 Not Modified.
+     * @param contentCache The cache holding file contents in memory, null to read them on every request.
+     * @param watch        True to watch the folder and forget exactly the files that change, instead of loading every
+     *                     file info again after a minute, which is done again if the watcher fails. The watcher is
+     *                     stopped by {@link #close()}.
+     * @param etagStrategy How ETags are computed, {@link EtagStrategy#weak()} by default so that files are not read to
+     *                     answer conditional requests.
+     */
+    public StaticFilesystemFolderFilter(File baseFolder, boolean cache, FileContentCache contentCache, boolean watch, EtagStrategy etagStrategy) throws FileNotFoundException {
+        super(cache, contentCache, !watch, etagStrategy);
 
         this.baseFolder = baseFolder;
 
         if (!baseFolder.exists() || !baseFolder.isDirectory()) {
             throw new FileNotFoundException("Folder " + baseFolder.getAbsolutePath() + " does not exist");
         }
+
+        this.watcher = watch ? startWatcher() : null;
+    }
+
+    /**
+     * Stop watching the folder, if it is watched.
+     */
+    @Override
+    public void close() throws IOException {
+        if (watcher != null) {
+            watcher.close();
+        }
     }
 
     public Optional<FileInfo> getFileInfo(String fileName) {
@@ -27,21 +72,54 @@ public class StaticFilesystemFolderFilter extends FileFilter {
 
         Optional<FileInfo> result = Optional.empty();
         if (file.exists() && !file.isDirectory()) {
-            Supplier<byte[]> contentSupplier = () -> loadFileContent(file);
-            result = Optional.of(new FileInfo(getContentType(fileName), getEtag(contentSupplier.get()), getLastModified(file), contentSupplier));
+            FileContent content = (contentCache != null) ? contentCache.get(file) : null;
+
+            String etag = getFileEtag(fileName, file, content);
+
+            if (contentCache != null) {
+                result = Optional.of(new FileInfo(getContentType(fileName), etag, getLastModified(file), file.toPath(), file.length(), () -> contentCache.get(file)));
+            } else {
+                result = Optional.of(new FileInfo(getContentType(fileName), etag, getLastModified(file), file.toPath(), file.length()));
+            }
         }
         return result;
     }
 
-    private byte[] loadFileContent(File file) {
-        try (FileInputStream input = new FileInputStream(file)) {
-            return getBytes(input);
-        } catch (Exception e) {
-            log.info("Unable to read file", e);
-            return new byte[0];
+    private String getFileEtag(String fileName, File file, FileContent content) {
+        try {
+            return getEtag(EtagSource.of(fileName, file, content));
+        } catch (IOException e) {
+            log.info("Unable to read file attributes", e);
+            return null;
+        }
+    }
+
+    private FolderWatcher startWatcher() {
+        Path folder = baseFolder.toPath().toAbsolutePath();
+        try {
+            return new FolderWatcher(folder, path -> onChange(folder, path), this::invalidateAll, this::onWatcherFailure);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to watch folder " + folder, e);
         }
     }
 
+    private void onChange(Path folder, Path path) {
+        String uri = "/" + folder.relativize(path).toString().replace(File.separatorChar, '/');
+        log.debug("File changed: {}", uri);
+
+        invalidate(uri);
+        if (contentCache != null) {
+            contentCache.remove(path.toFile().getAbsolutePath());
+        }
+    }
+
+    private void onWatcherFailure() {
+        log.warn("Folder {} not watched anymore, file infos now expire after a minute", baseFolder);
+
+        // the cached contents are checked against their file on every request, they can be kept
+        expireAll();
+    }
+
     private Date getLastModified(File file) {
         return Date.from(Instant.ofEpochMilli(file.lastModified()));
     }
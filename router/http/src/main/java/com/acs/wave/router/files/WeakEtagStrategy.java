@@ -0,0 +1,28 @@
+package com.acs.wave.router.files;
+
+final class WeakEtagStrategy implements EtagStrategy {
+
+    static final WeakEtagStrategy INSTANCE = new WeakEtagStrategy();
+
+    private WeakEtagStrategy() {
+    }
+
+    @Override
+    public String etag(EtagSource source) {
+        if ((source.length < 0L) || (source.lastModified <= 0L)) {
+            return null;
+        }
+
+        StringBuilder result = new StringBuilder(48).append("W/\"")
+                .append(Long.toHexString(source.length))
+                .append('-')
+                .append(Long.toHexString(source.lastModified));
+
+        // a file replaced by another one of the same size within the same millisecond has another inode
+        if (source.fileKey != null) {
+            result.append('-').append(Integer.toHexString(source.fileKey.hashCode()));
+        }
+
+        return result.append('"').toString();
+    }
+}
@@ -0,0 +1,14 @@
+package com.acs.wave.router.functional;
+
+import com.acs.wave.router.HTTPRequest;
+import com.acs.wave.router.HTTPResponse;
+import com.acs.wave.router.HTTPResponseBuilder;
+
+import java.util.Optional;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Supplier;
+
+@FunctionalInterface
+public interface AsyncRequestFilter {
+    CompletionStage<Optional<HTTPResponse>> handle(HTTPRequest request, HTTPResponseBuilder responseBuilder, Supplier<CompletionStage<Optional<HTTPResponse>>> nextJump);
+}
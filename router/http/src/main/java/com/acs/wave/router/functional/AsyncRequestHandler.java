@@ -0,0 +1,13 @@
+package com.acs.wave.router.functional;
+
+import com.acs.wave.router.HTTPRequest;
+import com.acs.wave.router.HTTPResponse;
+import com.acs.wave.router.HTTPResponseBuilder;
+
+import java.util.Optional;
+import java.util.concurrent.CompletionStage;
+
+@FunctionalInterface
+public interface AsyncRequestHandler {
+    CompletionStage<Optional<HTTPResponse>> handle(HTTPRequest request, HTTPResponseBuilder responseBuilder);
+}
@@ -0,0 +1,12 @@
+package com.acs.wave.router.functional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Response body written by the provider straight to the connection, instead of being built in memory first.
+ */
+@FunctionalInterface
+public interface BodyStreamWriter {
+    void write(OutputStream output) throws IOException;
+}
@@ -1,5 +1,8 @@
 package com.acs.wave.router.functional;
 
+import java.io.IOException;
+import java.io.OutputStream;
+
 @FunctionalInterface
 public interface BodyWriter<T> {
     default String contentType() {
@@ -8,4 +11,16 @@ public interface BodyWriter<T> {
 
     byte[] write(T body);
 
+    /**
+     * Write a body to a stream, used for streamed responses. Writers able to produce their output incrementally
+     * should override it, by default the body is built in memory first.
+     */
+    default void write(T body, OutputStream output) throws IOException {
+        byte[] bytes = write(body);
+
+        if (bytes != null) {
+            output.write(bytes);
+        }
+    }
+
 }
@@ -0,0 +1,158 @@
+package com.acs.wave.router;
+
+import com.acs.wave.router.constants.ContentEncoding;
+import com.acs.wave.router.constants.ProtocolVersion;
+import com.acs.wave.router.constants.RequestMethod;
+import com.acs.wave.router.constants.ResponseStatus;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ExtendWith(MockitoExtension.class)
+public class HTTPCompressionFilterTest {
+
+    private static final String TEXT = "wave ".repeat(1000);
+    private static final String OTHER_TEXT = "router ".repeat(1000);
+
+    // filters only see the responses of the filters registered after them
+    private final HTTPRouter router = new HTTPRouterBuilder()
+            .filter("/*", new HTTPCompressionFilter())
+            .filter("/text", (request, responseBuilder, next) -> responseBuilder.header("Content-Type", "text/plain").body(TEXT).buildOption())
+            .filter("/static", (request, responseBuilder, next) -> responseBuilder.header("Content-Type", "application/javascript").header("ETag", "ABC").body(TEXT).buildOption())
+            .filter("/stream", (request, responseBuilder, next) -> responseBuilder.header("Content-Type", "application/json").body(output -> output.write(TEXT.getBytes(StandardCharsets.UTF_8))).buildOption())
+            .filter("/small", (request, responseBuilder, next) -> responseBuilder.header("Content-Type", "text/plain").body("wave").buildOption())
+            .filter("/image", (request, responseBuilder, next) -> responseBuilder.header("Content-Type", "image/png").body(TEXT).buildOption())
+            .filter("/one", (request, responseBuilder, next) -> responseBuilder.header("Content-Type", "text/plain").header("ETag", "\"1\"").body(TEXT).buildOption())
+            .filter("/two", (request, responseBuilder, next) -> responseBuilder.header("Content-Type", "text/plain").header("ETag", "\"1\"").body(OTHER_TEXT).buildOption())
+            .filter("/weak", (request, responseBuilder, next) -> responseBuilder.header("Content-Type", "text/plain").header("ETag", "W/\"1\"").body(TEXT).buildOption())
+            .filter("/cached", (request, responseBuilder, next) -> responseBuilder.header("Content-Type", "text/plain").header("ETag", "\"1\"").errorOption(ResponseStatus.NOT_MODIFIED))
+            .build();
+
+    @Test
+    public void text_compressed_when_accepted() throws IOException {
+        HTTPResponse response = router.process(request("/text", "gzip, deflate"));
+
+        assertEquals("gzip", response.headers.getMandatory("Content-Encoding", String.class));
+        assertEquals("Accept-Encoding", response.headers.getMandatory("Vary", String.class));
+        assertTrue(response.body.length < TEXT.length());
+        assertEquals(TEXT, gunzip(response.body));
+    }
+
+    @Test
+    public void vary_without_compression_when_not_accepted() {
+        HTTPResponse response = router.process(request("/text", "br;q=1, gzip;q=0"));
+
+        assertFalse(response.headers.containsKey("Content-Encoding"));
+        assertEquals("Accept-Encoding", response.headers.getMandatory("Vary", String.class));
+        assertEquals(TEXT, new String(response.body, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void small_or_binary_bodies_not_compressed() {
+        assertFalse(router.process(request("/small", "gzip")).headers.containsKey("Content-Encoding"));
+        assertFalse(router.process(request("/image", "gzip")).headers.containsKey("Vary"));
+    }
+
+    @Test
+    public void variant_cached_by_etag() {
+        HTTPResponse first = router.process(request("/static", "*"));
+        HTTPResponse second = router.process(request("/static", "gzip"));
+
+        assertEquals("ABC-gzip", first.headers.getMandatory("ETag", String.class));
+        assertSame(first.body, second.body);
+    }
+
+    @Test
+    public void variants_of_paths_sharing_an_etag_not_mixed() throws IOException {
+        HTTPResponse one = router.process(request("/one", "gzip"));
+        HTTPResponse two = router.process(request("/two", "gzip"));
+
+        assertEquals(TEXT, gunzip(one.body));
+        assertEquals(OTHER_TEXT, gunzip(two.body));
+    }
+
+    @Test
+    public void variant_not_cached_under_weak_etag() throws IOException {
+        HTTPResponse first = router.process(request("/weak", "gzip"));
+        HTTPResponse second = router.process(request("/weak", "gzip"));
+
+        assertEquals("W/\"1-gzip\"", first.headers.getMandatory("ETag", String.class));
+        assertNotSame(first.body, second.body);
+        assertEquals(TEXT, gunzip(second.body));
+    }
+
+    @Test
+    public void not_modified_variant_keeps_its_etag() {
+        HTTPHeaders headers = headers("gzip");
+        headers.add("If-None-Match", "\"1-gzip\"");
+
+        HTTPResponse variant = router.process(new HTTPRequest(RequestMethod.GET, "/cached", ProtocolVersion.HTTP_1_1, headers, "localhost", new byte[0]));
+        HTTPResponse identity = router.process(request("/cached", "identity"));
+
+        assertEquals(ResponseStatus.NOT_MODIFIED, variant.responseStatus);
+        assertEquals("\"1-gzip\"", variant.headers.getMandatory("ETag", String.class));
+        assertEquals("Accept-Encoding", variant.headers.getMandatory("Vary", String.class));
+        assertEquals("\"1\"", identity.headers.getMandatory("ETag", String.class));
+        assertEquals("Accept-Encoding", identity.headers.getMandatory("Vary", String.class));
+    }
+
+    @Test
+    public void response_of_next_filter_not_modified() {
+        HTTPHeaders headers = new HTTPHeaders();
+        headers.add("Content-Type", "text/plain");
+        HTTPResponse original = new HTTPResponse(ProtocolVersion.HTTP_1_1, ResponseStatus.OK, headers, TEXT.getBytes(StandardCharsets.UTF_8));
+
+        HTTPResponse response = new HTTPCompressionFilter().handle(request("/text", "identity"), null, () -> Optional.of(original)).get();
+
+        assertEquals("Accept-Encoding", response.headers.getMandatory("Vary", String.class));
+        assertFalse(original.headers.containsKey("Vary"));
+        assertSame(original.body, response.body);
+    }
+
+    @Test
+    public void streamed_body_compressed_while_written() throws IOException {
+        HTTPResponse response = router.process(request("/stream", "gzip"));
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        response.bodyStream.write(output);
+
+        assertEquals("gzip", response.headers.getMandatory("Content-Encoding", String.class));
+        assertEquals(TEXT, gunzip(output.toByteArray()));
+    }
+
+    @Test
+    public void accept_encoding_negotiation() {
+        assertTrue(ContentEncoding.GZIP.isAccepted(headers("deflate, GZIP;q=0.5")));
+        assertTrue(ContentEncoding.BROTLI.isAccepted(headers("gzip, *")));
+        assertFalse(ContentEncoding.BROTLI.isAccepted(headers("*, br;q=0")));
+        assertFalse(ContentEncoding.GZIP.isAccepted(new HTTPHeaders()));
+    }
+
+    private String gunzip(byte[] body) throws IOException {
+        try (GZIPInputStream input = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            return new String(input.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private HTTPHeaders headers(String acceptEncoding) {
+        HTTPHeaders headers = new HTTPHeaders();
+        headers.add("Accept-Encoding", acceptEncoding);
+        return headers;
+    }
+
+    private HTTPRequest request(String uri, String acceptEncoding) {
+        return new HTTPRequest(RequestMethod.GET, uri, ProtocolVersion.HTTP_1_1, headers(acceptEncoding), "localhost", new byte[0]);
+    }
+}
@@ -0,0 +1,86 @@
+package com.acs.wave.router;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(MockitoExtension.class)
+public class HTTPHeadersTest {
+
+    @Test
+    public void lookup_ignores_case() {
+        HTTPHeaders headers = new HTTPHeaders();
+        headers.add("Content-Type", "text/html");
+        headers.add("X-Custom-Header", "value");
+
+        assertTrue(headers.containsKey("content-type"));
+        assertTrue(headers.containsKey("CONTENT-TYPE"));
+        assertEquals(Optional.of("value"), headers.getSingle("x-custom-HEADER", String.class));
+        assertFalse(headers.containsKey("Content-Length"));
+        assertEquals(Optional.empty(), headers.getSingle("Content-Length", String.class));
+    }
+
+    @Test
+    public void values_of_a_name_in_insertion_order() {
+        HTTPHeaders headers = new HTTPHeaders();
+        headers.add("Vary", "Accept");
+        headers.add("Host", "localhost");
+        headers.add("vary", "Accept-Encoding");
+
+        assertEquals(Arrays.asList("Accept", "Accept-Encoding"), headers.get("VARY", String.class));
+        assertEquals("Vary,Host,vary", headers.stream().map(header -> header.key).collect(Collectors.joining(",")));
+    }
+
+    @Test
+    public void lookup_after_growth() {
+        HTTPHeaders headers = new HTTPHeaders();
+
+        for (int i = 0; i < 100; i++) {
+            headers.add("X-Header-" + i, i);
+        }
+
+        for (int i = 0; i < 100; i++) {
+            assertEquals(Optional.of(i), headers.getSingle("x-header-" + i, Integer.class));
+        }
+        assertEquals(100, headers.keys().size());
+    }
+
+    @Test
+    public void remove_drops_every_value_of_a_name() {
+        HTTPHeaders headers = new HTTPHeaders();
+        headers.add("Vary", "Accept");
+        headers.add("Content-Length", 10);
+        headers.add("vary", "Accept-Encoding");
+        HTTPHeaders copy = headers.clone();
+
+        headers.remove("VARY");
+        headers.add("Vary", "Origin");
+
+        assertEquals(Arrays.asList("Origin"), headers.get("Vary", String.class));
+        assertEquals(Optional.of("10"), headers.getSingle("Content-Length", String.class));
+        assertEquals("Content-Length,Vary", headers.stream().map(header -> header.key).collect(Collectors.joining(",")));
+        assertEquals(Arrays.asList("Accept", "Accept-Encoding"), copy.get("Vary", String.class));
+    }
+
+    @Test
+    public void copy_is_independent() {
+        HTTPHeaders headers = new HTTPHeaders();
+        headers.add("Host", "localhost");
+
+        HTTPHeaders copy = headers.clone();
+        copy.add("Accept", "text/html");
+        headers.add("Cookie", "session=1");
+
+        assertTrue(copy.containsKey("Host"));
+        assertTrue(copy.containsKey("Accept"));
+        assertFalse(copy.containsKey("Cookie"));
+        assertTrue(headers.containsKey("Cookie"));
+        assertFalse(headers.containsKey("Accept"));
+    }
+}
@@ -0,0 +1,86 @@
+package com.acs.wave.router;
+
+import com.acs.wave.router.constants.ProtocolVersion;
+import com.acs.wave.router.constants.RequestMethod;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(MockitoExtension.class)
+public class HTTPRouteTreeTest {
+
+    @Test
+    public void static_route_match() {
+        HTTPRouteTree<String> tree = tree(route("/api/dummy", "static"));
+        assertEquals("static", find(tree, RequestMethod.GET, "/api/dummy"));
+        assertNull(find(tree, RequestMethod.GET, "/api/other"));
+        assertNull(find(tree, RequestMethod.GET, "/api"));
+    }
+
+    @Test
+    public void root_route_match() {
+        HTTPRouteTree<String> tree = tree(route("/", "root"));
+        assertEquals("root", find(tree, RequestMethod.GET, "/"));
+        assertNull(find(tree, RequestMethod.GET, "/api"));
+    }
+
+    @Test
+    public void param_route_match_one_segment() {
+        HTTPRouteTree<String> tree = tree(route("/api/{action}", "param"));
+        assertEquals("param", find(tree, RequestMethod.GET, "/api/dummy"));
+        assertNull(find(tree, RequestMethod.GET, "/api/dummy/thing"));
+    }
+
+    @Test
+    public void rest_route_match_remaining_path() {
+        HTTPRouteTree<String> tree = tree(route("/webjars/{path+}", "path"), route("/api/{action}/*", "wildcard"));
+        assertEquals("path", find(tree, RequestMethod.GET, "/webjars/bootstrap/3.3.7-1/css/bootstrap.css"));
+        assertEquals("wildcard", find(tree, RequestMethod.GET, "/api/dummy/thing/other"));
+        assertNull(find(tree, RequestMethod.GET, "/webjars"));
+    }
+
+    @Test
+    public void last_registered_wins() {
+        HTTPRouteTree<String> tree = tree(route("/api/dummy", "static"), route("/api/{action}", "param"));
+        assertEquals("param", find(tree, RequestMethod.GET, "/api/dummy"));
+
+        tree = tree(route("/api/{action}", "param"), route("/api/dummy", "static"));
+        assertEquals("static", find(tree, RequestMethod.GET, "/api/dummy"));
+        assertEquals("param", find(tree, RequestMethod.GET, "/api/other"));
+    }
+
+    @Test
+    public void method_filtered() {
+        HTTPRouteTree<String> tree = tree(route("/persons", "get", RequestMethod.GET), route("/persons/{id}", "post", RequestMethod.POST));
+        assertEquals("get", find(tree, RequestMethod.GET, "/persons"));
+        assertNull(find(tree, RequestMethod.POST, "/persons"));
+        assertEquals("post", find(tree, RequestMethod.POST, "/persons/1"));
+        assertNull(find(tree, RequestMethod.GET, "/persons/1"));
+    }
+
+    @Test
+    public void complex_route_match() {
+        HTTPRouteTree<String> tree = tree(route("/files/*.js", "complex"), route("/files/{name}", "param", RequestMethod.POST));
+        assertEquals("complex", find(tree, RequestMethod.GET, "/files/app.js"));
+        assertEquals("param", find(tree, RequestMethod.POST, "/files/app.js"));
+    }
+
+    @SafeVarargs
+    private final HTTPRouteTree<String> tree(HTTPRoute<String>... routes) {
+        return new HTTPRouteTree<>(Arrays.asList(routes));
+    }
+
+    private HTTPRoute<String> route(String uri, String handler, RequestMethod... methods) {
+        return new HTTPRoute<>(uri, new HashSet<>(Arrays.asList(methods)), handler);
+    }
+
+    private String find(HTTPRouteTree<String> tree, RequestMethod method, String uri) {
+        HTTPRequest request = new HTTPRequest(method, uri, ProtocolVersion.HTTP_1_1, new HTTPHeaders(), "localhost", new byte[0]);
+        HTTPRoute<String> route = tree.find(request);
+        return (route != null) ? route.handler : null;
+    }
+}
@@ -0,0 +1,370 @@
+package com.acs.wave.router;
+
+import com.acs.wave.router.constants.ProtocolVersion;
+import com.acs.wave.router.constants.RequestMethod;
+import com.acs.wave.router.constants.ResponseStatus;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ExtendWith(MockitoExtension.class)
+public class HTTPRouterTest {
+
+    @Test
+    public void filters_run_in_order_before_handler() {
+        List<String> calls = new ArrayList<>();
+        HTTPRouter router = new HTTPRouterBuilder()
+                .filter("/*", (request, responseBuilder, next) -> {
+                    calls.add("all");
+                    return next.get();
+                })
+                .filter("/api/{action}", (request, responseBuilder, next) -> {
+                    calls.add("api " + request.pathParams().getMandatory("action", String.class));
+                    return next.get();
+                })
+                .get("/api/{action}", (request, responseBuilder) -> {
+                    calls.add("handler " + request.pathParams().getMandatory("action", String.class));
+                    return responseBuilder.buildOption();
+                })
+                .build();
+
+        HTTPResponse response = router.process(request(RequestMethod.GET, "/api/dummy"));
+
+        assertEquals(ResponseStatus.OK, response.responseStatus);
+        assertEquals("[all, api dummy, handler dummy]", calls.toString());
+
+        calls.clear();
+        router.process(request(RequestMethod.GET, "/api/other"));
+        assertEquals("[all, api other, handler other]", calls.toString());
+    }
+
+    @Test
+    public void next_jump_kept_by_filter_runs_rest_of_chain() {
+        List<String> calls = new ArrayList<>();
+        AtomicReference<Supplier<Optional<HTTPResponse>>> kept = new AtomicReference<>();
+        HTTPRouter router = new HTTPRouterBuilder()
+                .filter("/*", (request, responseBuilder, next) -> {
+                    calls.add("all");
+                    kept.set(next);
+                    return next.get();
+                })
+                .filter("/api/{action}", (request, responseBuilder, next) -> {
+                    calls.add("api " + request.pathParams().getMandatory("action", String.class));
+                    return next.get();
+                })
+                .get("/api/{action}", (request, responseBuilder) -> responseBuilder.buildOption())
+                .build();
+
+        router.process(request(RequestMethod.GET, "/api/dummy"));
+        calls.clear();
+        kept.get().get();
+
+        assertEquals("[api dummy]", calls.toString());
+    }
+
+    @Test
+    public void filter_answer_stops_chain() {
+        List<String> calls = new ArrayList<>();
+        HTTPRouter router = new HTTPRouterBuilder()
+                .filter("/*", (request, responseBuilder, next) -> responseBuilder.errorOption(ResponseStatus.FORBIDDEN))
+                .filter("/*", (request, responseBuilder, next) -> {
+                    calls.add("second");
+                    return next.get();
+                })
+                .build();
+
+        HTTPResponse response = router.process(request(RequestMethod.GET, "/api/dummy"));
+
+        assertEquals(ResponseStatus.FORBIDDEN, response.responseStatus);
+        assertEquals(0, calls.size());
+    }
+
+    @Test
+    public void filter_method_filtered() {
+        List<String> calls = new ArrayList<>();
+        HTTPRouter router = new HTTPRouterBuilder()
+                .post("/*", (request, responseBuilder, next) -> {
+                    calls.add("post");
+                    return next.get();
+                })
+                .build();
+
+        HTTPResponse response = router.process(request(RequestMethod.GET, "/api/dummy"));
+
+        assertEquals(ResponseStatus.NOT_FOUND, response.responseStatus);
+        assertEquals(0, calls.size());
+    }
+
+    @Test
+    public void process_error_uses_error_code_handler() {
+        HTTPRouter router = new HTTPRouterBuilder()
+                .defaultErrorCodeHandler((request, responseBuilder, status) -> responseBuilder.status(status).body("busy").build())
+                .build();
+
+        HTTPResponse response = router.processError(request(RequestMethod.GET, "/api/dummy"), ResponseStatus.SERVICE_UNAVAILABLE);
+
+        assertEquals(ResponseStatus.SERVICE_UNAVAILABLE, response.responseStatus);
+        assertEquals("busy", new String(response.body));
+    }
+
+    @Test
+    public void async_handler_completes_later() {
+        CompletableFuture<Optional<HTTPResponse>> backend = new CompletableFuture<>();
+        List<String> calls = new ArrayList<>();
+        HTTPRouter router = new HTTPRouterBuilder()
+                .filter("/*", (request, responseBuilder, next) -> {
+                    calls.add("sync filter");
+                    return next.get();
+                })
+                .filterAsync("/api/{action}", (request, responseBuilder, next) -> {
+                    calls.add("async filter " + request.pathParams().getMandatory("action", String.class));
+                    return next.get();
+                })
+                .getAsync("/api/{action}", (request, responseBuilder) -> {
+                    calls.add("handler " + request.pathParams().getMandatory("action", String.class));
+                    return backend.thenApply(ignored -> responseBuilder.body("done").buildOption());
+                })
+                .build();
+
+        CompletableFuture<HTTPResponse> response = router.processAsync(request(RequestMethod.GET, "/api/dummy")).toCompletableFuture();
+
+        assertFalse(response.isDone());
+        assertEquals("[sync filter, async filter dummy, handler dummy]", calls.toString());
+
+        backend.complete(Optional.empty());
+
+        assertEquals(ResponseStatus.OK, response.join().responseStatus);
+        assertEquals("done", new String(response.join().body));
+    }
+
+    @Test
+    public void async_filter_answer_stops_chain() {
+        HTTPRouter router = new HTTPRouterBuilder()
+                .filterAsync("/*", (request, responseBuilder, next) -> CompletableFuture.completedFuture(responseBuilder.errorOption(ResponseStatus.FORBIDDEN)))
+                .get("/api/dummy", (request, responseBuilder) -> responseBuilder.buildOption())
+                .build();
+
+        assertEquals(ResponseStatus.FORBIDDEN, router.processAsync(request(RequestMethod.GET, "/api/dummy")).toCompletableFuture().join().responseStatus);
+        assertEquals(ResponseStatus.FORBIDDEN, router.process(request(RequestMethod.GET, "/api/dummy")).responseStatus);
+    }
+
+    @Test
+    public void async_handler_failure_uses_exception_handler() {
+        HTTPRouter router = new HTTPRouterBuilder()
+                .exceptionHandler((request, responseBuilder, throwable) -> responseBuilder.status(ResponseStatus.INTERNAL_SERVER_ERROR).body(throwable.getMessage()).build())
+                .getAsync("/api/dummy", (request, responseBuilder) -> {
+                    CompletableFuture<Optional<HTTPResponse>> result = new CompletableFuture<>();
+                    result.completeExceptionally(new IllegalStateException("backend down"));
+                    return result;
+                })
+                .build();
+
+        HTTPResponse asyncResponse = router.processAsync(request(RequestMethod.GET, "/api/dummy")).toCompletableFuture().join();
+        HTTPResponse syncResponse = router.process(request(RequestMethod.GET, "/api/dummy"));
+
+        assertEquals(ResponseStatus.INTERNAL_SERVER_ERROR, asyncResponse.responseStatus);
+        assertEquals("backend down", new String(asyncResponse.body));
+        assertEquals(ResponseStatus.INTERNAL_SERVER_ERROR, syncResponse.responseStatus);
+        assertEquals("backend down", new String(syncResponse.body));
+    }
+
+    @Test
+    public void async_not_found() {
+        HTTPRouter router = new HTTPRouterBuilder()
+                .getAsync("/api/dummy", (request, responseBuilder) -> CompletableFuture.completedFuture(responseBuilder.buildOption()))
+                .build();
+
+        assertEquals(ResponseStatus.NOT_FOUND, router.processAsync(request(RequestMethod.GET, "/api/other")).toCompletableFuture().join().responseStatus);
+    }
+
+    @Test
+    public void body_policy_by_route() {
+        HTTPRouter router = new HTTPRouterBuilder()
+                .defaultBodyPolicy(HTTPBodyPolicy.aggregated(1024))
+                .bodyPolicy("/upload/*", HTTPBodyPolicy.streamed(), RequestMethod.POST, RequestMethod.PUT)
+                .bodyPolicy("/upload/small", HTTPBodyPolicy.aggregated(16), RequestMethod.POST)
+                .build();
+
+        assertTrue(router.bodyPolicy(RequestMethod.POST, "/upload/video?name=a").streamed);
+        assertFalse(router.bodyPolicy(RequestMethod.GET, "/upload/video").streamed);
+        assertEquals(1024, router.bodyPolicy(RequestMethod.GET, "/upload/video").maxSize);
+        assertEquals(16, router.bodyPolicy(RequestMethod.POST, "/upload/small").maxSize);
+        assertTrue(router.bodyPolicy(RequestMethod.PUT, "/upload/small").streamed);
+    }
+
+    @Test
+    public void streamed_body_read_as_stream() throws Exception {
+        SubmissionPublisher<ByteBuffer> publisher = new SubmissionPublisher<>();
+        HTTPRouter router = new HTTPRouterBuilder()
+                .post("/upload", (request, responseBuilder) -> {
+                    try (InputStream body = request.bodyStream()) {
+                        return responseBuilder.body(new String(body.readAllBytes(), StandardCharsets.UTF_8)).buildOption();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                })
+                .build();
+
+        HTTPRequest request = HTTPRequest.ofStreamedBody(RequestMethod.POST, "/upload", ProtocolVersion.HTTP_1_1, new HTTPHeaders(), "localhost", publisher);
+        CompletableFuture<HTTPResponse> response = CompletableFuture.supplyAsync(() -> router.process(request));
+
+        while (publisher.getNumberOfSubscribers() == 0) {
+            Thread.sleep(1);
+        }
+        publisher.submit(ByteBuffer.wrap("hello ".getBytes(StandardCharsets.UTF_8)));
+        publisher.submit(ByteBuffer.wrap("world".getBytes(StandardCharsets.UTF_8)));
+        publisher.close();
+
+        assertEquals("hello world", new String(response.get(5, TimeUnit.SECONDS).body, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void lazy_body_loaded_once_when_read() {
+        AtomicInteger loads = new AtomicInteger();
+        HTTPRouter router = new HTTPRouterBuilder()
+                .filter("/*", (request, responseBuilder, next) -> next.get())
+                .post("/upload/{name}", (request, responseBuilder) -> responseBuilder.body(request.bodyAsString() + request.body().length).buildOption())
+                .post("/ignored", (request, responseBuilder) -> responseBuilder.buildOption())
+                .build();
+
+        HTTPResponse response = router.process(HTTPRequest.ofLazyBody(RequestMethod.POST, "/upload/a", ProtocolVersion.HTTP_1_1, new HTTPHeaders(), "localhost", () -> {
+            loads.incrementAndGet();
+            return "body".getBytes(StandardCharsets.UTF_8);
+        }));
+        router.process(HTTPRequest.ofLazyBody(RequestMethod.POST, "/ignored", ProtocolVersion.HTTP_1_1, new HTTPHeaders(), "localhost", () -> {
+            loads.incrementAndGet();
+            return new byte[0];
+        }));
+
+        assertEquals("body4", new String(response.body, StandardCharsets.UTF_8));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void aggregated_body_read_as_publisher() {
+        HTTPRequest request = new HTTPRequest(RequestMethod.POST, "/upload", ProtocolVersion.HTTP_1_1, new HTTPHeaders(), "localhost", "body".getBytes(StandardCharsets.UTF_8));
+        List<String> chunks = new ArrayList<>();
+
+        request.bodyPublisher().subscribe(new Flow.Subscriber<ByteBuffer>() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(ByteBuffer item) {
+                chunks.add(StandardCharsets.UTF_8.decode(item).toString());
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                chunks.add("error");
+            }
+
+            @Override
+            public void onComplete() {
+                chunks.add("complete");
+            }
+        });
+
+        assertEquals("[body, complete]", chunks.toString());
+        assertFalse(request.isBodyStreamed());
+    }
+
+    @Test
+    public void streamed_response_body_written_on_demand() throws IOException {
+        List<String> written = new ArrayList<>();
+        HTTPRouter router = new HTTPRouterBuilder()
+                .get("/export", (request, responseBuilder) -> responseBuilder.streamBody("a,b,c", body -> {
+                    written.add(body);
+                    return body.getBytes(StandardCharsets.UTF_8);
+                }).buildOption())
+                .build();
+
+        HTTPResponse response = router.process(request(RequestMethod.GET, "/export"));
+
+        assertTrue(response.isBodyStreamed());
+        assertEquals(0, response.body.length);
+        assertEquals("text/html", response.headers.getMandatory("Content-Type", String.class));
+        assertTrue(written.isEmpty());
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        response.bodyStream.write(output);
+        assertEquals("a,b,c", output.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void in_memory_body_replaces_streamed_body() {
+        HTTPResponse response = new HTTPResponseBuilder(request(RequestMethod.GET, "/"), null)
+                .body(output -> output.write(1))
+                .body("OK")
+                .build();
+
+        assertFalse(response.isBodyStreamed());
+        assertEquals("OK", new String(response.body, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void later_body_replaces_content_length() {
+        HTTPResponseBuilder responseBuilder = new HTTPResponseBuilder(request(RequestMethod.GET, "/"), null)
+                .body(ByteBuffer.wrap("0123456789".getBytes(StandardCharsets.UTF_8)));
+
+        HTTPResponse buffered = responseBuilder.body(ByteBuffer.wrap("01234".getBytes(StandardCharsets.UTF_8))).build();
+        assertEquals(Arrays.asList("5"), buffered.headers.get("Content-Length", String.class));
+
+        HTTPResponse array = responseBuilder.body("012").build();
+        assertFalse(array.headers.containsKey("Content-Length"));
+
+        HTTPResponse streamed = responseBuilder.body(ByteBuffer.wrap(new byte[4])).body(output -> output.write(1)).build();
+        assertFalse(streamed.headers.containsKey("Content-Length"));
+    }
+
+    @Test
+    public void file_body_region_streamed_from_disk() throws IOException {
+        Path file = Files.createTempFile("wave", ".txt");
+        try {
+            Files.write(file, "0123456789".getBytes(StandardCharsets.UTF_8));
+
+            HTTPResponse response = new HTTPResponseBuilder(request(RequestMethod.GET, "/"), null)
+                    .body(file, 2L, 5L)
+                    .build();
+
+            assertEquals(file, response.bodyFile().path);
+            assertEquals("5", response.headers.getMandatory("Content-Length", String.class));
+
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            response.bodyStream.write(output);
+            assertEquals("23456", output.toString(StandardCharsets.UTF_8));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private HTTPRequest request(RequestMethod method, String uri) {
+        return new HTTPRequest(method, uri, ProtocolVersion.HTTP_1_1, new HTTPHeaders(), "localhost", new byte[0]);
+    }
+}
@@ -1,9 +1,14 @@
 package com.acs.wave.router;
 
+import com.acs.wave.router.constants.ProtocolVersion;
+import com.acs.wave.router.constants.RequestMethod;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.util.Arrays;
+import java.util.Collections;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -13,10 +18,11 @@ public class HttpAddressTest {
     public void no_params_route_match_root() {
         String routeUri = "/";
         String requestUri = "/";
-        HTTPAddress address = HTTPAddress.build(requestUri).ofRoute(routeUri);
-        assertTrue(address.matchUrl(routeUri));
+        HTTPRoute<String> route = route(routeUri);
+        HTTPRequest request = request(requestUri);
+        assertTrue(route.canApply(request));
 
-        HTTPParams param = address.pathParams;
+        HTTPParams param = request.ofRoute(route).pathParams();
         assertEquals(0, param.keySet().size());
     }
 
@@ -24,10 +30,11 @@ public class HttpAddressTest {
     public void no_params_route_match_other_route() {
         String routeUri = "/api/dummy";
         String requestUri = "/api/dummy";
-        HTTPAddress address = HTTPAddress.build(requestUri).ofRoute(routeUri);
-        assertTrue(address.matchUrl(routeUri));
+        HTTPRoute<String> route = route(routeUri);
+        HTTPRequest request = request(requestUri);
+        assertTrue(route.canApply(request));
 
-        HTTPParams param = address.pathParams;
+        HTTPParams param = request.ofRoute(route).pathParams();
         assertEquals(0, param.keySet().size());
     }
 
@@ -35,10 +42,11 @@ public class HttpAddressTest {
     public void one_params_route_match() {
         String routeUri = "/api/{action}";
         String requestUri = "/api/dummy";
-        HTTPAddress address = HTTPAddress.build(requestUri).ofRoute(routeUri);
-        assertTrue(address.matchUrl(routeUri));
+        HTTPRoute<String> route = route(routeUri);
+        HTTPRequest request = request(requestUri);
+        assertTrue(route.canApply(request));
 
-        HTTPParams param = address.pathParams;
+        HTTPParams param = request.ofRoute(route).pathParams();
         assertEquals(1, param.keySet().size());
         assertEquals("dummy", param.getMandatory("action", String.class));
     }
@@ -47,10 +55,11 @@ public class HttpAddressTest {
     public void one_params_route_not_all_match() {
         String routeUri = "/api/{action}";
         String requestUri = "/api/dummy/thing";
-        HTTPAddress address = HTTPAddress.build(requestUri).ofRoute(routeUri);
-        assertFalse(address.matchUrl(routeUri));
+        HTTPRoute<String> route = route(routeUri);
+        HTTPRequest request = request(requestUri);
+        assertFalse(route.canApply(request));
 
-        HTTPParams param = address.pathParams;
+        HTTPParams param = request.ofRoute(route).pathParams();
         assertEquals(0, param.keySet().size());
     }
 
@@ -58,10 +67,11 @@ public class HttpAddressTest {
     public void one_params_route_not_all_match_wild_card() {
         String routeUri = "/api/{action}/*";
         String requestUri = "/api/dummy/thing";
-        HTTPAddress address = HTTPAddress.build(requestUri).ofRoute(routeUri);
-        assertTrue(address.matchUrl(routeUri));
+        HTTPRoute<String> route = route(routeUri);
+        HTTPRequest request = request(requestUri);
+        assertTrue(route.canApply(request));
 
-        HTTPParams param = address.pathParams;
+        HTTPParams param = request.ofRoute(route).pathParams();
         assertEquals(1, param.keySet().size());
         assertEquals("dummy", param.getMandatory("action", String.class));
     }
@@ -70,10 +80,11 @@ public class HttpAddressTest {
     public void two_params_route_match() {
         String routeUri = "/api/{action}/{id}";
         String requestUri = "/api/dum+my/1";
-        HTTPAddress address = HTTPAddress.build(requestUri).ofRoute(routeUri);
-        assertTrue(address.matchUrl(routeUri));
+        HTTPRoute<String> route = route(routeUri);
+        HTTPRequest request = request(requestUri);
+        assertTrue(route.canApply(request));
 
-        HTTPParams param = address.pathParams;
+        HTTPParams param = request.ofRoute(route).pathParams();
         assertEquals(2, param.keySet().size());
         assertEquals("dum my", param.getMandatory("action", String.class));
         assertEquals((Long) 1L, param.getMandatory("id", Long.class));
@@ -83,10 +94,11 @@ public class HttpAddressTest {
     public void param_and_param_left_route_match() {
         String routeUri = "/api/{action}/{path+}";
         String requestUri = "/api/dummy/etc/host/dummy.txt";
-        HTTPAddress address = HTTPAddress.build(requestUri).ofRoute(routeUri);
-        assertTrue(address.matchUrl(routeUri));
+        HTTPRoute<String> route = route(routeUri);
+        HTTPRequest request = request(requestUri);
+        assertTrue(route.canApply(request));
 
-        HTTPParams param = address.pathParams;
+        HTTPParams param = request.ofRoute(route).pathParams();
         assertEquals(2, param.keySet().size());
         assertEquals("dummy", param.getMandatory("action", String.class));
         assertEquals("etc/host/dummy.txt", param.getMandatory("path", String.class));
@@ -96,11 +108,63 @@ public class HttpAddressTest {
     public void web_jars_route() {
         String routeUri = "/webjars/{path+}";
         String requestUri = "/webjars/bootstrap/3.3.7-1/css/bootstrap.css";
-        HTTPAddress address = HTTPAddress.build(requestUri).ofRoute(routeUri);
-        assertTrue(address.matchUrl(routeUri));
+        HTTPRoute<String> route = route(routeUri);
+        HTTPRequest request = request(requestUri);
+        assertTrue(route.canApply(request));
 
-        HTTPParams param = address.pathParams;
+        HTTPParams param = request.ofRoute(route).pathParams();
         assertEquals(1, param.keySet().size());
         assertEquals("bootstrap/3.3.7-1/css/bootstrap.css", param.getMandatory("path", String.class));
     }
+
+    @Test
+    public void query_params_decoded() {
+        HTTPParams params = request("/api/search?q=wave+server&sort=name%2Casc&empty&lang=%C3%A9#top").queryParams();
+
+        assertEquals(4, params.keySet().size());
+        assertEquals("wave server", params.getMandatory("q", String.class));
+        assertEquals("name,asc", params.getMandatory("sort", String.class));
+        assertEquals("", params.getMandatory("empty", String.class));
+        assertEquals("\u00e9", params.getMandatory("lang", String.class));
+    }
+
+    @Test
+    public void query_param_value_with_equals() {
+        HTTPParams params = request("/api?filter=a=1&token=abc==").queryParams();
+
+        assertEquals("a=1", params.getMandatory("filter", String.class));
+        assertEquals("abc==", params.getMandatory("token", String.class));
+    }
+
+    @Test
+    public void query_param_with_several_values() {
+        HTTPParams params = request("/api?id=1&id=2&name=a&id=3").queryParams();
+
+        assertEquals(Integer.valueOf(1), params.getMandatory("id", Integer.class));
+        assertEquals(Arrays.asList(1, 2, 3), params.getAll("id", Integer.class));
+        assertEquals(Collections.emptyList(), params.getAll("other", Integer.class));
+    }
+
+    @Test
+    public void malformed_escape_kept() {
+        HTTPParams params = request("/api?ratio=50%&code=%zz%41").queryParams();
+
+        assertEquals("50%", params.getMandatory("ratio", String.class));
+        assertEquals("%zzA", params.getMandatory("code", String.class));
+    }
+
+    @Test
+    public void path_params_decoded() {
+        HTTPParams params = request("/api/a%2Cb").ofRoute(route("/api/{action}")).pathParams();
+
+        assertEquals("a,b", params.getMandatory("action", String.class));
+    }
+
+    private HTTPRequest request(String uri) {
+        return new HTTPRequest(RequestMethod.GET, uri, ProtocolVersion.HTTP_1_1, new HTTPHeaders(), "localhost", new byte[0]);
+    }
+
+    private HTTPRoute<String> route(String routeUri) {
+        return new HTTPRoute<>(routeUri, Collections.emptySet(), "handler");
+    }
 }
@@ -0,0 +1,268 @@
+package com.acs.wave.router;
+
+import com.acs.wave.router.constants.ProtocolVersion;
+import com.acs.wave.router.constants.RequestMethod;
+import com.acs.wave.router.constants.ResponseStatus;
+import com.acs.wave.router.files.EtagStrategy;
+import com.acs.wave.router.files.FileContentCache;
+import com.acs.wave.router.files.StaticFilesystemFolderFilter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ExtendWith(MockitoExtension.class)
+public class StaticFilesystemFolderFilterTest {
+
+    private Path folder;
+    private HTTPRouter router;
+
+    @BeforeEach
+    public void init() throws IOException {
+        folder = Files.createTempDirectory("wave");
+        Files.write(folder.resolve("file.txt"), "0123456789".getBytes(StandardCharsets.UTF_8));
+
+        router = new HTTPRouterBuilder()
+                .filter("/files/{path+}", new StaticFilesystemFolderFilter(folder.toFile(), true))
+                .build();
+    }
+
+    @AfterEach
+    public void clean() throws IOException {
+        Files.delete(folder.resolve("file.txt"));
+        Files.delete(folder);
+    }
+
+    @Test
+    public void whole_file_sent_from_disk() throws IOException {
+        HTTPResponse response = router.process(request(new HTTPHeaders()));
+
+        assertEquals(ResponseStatus.OK, response.responseStatus);
+        assertEquals(folder.resolve("file.txt"), response.bodyFile().path);
+        assertEquals("bytes", response.headers.getMandatory("Accept-Ranges", String.class));
+        assertEquals("0123456789", content(response));
+    }
+
+    @Test
+    public void single_range() throws IOException {
+        HTTPHeaders headers = new HTTPHeaders();
+        headers.add("Range", "bytes=2-4");
+
+        HTTPResponse response = router.process(request(headers));
+
+        assertEquals(ResponseStatus.PARTIAL_CONTENT, response.responseStatus);
+        assertEquals("bytes 2-4/10", response.headers.getMandatory("Content-Range", String.class));
+        assertEquals("234", content(response));
+    }
+
+    @Test
+    public void multiple_ranges() throws IOException {
+        HTTPHeaders headers = new HTTPHeaders();
+        headers.add("Range", "bytes=0-1,-2");
+
+        HTTPResponse response = router.process(request(headers));
+        String contentType = response.headers.getMandatory("Content-Type", String.class);
+        String boundary = contentType.substring(contentType.indexOf("boundary=") + "boundary=".length());
+        String content = content(response);
+
+        assertEquals(ResponseStatus.PARTIAL_CONTENT, response.responseStatus);
+        assertTrue(contentType.startsWith("multipart/byteranges"));
+        assertEquals("\r\n--" + boundary + "\r\nContent-Type: text/plain\r\nContent-Range: bytes 0-1/10\r\n\r\n01" +
+                "\r\n--" + boundary + "\r\nContent-Type: text/plain\r\nContent-Range: bytes 8-9/10\r\n\r\n89" +
+                "\r\n--" + boundary + "--\r\n", content);
+        assertEquals(String.valueOf(content.length()), response.headers.getMandatory("Content-Length", String.class));
+    }
+
+    @Test
+    public void unsatisfiable_range() {
+        HTTPHeaders headers = new HTTPHeaders();
+        headers.add("Range", "bytes=20-");
+
+        HTTPResponse response = router.process(request(headers));
+
+        assertEquals(ResponseStatus.REQUESTED_RANGE_NOT_SATISFIABLE, response.responseStatus);
+        assertEquals("bytes */10", response.headers.getMandatory("Content-Range", String.class));
+    }
+
+    @Test
+    public void outdated_if_range_sends_whole_file() throws IOException {
+        HTTPHeaders headers = new HTTPHeaders();
+        headers.add("Range", "bytes=2-4");
+        headers.add("If-Range", "\"outdated\"");
+
+        HTTPResponse response = router.process(request(headers));
+
+        assertEquals(ResponseStatus.OK, response.responseStatus);
+        assertEquals("0123456789", content(response));
+    }
+
+    @Test
+    public void last_modified_date_validates_range() throws IOException {
+        String lastModified = router.process(request(new HTTPHeaders())).headers.getMandatory("Last-Modified", String.class);
+        HTTPHeaders headers = new HTTPHeaders();
+        headers.add("Range", "bytes=2-4");
+        headers.add("If-Range", lastModified);
+
+        HTTPResponse response = router.process(request(headers));
+
+        assertTrue(lastModified.endsWith(" GMT"));
+        assertEquals(ResponseStatus.PARTIAL_CONTENT, response.responseStatus);
+        assertEquals("234", content(response));
+    }
+
+    @Test
+    public void last_modified_date_answers_not_modified() {
+        String lastModified = router.process(request(new HTTPHeaders())).headers.getMandatory("Last-Modified", String.class);
+        HTTPHeaders headers = new HTTPHeaders();
+        headers.add("If-Modified-Since", lastModified);
+
+        HTTPResponse response = router.process(request(headers));
+
+        assertEquals(ResponseStatus.NOT_MODIFIED, response.responseStatus);
+    }
+
+    @Test
+    public void weak_etag_answers_not_modified() {
+        String etag = router.process(request(new HTTPHeaders())).headers.getMandatory("ETag", String.class);
+        HTTPHeaders headers = new HTTPHeaders();
+        headers.add("If-None-Match", "\"other\", " + etag);
+
+        HTTPResponse response = router.process(request(headers));
+
+        assertTrue(etag.startsWith("W/\""));
+        assertEquals(ResponseStatus.NOT_MODIFIED, response.responseStatus);
+    }
+
+    @Test
+    public void weak_etag_does_not_validate_range() throws IOException {
+        String etag = router.process(request(new HTTPHeaders())).headers.getMandatory("ETag", String.class);
+        HTTPHeaders headers = new HTTPHeaders();
+        headers.add("Range", "bytes=2-4");
+        headers.add("If-Range", etag);
+
+        HTTPResponse response = router.process(request(headers));
+
+        assertEquals(ResponseStatus.OK, response.responseStatus);
+        assertEquals("0123456789", content(response));
+    }
+
+    @Test
+    public void strong_etag_validates_range() throws IOException {
+        HTTPRouter md5Router = new HTTPRouterBuilder()
+                .filter("/files/{path+}", new StaticFilesystemFolderFilter(folder.toFile(), true, null, false, EtagStrategy.md5()))
+                .build();
+        String etag = md5Router.process(request(new HTTPHeaders())).headers.getMandatory("ETag", String.class);
+        HTTPHeaders headers = new HTTPHeaders();
+        headers.add("Range", "bytes=2-4");
+        headers.add("If-Range", etag);
+
+        HTTPResponse response = md5Router.process(request(headers));
+
+        assertEquals("\"781E5E245D69B566979B86E28D23F2C7\"", etag);
+        assertEquals(ResponseStatus.PARTIAL_CONTENT, response.responseStatus);
+        assertEquals("234", content(response));
+    }
+
+    @Test
+    public void cached_content_served_from_buffer() throws IOException {
+        FileContentCache contentCache = new FileContentCache(1024);
+        HTTPRouter cachedRouter = new HTTPRouterBuilder()
+                .filter("/files/{path+}", new StaticFilesystemFolderFilter(folder.toFile(), true, contentCache))
+                .build();
+        HTTPHeaders headers = new HTTPHeaders();
+        headers.add("Range", "bytes=2-4");
+
+        HTTPResponse response = cachedRouter.process(request(new HTTPHeaders()));
+        HTTPResponse rangeResponse = cachedRouter.process(request(headers));
+
+        assertTrue(response.bodyBuffer().buffer().isDirect());
+        assertEquals("0123456789", content(response));
+        assertEquals("234", content(rangeResponse));
+        assertEquals(10, contentCache.size());
+    }
+
+    @Test
+    public void cleared_content_read_again_on_next_request() throws IOException {
+        FileContentCache contentCache = new FileContentCache(1024);
+        HTTPRouter cachedRouter = new HTTPRouterBuilder()
+                .filter("/files/{path+}", new StaticFilesystemFolderFilter(folder.toFile(), true, contentCache))
+                .build();
+
+        cachedRouter.process(request(new HTTPHeaders()));
+        contentCache.clear();
+        HTTPResponse response = cachedRouter.process(request(new HTTPHeaders()));
+
+        assertEquals("0123456789", content(response));
+        assertEquals(10, contentCache.size());
+    }
+
+    @Test
+    public void precompressed_sibling_sent_when_accepted() throws IOException {
+        Files.write(folder.resolve("file.txt.gz"), "gzipped".getBytes(StandardCharsets.UTF_8));
+        try {
+            HTTPRouter encodedRouter = new HTTPRouterBuilder()
+                    .filter("/files/{path+}", new StaticFilesystemFolderFilter(folder.toFile(), true))
+                    .build();
+            HTTPHeaders headers = new HTTPHeaders();
+            headers.add("Accept-Encoding", "gzip");
+
+            HTTPResponse encoded = encodedRouter.process(request(headers));
+            HTTPResponse identity = encodedRouter.process(request(new HTTPHeaders()));
+
+            assertEquals("gzip", encoded.headers.getMandatory("Content-Encoding", String.class));
+            assertEquals("text/plain", encoded.headers.getMandatory("Content-Type", String.class));
+            assertEquals("Accept-Encoding", encoded.headers.getMandatory("Vary", String.class));
+            assertEquals("gzipped", content(encoded));
+            assertEquals("Accept-Encoding", identity.headers.getMandatory("Vary", String.class));
+            assertEquals("0123456789", content(identity));
+        } finally {
+            Files.delete(folder.resolve("file.txt.gz"));
+        }
+    }
+
+    @Test
+    public void changed_file_invalidated_when_watched() throws Exception {
+        CountDownLatch invalidated = new CountDownLatch(1);
+
+        try (StaticFilesystemFolderFilter filter = new StaticFilesystemFolderFilter(folder.toFile(), true, null, true) {
+            @Override
+            protected void invalidate(String uri) {
+                super.invalidate(uri);
+                invalidated.countDown();
+            }
+        }) {
+            HTTPRouter watchedRouter = new HTTPRouterBuilder()
+                    .filter("/files/{path+}", filter)
+                    .build();
+            String etag = watchedRouter.process(request(new HTTPHeaders())).headers.getMandatory("ETag", String.class);
+
+            Files.write(folder.resolve("file.txt"), "changed".getBytes(StandardCharsets.UTF_8));
+
+            assertTrue(invalidated.await(10L, TimeUnit.SECONDS));
+            assertNotEquals(etag, watchedRouter.process(request(new HTTPHeaders())).headers.getMandatory("ETag", String.class));
+        }
+    }
+
+    private String content(HTTPResponse response) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        response.bodyStream.write(output);
+        return output.toString(StandardCharsets.UTF_8);
+    }
+
+    private HTTPRequest request(HTTPHeaders headers) {
+        return new HTTPRequest(RequestMethod.GET, "/files/file.txt", ProtocolVersion.HTTP_1_1, headers, "localhost", new byte[0]);
+    }
+}
@@ -0,0 +1,49 @@
+package com.acs.wave.router.files;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ExtendWith(MockitoExtension.class)
+public class ByteRangeTest {
+
+    @Test
+    public void single_ranges() {
+        assertEquals("[0-99]", ByteRange.parse("bytes=0-99", 1000).toString());
+        assertEquals("[500-999]", ByteRange.parse("bytes=500-", 1000).toString());
+        assertEquals("[900-999]", ByteRange.parse("bytes=-100", 1000).toString());
+        assertEquals("[0-999]", ByteRange.parse("bytes=-5000", 1000).toString());
+        assertEquals("[990-999]", ByteRange.parse("bytes=990-5000", 1000).toString());
+    }
+
+    @Test
+    public void multiple_ranges() {
+        List<ByteRange> ranges = ByteRange.parse("bytes=0-9, 20-29,-5", 100);
+
+        assertEquals("[0-9, 20-29, 95-99]", ranges.toString());
+        assertEquals(10, ranges.get(0).length());
+        assertEquals("bytes 20-29/100", ranges.get(1).contentRange(100));
+    }
+
+    @Test
+    public void unsatisfiable_ranges() {
+        assertTrue(ByteRange.parse("bytes=1000-", 1000).isEmpty());
+        assertTrue(ByteRange.parse("bytes=-0", 1000).isEmpty());
+        assertEquals("[0-9]", ByteRange.parse("bytes=2000-3000,0-9", 1000).toString());
+    }
+
+    @Test
+    public void invalid_ranges_ignored() {
+        assertNull(ByteRange.parse("items=0-9", 1000));
+        assertNull(ByteRange.parse("bytes=9-0", 1000));
+        assertNull(ByteRange.parse("bytes=a-b", 1000));
+        assertNull(ByteRange.parse("bytes=10", 1000));
+        assertNull(ByteRange.parse("bytes=" + "0-1,".repeat(ByteRange.MAX_RANGES + 1), 1000));
+    }
+}
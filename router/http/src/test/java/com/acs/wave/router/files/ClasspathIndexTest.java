@@ -0,0 +1,153 @@
+package com.acs.wave.router.files;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ExtendWith(MockitoExtension.class)
+public class ClasspathIndexTest {
+
+    private Path folder;
+
+    @BeforeEach
+    public void init() throws IOException {
+        folder = Files.createTempDirectory("wave");
+    }
+
+    @AfterEach
+    public void clean() throws IOException {
+        try (Stream<Path> files = Files.walk(folder)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Test
+    public void directory_indexed() throws IOException {
+        Path classes = folder.resolve("classes");
+        write(classes.resolve("public/index.html"), "0123456789");
+        write(classes.resolve("public/js/app.js"), "01234");
+        write(classes.resolve("other/file.txt"), "0");
+
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[]{classes.toUri().toURL()}, null)) {
+            ClasspathIndex index = ClasspathIndex.scan(classLoader, "public");
+
+            assertEquals(2, index.size());
+            assertEquals(10L, index.size("public/index.html"));
+            assertEquals(5L, index.size("public/js/app.js"));
+            assertFalse(index.contains("other/file.txt"));
+            assertFalse(index.contains("public/js"));
+        }
+    }
+
+    @Test
+    public void jar_indexed_after_directory() throws IOException {
+        Path classes = folder.resolve("classes");
+        write(classes.resolve("public/index.html"), "0123456789");
+        Path jar = folder.resolve("assets.jar");
+
+        try (JarOutputStream output = new JarOutputStream(Files.newOutputStream(jar))) {
+            entry(output, "public/", "");
+            entry(output, "public/index.html", "01");
+            entry(output, "public/style.css", "012");
+        }
+
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[]{classes.toUri().toURL(), jar.toUri().toURL()}, null)) {
+            ClasspathIndex index = ClasspathIndex.scan(classLoader, "public");
+
+            assertEquals(2, index.size());
+            assertEquals(10L, index.size("public/index.html"));
+            assertEquals(3L, index.size("public/style.css"));
+            assertTrue(index.contains("public/style.css"));
+        }
+    }
+
+    @Test
+    public void jar_without_directory_entries_indexed() throws IOException {
+        Path jar = folder.resolve("assets.jar");
+
+        try (JarOutputStream output = new JarOutputStream(Files.newOutputStream(jar))) {
+            entry(output, "public/index.html", "01");
+            entry(output, "public/js/app.js", "012");
+        }
+
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[]{jar.toUri().toURL()}, null)) {
+            ClasspathIndex index = ClasspathIndex.scan(classLoader, "public");
+
+            assertEquals(2, index.size());
+            assertEquals(2L, index.size("public/index.html"));
+            assertEquals(3L, index.size("public/js/app.js"));
+        }
+    }
+
+    @Test
+    public void nested_folder_indexed() throws IOException {
+        Path classes = folder.resolve("classes");
+        write(classes.resolve("static/public/index.html"), "0123456789");
+        write(classes.resolve("public/other.html"), "0");
+
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[]{classes.toUri().toURL()}, null)) {
+            ClasspathIndex index = ClasspathIndex.scan(classLoader, "static/public");
+
+            assertEquals(1, index.size());
+            assertEquals(10L, index.size("static/public/index.html"));
+        }
+    }
+
+    @Test
+    public void filter_looks_files_up_when_nothing_indexed() throws IOException {
+        Path classes = folder.resolve("classes");
+        Files.createDirectories(classes);
+
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[]{classes.toUri().toURL()}, null)) {
+            StaticClasspathFolderFilter filter = new StaticClasspathFolderFilter("public", true, classLoader, null, EtagStrategy.md5(), true);
+
+            write(classes.resolve("public/added.html"), "0");
+
+            assertTrue(filter.getFileInfo("added.html").isPresent());
+        }
+    }
+
+    @Test
+    public void indexed_filter_finds_indexed_files_only() throws IOException {
+        Path classes = folder.resolve("classes");
+        write(classes.resolve("public/index.html"), "0123456789");
+
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[]{classes.toUri().toURL()}, null)) {
+            StaticClasspathFolderFilter filter = new StaticClasspathFolderFilter("public", true, classLoader, null, EtagStrategy.md5(), true);
+
+            write(classes.resolve("public/added.html"), "0");
+
+            assertTrue(filter.getFileInfo("index.html").isPresent());
+            assertFalse(filter.getFileInfo("added.html").isPresent());
+            assertFalse(filter.getFileInfo("missing.html").isPresent());
+        }
+    }
+
+    private void write(Path path, String content) throws IOException {
+        Files.createDirectories(path.getParent());
+        Files.write(path, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void entry(JarOutputStream output, String name, String content) throws IOException {
+        output.putNextEntry(new JarEntry(name));
+        output.write(content.getBytes(StandardCharsets.UTF_8));
+        output.closeEntry();
+    }
+}
@@ -0,0 +1,85 @@
+package com.acs.wave.router.files;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ExtendWith(MockitoExtension.class)
+public class EtagStrategyTest {
+
+    private Path folder;
+
+    @BeforeEach
+    public void init() throws IOException {
+        folder = Files.createTempDirectory("wave");
+    }
+
+    @AfterEach
+    public void clean() throws IOException {
+        try (Stream<Path> files = Files.walk(folder)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Test
+    public void weak_etag_follows_size_and_date() throws IOException {
+        File file = file("a.txt", "0123456789");
+        String etag = EtagStrategy.weak().etag(EtagSource.of("/a.txt", file, null));
+
+        Files.write(file.toPath(), "012345678".getBytes(StandardCharsets.UTF_8));
+
+        assertTrue(etag.startsWith("W/\"a-"));
+        assertNotEquals(etag, EtagStrategy.weak().etag(EtagSource.of("/a.txt", file, null)));
+    }
+
+    @Test
+    public void weak_etag_absent_without_date() throws IOException {
+        assertNull(EtagStrategy.weak().etag(new EtagSource("a.txt", 10L, 0L, null, () -> null)));
+    }
+
+    @Test
+    public void md5_etag_of_cached_content() throws IOException {
+        File file = file("a.txt", "0123456789");
+        FileContent content = FileContent.read(file, Long.MAX_VALUE);
+
+        assertEquals("\"781E5E245D69B566979B86E28D23F2C7\"", EtagStrategy.md5().etag(EtagSource.of("/a.txt", file, content)));
+    }
+
+    @Test
+    public void manifest_etag_with_fallback() throws IOException {
+        file("static/a.txt", "0123456789");
+        file("static/b.txt", "0123456789");
+        file(EtagStrategy.MANIFEST, "static/a.txt=0a1b2c\n");
+
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[]{folder.toUri().toURL()}, null)) {
+            EtagStrategy strategy = EtagStrategy.manifest(classLoader, EtagStrategy.md5());
+
+            assertEquals("\"0a1b2c\"", strategy.etag(EtagSource.of("static/a.txt", classLoader, null, -1L)));
+            assertEquals("\"781E5E245D69B566979B86E28D23F2C7\"", strategy.etag(EtagSource.of("static/b.txt", classLoader, null, -1L)));
+        }
+    }
+
+    private File file(String name, String content) throws IOException {
+        Path path = folder.resolve(name);
+        Files.createDirectories(path.getParent());
+        Files.write(path, content.getBytes(StandardCharsets.UTF_8));
+        return path.toFile();
+    }
+}
@@ -0,0 +1,105 @@
+package com.acs.wave.router.files;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ExtendWith(MockitoExtension.class)
+public class FileContentCacheTest {
+
+    private Path folder;
+
+    @BeforeEach
+    public void init() throws IOException {
+        folder = Files.createTempDirectory("wave");
+    }
+
+    @AfterEach
+    public void clean() throws IOException {
+        try (Stream<Path> files = Files.walk(folder)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Test
+    public void content_read_once() throws IOException {
+        FileContentCache cache = new FileContentCache(100);
+        File file = file("a.txt", "0123456789");
+
+        FileContent content = cache.get(file);
+
+        assertSame(content, cache.get(file));
+        assertEquals("0123456789", string(content.content()));
+        assertTrue(content.content().isDirect());
+        assertEquals(10, cache.size());
+    }
+
+    @Test
+    public void least_recently_used_evicted() throws IOException {
+        FileContentCache cache = new FileContentCache(25);
+        File a = file("a.txt", "0123456789");
+        File b = file("b.txt", "0123456789");
+        File c = file("c.txt", "0123456789");
+
+        FileContent contentA = cache.get(a);
+        FileContent contentB = cache.get(b);
+        cache.get(a);
+        cache.get(c);
+
+        assertEquals(20, cache.size());
+        assertSame(contentA, cache.get(a));
+        assertNotSame(contentB, cache.get(b));
+    }
+
+    @Test
+    public void large_files_mapped_or_not_cached() throws IOException {
+        FileContentCache cache = new FileContentCache(15, 5);
+
+        FileContent small = cache.get(file("a.txt", "0123"));
+        FileContent mapped = cache.get(file("b.txt", "0123456789"));
+
+        assertFalse(small.isMapped());
+        assertTrue(mapped.isMapped());
+        assertEquals("0123456789", string(mapped.content()));
+        assertNull(cache.get(file("c.txt", "01234567890123456789")));
+        assertEquals(14, cache.size());
+    }
+
+    @Test
+    public void modified_file_read_again() throws IOException {
+        FileContentCache cache = new FileContentCache(100);
+        File file = file("a.txt", "0123456789");
+        cache.get(file);
+
+        Files.write(file.toPath(), "01234".getBytes(StandardCharsets.UTF_8));
+
+        assertEquals("01234", string(cache.get(file).content()));
+        assertEquals(5, cache.size());
+    }
+
+    private File file(String name, String content) throws IOException {
+        return Files.write(folder.resolve(name), content.getBytes(StandardCharsets.UTF_8)).toFile();
+    }
+
+    private String string(ByteBuffer buffer) {
+        return StandardCharsets.UTF_8.decode(buffer).toString();
+    }
+}
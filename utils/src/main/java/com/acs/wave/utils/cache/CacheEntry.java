@@ -3,10 +3,21 @@ package com.acs.wave.utils.cache;
 class CacheEntry<Value> {
     final Value value;
     final Long expirationTime;
+    // the provider had no value for the key
+    final boolean miss;
 
     CacheEntry(Value value, Long expirationTime) {
+        this(value, expirationTime, false);
+    }
+
+    private CacheEntry(Value value, Long expirationTime, boolean miss) {
         this.value = value;
         this.expirationTime = expirationTime;
+        this.miss = miss;
+    }
+
+    static <Value> CacheEntry<Value> miss(long expirationTime) {
+        return new CacheEntry<>(null, expirationTime, true);
     }
 
     public boolean canExpire() {
@@ -1,46 +1,143 @@
 package com.acs.wave.utils.cache;
 
-import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Supplier;
-import java.util.stream.Collectors;
 
+/**
+ * Cache whose reads take no lock. A missing key is loaded by the first thread asking for it, the other threads asking
+ * for the same key wait for its value, and the threads asking for other keys are not blocked.
+ * <p>
+ * Keys cannot be null.
+ */
 public class CacheMap<Key, Value> {
 
     private final Long timeout;
     private final TimeUnit units;
     private final CacheProvider<Key, Value> provider;
     private final Supplier<Long> timeProvider;
+    private final Long missTimeout;
+    private final int maxMisses;
 
-    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
-
-    private Map<Key, CacheEntry<Value>> map = new HashMap<>();
+    private final ConcurrentMap<Key, CacheEntry<Value>> map = new ConcurrentHashMap<>();
+    // keys being loaded, completed with their new entry, or null when nothing is stored
+    private final ConcurrentMap<Key, CompletableFuture<CacheEntry<Value>>> loads = new ConcurrentHashMap<>();
+    private final AtomicInteger misses = new AtomicInteger();
+    // time from which the expired misses can be swept again, a sweep walks through every entry
+    private final AtomicLong nextMissSweep = new AtomicLong(Long.MIN_VALUE);
 
     CacheMap(Long timeout, TimeUnit units, CacheProvider<Key, Value> provider, Supplier<Long> timeProvider) {
+        this(timeout, units, provider, timeProvider, null, 0);
+    }
+
+    /**
+     * @param missTimeout The time in milliseconds a key without value is remembered, null to call the provider again
+     *                    on every get.
+     * @param maxMisses   The maximum number of keys without value remembered at once.
+     */
+    CacheMap(Long timeout, TimeUnit units, CacheProvider<Key, Value> provider, Supplier<Long> timeProvider, Long missTimeout, int maxMisses) {
         this.timeout = timeout;
         this.units = units;
         this.provider = provider;
         this.timeProvider = timeProvider;
+        this.missTimeout = missTimeout;
+        this.maxMisses = maxMisses;
     }
 
     public Value get(Key key) {
-        boolean mustLoad = secureRead(() -> ((provider != null) && (!isValid(key))));
+        CacheEntry<Value> entry = map.get(key);
+
+        if ((entry != null) && (isValid(entry) || isCachedMiss(entry))) {
+            return entry.value;
+        }
+        return (provider != null) ? load(key) : null;
+    }
+
+    private Value load(Key key) {
+        CompletableFuture<CacheEntry<Value>> loading = new CompletableFuture<>();
+        CompletableFuture<CacheEntry<Value>> current = loads.putIfAbsent(key, loading);
+
+        if (current != null) {
+            return valueOf(await(current));
+        }
+
+        try {
+            // stored by another thread between the first read and the start of this load
+            CacheEntry<Value> entry = map.get(key);
+
+            if ((entry == null) || (!isValid(entry) && !isCachedMiss(entry))) {
+                Value value = provider.get(key);
+                entry = null;
 
-        if (mustLoad) {
-            secureWrite(() -> {
-                if (!isValid(key)) {
-                    Value value = provider.get(key);
+                if (value != null) {
+                    entry = new CacheEntry<>(value, getExpirationTime());
+                } else if (canCacheMiss()) {
+                    entry = CacheEntry.miss(timeProvider.get() + missTimeout);
+                }
+
+                if (entry != null) {
+                    store(key, entry);
 
-                    if (value != null) {
-                        map.put(key, new CacheEntry<>(value, getExpirationTime()));
+                    // removed or put while loading, the loaded value is outdated: returned but not kept
+                    if (loads.get(key) != loading) {
+                        unstore(key, entry);
                     }
                 }
-            });
+            }
+
+            loading.complete(entry);
+            return valueOf(entry);
+        } catch (RuntimeException | Error e) {
+            loading.completeExceptionally(e);
+            throw e;
+        } finally {
+            loads.remove(key, loading);
         }
-        return secureGet(key);
+    }
+
+    private CacheEntry<Value> await(CompletableFuture<CacheEntry<Value>> loading) {
+        try {
+            return loading.join();
+        } catch (CompletionException e) {
+            // the provider failed in the loading thread, its exception is thrown to every thread waiting for it
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private Value valueOf(CacheEntry<Value> entry) {
+        return (entry != null) ? entry.value : null;
+    }
+
+    /**
+     * @return True if a new miss can be remembered, after forgetting the expired ones when there are too many. They
+     * are forgotten at most once per miss timeout, the misses are not remembered in between.
+     */
+    private boolean canCacheMiss() {
+        if (missTimeout == null) {
+            return false;
+        }
+
+        if (misses.get() >= maxMisses) {
+            long now = timeProvider.get();
+            long nextSweep = nextMissSweep.get();
+
+            if ((now >= nextSweep) && nextMissSweep.compareAndSet(nextSweep, now + missTimeout)) {
+                removeInvalid();
+            }
+        }
+        return misses.get() < maxMisses;
     }
 
     private Long getExpirationTime() {
@@ -49,38 +146,63 @@ public class CacheMap<Key, Value> {
 
 
     public void put(Key key, Value value) {
-        secureWrite(() -> map.put(key, new CacheEntry<>(value, getExpirationTime())));
+        // forgotten before storing, so that a load in progress sees it and does not overwrite the value
+        loads.remove(key);
+        store(key, new CacheEntry<>(value, getExpirationTime()));
     }
 
     public void remove(Key key) {
-        secureWrite(() -> map.remove(key));
+        // forgotten before removing, so that a load in progress sees it and removes the value it stores
+        loads.remove(key);
+
+        CacheEntry<Value> previous = map.remove(key);
+        if ((previous != null) && previous.miss) {
+            misses.decrementAndGet();
+        }
     }
 
 
     public void clear() {
-        secureWrite(() -> map.clear());
+        loads.clear();
+        map.keySet().forEach(this::remove);
     }
 
 
     public void cleanup() {
-        secureWrite(() -> {
-            List<Key> keysToRemove = map.entrySet().stream()
-                    .map(Map.Entry::getKey)
-                    .filter(key -> !isValid(key))
-                    .collect(Collectors.toList());
+        removeInvalid();
+    }
+
+    private void removeInvalid() {
+        for (Map.Entry<Key, CacheEntry<Value>> entry : map.entrySet()) {
+            CacheEntry<Value> value = entry.getValue();
 
-            keysToRemove.forEach(map::remove);
-        });
+            // an entry stored again meanwhile is kept
+            if (!isValid(value) && !isCachedMiss(value)) {
+                unstore(entry.getKey(), value);
+            }
+        }
     }
 
-    private Value secureGet(Key key) {
-        return secureRead(() -> isValid(key) ? map.get(key).value : null);
+    private void store(Key key, CacheEntry<Value> entry) {
+        CacheEntry<Value> previous = map.put(key, entry);
+        int delta = (entry.miss ? 1 : 0) - (((previous != null) && previous.miss) ? 1 : 0);
+
+        if (delta != 0) {
+            misses.addAndGet(delta);
+        }
     }
 
-    private boolean isValid(Key key) {
-        CacheEntry<Value> entry = map.get(key);
+    /**
+     * Remove an entry unless it has been replaced meanwhile.
+     */
+    private void unstore(Key key, CacheEntry<Value> entry) {
+        if (map.remove(key, entry) && entry.miss) {
+            misses.decrementAndGet();
+        }
+    }
 
-        boolean validEntry = (entry != null) && (entry.value != null);
+    private boolean isValid(CacheEntry<Value> entry) {
+        boolean validEntry = (entry.value != null);
 
         if (validEntry && entry.canExpire() && entriesExpire()) {
             validEntry = timeProvider.get() <= entry.expirationTime;
@@ -89,25 +211,11 @@ public class CacheMap<Key, Value> {
         return validEntry;
     }
 
-    private boolean entriesExpire() {
-        return (timeout != null) && (units != null);
-    }
-
-    private <T> T secureRead(Supplier<T> action) {
-        lock.readLock().lock();
-        try {
-            return action.get();
-        } finally {
-            lock.readLock().unlock();
-        }
+    private boolean isCachedMiss(CacheEntry<Value> entry) {
+        return entry.miss && (timeProvider.get() <= entry.expirationTime);
     }
 
-    private void secureWrite(Runnable action) {
-        lock.writeLock().lock();
-        try {
-            action.run();
-        } finally {
-            lock.writeLock().unlock();
-        }
+    private boolean entriesExpire() {
+        return (timeout != null) && (units != null);
     }
 }
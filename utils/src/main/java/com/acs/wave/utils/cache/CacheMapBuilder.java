@@ -4,13 +4,17 @@ import java.util.concurrent.TimeUnit;
 
 public class CacheMapBuilder<Key, Value> {
 
+    public static final int DEFAULT_MAX_MISSES = 10_000;
+
     private Long timeout;
     private TimeUnit units;
     private CacheProvider<Key, Value> provider;
+    private Long missTimeout;
+    private int maxMisses = DEFAULT_MAX_MISSES;
 
 
     public CacheMap<Key, Value> build() {
-        return new CacheMap<>(timeout, units, provider, System::currentTimeMillis);
+        return new CacheMap<>(timeout, units, provider, System::currentTimeMillis, missTimeout, maxMisses);
     }
 
     public CacheMapBuilder<Key, Value> withTimeout(Long timeout, TimeUnit units) {
@@ -23,4 +27,35 @@ public class CacheMapBuilder<Key, Value> {
         this.provider = provider;
         return this;
     }
+
+    /**
+     * Remember the keys the provider has no value for, so that repeated gets of a missing key do not call it again
+     * until the timeout.
+     *
+     * @param timeout The time a missing key is remembered.
+     * @param units   The units of the timeout.
+     * @return The builder.
+     */
+    public CacheMapBuilder<Key, Value> withMissTimeout(long timeout, TimeUnit units) {
+        if (timeout < 0L) {
+            throw new IllegalArgumentException("Miss timeout can't be negative");
+        }
+
+        this.missTimeout = TimeUnit.MILLISECONDS.convert(timeout, units);
+        return this;
+    }
+
+    /**
+     * @param maxMisses The maximum number of missing keys remembered at once, {@link #DEFAULT_MAX_MISSES} by default.
+     *                  Other misses call the provider again until remembered ones expire.
+     * @return The builder.
+     */
+    public CacheMapBuilder<Key, Value> withMaxMisses(int maxMisses) {
+        if (maxMisses < 1) {
+            throw new IllegalArgumentException("Max misses must be at least 1");
+        }
+
+        this.maxMisses = maxMisses;
+        return this;
+    }
 }
@@ -6,10 +6,23 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -68,4 +81,179 @@ public class CacheMapTest {
         String result = cache.get(key);
         assertEquals(null, result);
     }
+
+    @Test
+    public void miss_cached_until_timeout() {
+        AtomicLong time = new AtomicLong(1L);
+        AtomicInteger calls = new AtomicInteger();
+        CacheMap<String, String> cache = new CacheMap<>(null, null, key -> {
+            calls.incrementAndGet();
+            return null;
+        }, time::get, 10L, 100);
+
+        assertNull(cache.get("missing"));
+        assertNull(cache.get("missing"));
+        time.set(12L);
+        assertNull(cache.get("missing"));
+
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    public void miss_forgotten_when_removed() {
+        AtomicReference<String> value = new AtomicReference<>();
+        CacheMap<String, String> cache = new CacheMapBuilder<String, String>()
+                .withProvider(key -> value.get())
+                .withMissTimeout(1L, TimeUnit.HOURS)
+                .build();
+
+        assertNull(cache.get("Hello"));
+        value.set("World!");
+        assertNull(cache.get("Hello"));
+        cache.remove("Hello");
+
+        assertEquals("World!", cache.get("Hello"));
+    }
+
+    @Test
+    public void misses_bounded() {
+        AtomicLong time = new AtomicLong(1L);
+        AtomicInteger calls = new AtomicInteger();
+        CacheMap<String, String> cache = new CacheMap<>(null, null, key -> {
+            calls.incrementAndGet();
+            return null;
+        }, time::get, 10L, 2);
+
+        cache.get("a");
+        cache.get("b");
+        cache.get("c");
+        cache.get("c");
+        assertEquals(4, calls.get());
+
+        time.set(20L);
+        cache.get("c");
+        cache.get("c");
+        assertEquals(5, calls.get());
+    }
+
+    @Test
+    public void concurrent_gets_load_once() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+        CacheMap<String, String> cache = new CacheMapBuilder<String, String>()
+                .withProvider(key -> {
+                    calls.incrementAndGet();
+                    loading.countDown();
+                    await(release);
+                    return "World!";
+                })
+                .build();
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            List<Thread> waiters = new CopyOnWriteArrayList<>();
+            results.add(executor.submit(() -> cache.get("Hello")));
+            await(loading);
+            for (int i = 0; i < 3; i++) {
+                results.add(executor.submit(() -> {
+                    waiters.add(Thread.currentThread());
+                    return cache.get("Hello");
+                }));
+            }
+
+            // the later gets must be waiting for the load in progress, not run once it is over
+            awaitBlocked(waiters, 3);
+            for (Future<String> result : results) {
+                assertFalse(result.isDone());
+            }
+            release.countDown();
+
+            for (Future<String> result : results) {
+                assertEquals("World!", result.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(1, calls.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void slow_load_does_not_block_other_keys() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CacheMap<String, String> cache = new CacheMapBuilder<String, String>()
+                .withProvider(key -> {
+                    if (key.equals("slow")) {
+                        loading.countDown();
+                        await(release);
+                    }
+                    return key.toUpperCase();
+                })
+                .build();
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<String> slow = executor.submit(() -> cache.get("slow"));
+            await(loading);
+
+            assertEquals("FAST", cache.get("fast"));
+            assertFalse(slow.isDone());
+
+            release.countDown();
+            assertEquals("SLOW", slow.get(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void remove_during_load_discards_loaded_value() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+        CacheMap<String, String> cache = new CacheMapBuilder<String, String>()
+                .withProvider(key -> {
+                    if (calls.incrementAndGet() == 1) {
+                        loading.countDown();
+                        await(release);
+                        return "outdated";
+                    }
+                    return "fresh";
+                })
+                .build();
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<String> load = executor.submit(() -> cache.get("key"));
+            await(loading);
+
+            cache.remove("key");
+            release.countDown();
+
+            assertEquals("outdated", load.get(5, TimeUnit.SECONDS));
+            assertEquals("fresh", cache.get("key"));
+            assertEquals("fresh", cache.get("key"));
+            assertEquals(2, calls.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void awaitBlocked(List<Thread> threads, int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while ((threads.size() < count) || threads.stream().anyMatch(thread -> thread.getState() == Thread.State.RUNNABLE)) {
+            assertTrue(System.nanoTime() < deadline);
+            Thread.sleep(10L);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
 }